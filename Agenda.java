@@ -0,0 +1,815 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Vector;
+
+/**
+ * The <code>Agenda</code> class keeps track of the rule applications that are
+ * still possible in a proof tree, sorted by preference. There is one queue per
+ * preference (i.e., per <code>Condition</code>), and each formula of each
+ * unclosed node whose rule has not yet been applied is kept in the queue of
+ * the most preferred condition it satisfies. The agenda is updated only when
+ * nodes are added to the tree, so choosing the next rule application does not
+ * require scanning the tree.
+ * <p>
+ * Conditions which depend only on the formula are evaluated once, when the
+ * node containing the formula is added. Conditions which also depend on the
+ * tree are evaluated again for a formula whenever one of the atoms they name
+ * as triggers for it is added below it (or whenever any node is, if they name
+ * none), and once more before the application is handed out.
+ * Universally quantified formulae, which may need their rule applied again,
+ * can be put to sleep after their rule has been applied, and are woken up
+ * when a node introducing new constants is added below them.
+ * <p>
+ * The agenda records which rule applications have been made itself rather
+ * than relying on ticked formulae, so that it can follow a single branch of
+ * the tree. Once a mark has been taken, every change made to the agenda is
+ * recorded, so that it can be returned to the mark when the branch is
+ * abandoned and another is followed instead.
+ *
+ * @see Condition
+ */
+class Agenda {
+	/**
+	 * The tree whose rule applications are kept by this agenda.
+	 */
+	private ProofTree tree;
+
+	/**
+	 * The conditions, in order of preference.
+	 */
+	private Vector<Condition> conditions;
+
+	/**
+	 * The queue of pending rule applications for each condition.
+	 */
+	private Vector<PriorityQueue<Entry>> queues;
+
+	/**
+	 * The rule applications currently in the queue of each condition, used
+	 * to avoid queueing the same application twice.
+	 */
+	private Vector<HashSet<Entry>> queued;
+
+	/**
+	 * The place of each node added to this agenda in a pre-order walk of the
+	 * tree. Rule applications in nodes which come earlier in the walk are
+	 * preferred.
+	 */
+	private IdentityHashMap<ProofTreeNode, Place> places;
+
+	/**
+	 * The rule applications that are asleep in each node.
+	 */
+	private IdentityHashMap<ProofTreeNode, Vector<Entry>> asleep;
+
+	/**
+	 * The rule applications that are blocked in each node.
+	 */
+	private IdentityHashMap<ProofTreeNode, Vector<Entry>> blocked;
+
+	/**
+	 * The rule applications that have been handed out and not put to sleep
+	 * since, i.e., those that have been applied for good.
+	 */
+	private HashSet<Entry> applied;
+
+	/**
+	 * Whether or not any of the conditions depend on the tree.
+	 */
+	private boolean dependsOnTree;
+
+	/**
+	 * The rule applications to be reconsidered when a given atom is added
+	 * below them.
+	 *
+	 * @see Condition#getTriggers(Formula)
+	 */
+	private HashMap<Formula, Vector<Entry>> triggered;
+
+	/**
+	 * The rule applications in each node which are to be reconsidered when
+	 * any node is added below them.
+	 */
+	private IdentityHashMap<ProofTreeNode, Vector<Entry>> untriggered;
+
+	/**
+	 * The changes made to this agenda since a mark was taken, in the order in
+	 * which they were made, or <code>null</code> if changes are not being
+	 * recorded.
+	 */
+	private Vector<Change> trail;
+
+	/**
+	 * Creates a new, empty <code>Agenda</code> for the given tree.
+	 *
+	 * @param tree the tree whose rule applications are to be kept
+	 * @param conditions the conditions, in order of preference
+	 */
+	public Agenda(ProofTree tree, Vector<Condition> conditions) {
+		this.tree = tree;
+		this.conditions = conditions;
+		this.queues = new Vector<PriorityQueue<Entry>>();
+		this.queued = new Vector<HashSet<Entry>>();
+		for(int i = 0; i < conditions.size(); i++) {
+			this.queues.add(new PriorityQueue<Entry>());
+			this.queued.add(new HashSet<Entry>());
+		}
+		this.places = new IdentityHashMap<ProofTreeNode, Place>();
+		this.asleep = new IdentityHashMap<ProofTreeNode, Vector<Entry>>();
+		this.blocked = new IdentityHashMap<ProofTreeNode, Vector<Entry>>();
+		this.applied = new HashSet<Entry>();
+		this.dependsOnTree = false;
+		for(int i = 0; i < conditions.size(); i++) {
+			this.dependsOnTree |= conditions.get(i).dependsOnTree();
+		}
+		this.triggered = new HashMap<Formula, Vector<Entry>>();
+		this.untriggered = new IdentityHashMap<ProofTreeNode, Vector<Entry>>();
+	}
+
+	/**
+	 * Sets the tree whose rule applications are kept by this agenda. This is
+	 * used when the agenda is returned to a mark in order to follow another
+	 * branch of the tree.
+	 *
+	 * @param tree the tree whose rule applications are to be kept
+	 */
+	public void setTree(ProofTree tree) {
+		this.tree = tree;
+	}
+
+	/**
+	 * Returns a mark for the current state of this agenda, to which it can be
+	 * returned later. Every change made to the agenda from the first mark
+	 * until the changes are forgotten is recorded.
+	 *
+	 * @return a mark for the current state of this agenda
+	 * @see #undo(int)
+	 */
+	public int mark() {
+		if(this.trail == null) {
+			this.trail = new Vector<Change>();
+		}
+		return(this.trail.size());
+	}
+
+	/**
+	 * Returns this agenda to the state it was in when the given mark was
+	 * taken, undoing the changes made since in the reverse order. Marks must
+	 * be returned to in the reverse order in which they were taken, and none
+	 * of the changes undone may have been forgotten.
+	 *
+	 * @param mark a mark taken by <code>mark</code>
+	 * @see #mark()
+	 */
+	public void undo(int mark) {
+		Vector<Change> trail = this.trail;
+		this.trail = null;
+		while(trail.size() > mark) {
+			trail.remove(trail.size() - 1).undo();
+		}
+		this.trail = trail;
+	}
+
+	/**
+	 * Forgets the changes recorded so far and stops recording changes until
+	 * the next mark is taken. This is used once no marks remain to be
+	 * returned to, so that the changes need not be kept.
+	 */
+	public void forget() {
+		this.trail = null;
+	}
+
+	/**
+	 * Adds the rule applications of the given node, which has just been added
+	 * to the tree, to this agenda. Rule applications above the node are woken
+	 * up if the node introduces new constants. Those whose conditions depend
+	 * on the tree are reconsidered if the node contains one of their
+	 * triggers, or if they have none. Closed nodes are ignored, and so are
+	 * formulae which occur earlier in the same node, whose rule is applied
+	 * only once.
+	 * <p>
+	 * Nodes must be added in the order in which they are added to the tree,
+	 * and both children of a node must be in the tree before either is added
+	 * to the agenda.
+	 *
+	 * @param node the node added to the tree
+	 */
+	public void add(final ProofTreeNode node) {
+		if(node.isClosed()) {
+			return;
+		}
+		Place place = this.place(node);
+		this.places.put(node, place);
+		if(this.trail != null) {
+			this.trail.add(new Change() {
+				public void undo() {
+					Agenda.this.places.remove(node);
+				}
+			});
+		}
+		for(int i = 0; i < node.getFormulaCount(); i++) {
+			if(occursBefore(node, i)) {
+				continue;
+			}
+			Entry entry = new Entry(node, place, node.getFormula(i), i);
+			this.queue(entry);
+			if(this.dependsOnTree) {
+				this.index(entry);
+				this.reconsider(entry);
+			}
+		}
+		ProofTreeNode parent = node.getParent();
+		boolean wake = (parent == null) || (node.getConstantCountFrom() > parent.getConstantCountFrom());
+		for(ProofTreeNode current = parent; current != null; current = current.getParent()) {
+			if(wake) {
+				this.wake(this.asleep, current);
+			}
+			this.wake(this.blocked, current);
+			Vector<Entry> entries = this.untriggered.get(current);
+			if(entries != null) {
+				for(Iterator<Entry> i = entries.iterator(); i.hasNext();) {
+					this.reconsider(i.next());
+				}
+			}
+		}
+		for(int i = 0; i < node.getFormulaCount(); i++) {
+			if(node.getFormula(i).isAtom()) {
+				this.reconsider(node.getFormula(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the place of the given node, which has just been added to the
+	 * tree, in a pre-order walk of the tree. The node starts a new segment if
+	 * it is the root or has a sibling, and otherwise continues the segment of
+	 * its parent.
+	 *
+	 * @param node the node added to the tree
+	 * @return the place of the node
+	 */
+	private Place place(ProofTreeNode node) {
+		ProofTreeNode parent = node.getParent();
+		if(parent == null) {
+			return(new Place(new Segment(null, 0, 0), 0));
+		}
+		Place above = this.places.get(parent);
+		if(parent.getRightChild() == null) {
+			return(new Place(above.segment, above.depth + 1));
+		}
+		int side = (parent.getRightChild() == node) ? 1 : 0;
+		return(new Place(new Segment(above.segment, side, above.depth + 1), above.depth + 1));
+	}
+
+	/**
+	 * Answers whether or not the formula at the given position of the given
+	 * node also occurs at an earlier position of the node.
+	 *
+	 * @param node the node containing the formula
+	 * @param position the position of the formula
+	 * @return <code>true</code> if the formula occurs earlier in the node;
+	 *  <code>false</code> otherwise
+	 */
+	private static boolean occursBefore(ProofTreeNode node, int position) {
+		Formula formula = node.getFormula(position);
+		for(int i = 0; i < position; i++) {
+			if(node.getFormula(i).equals(formula)) {
+				return(true);
+			}
+		}
+		return(false);
+	}
+
+	/**
+	 * Puts the given rule application to sleep until a node introducing new
+	 * constants is added below the node containing it. A universally
+	 * quantified formula which has been instantiated for every constant of
+	 * the branches below it thus leaves the agenda until there is a new
+	 * constant to instantiate it for.
+	 *
+	 * @param entry the rule application to be put to sleep
+	 */
+	public void sleep(Entry entry) {
+		this.put(this.asleep, entry);
+	}
+
+	/**
+	 * Puts the given rule application aside until any node is added below
+	 * the node containing it. This is used for existentially quantified
+	 * formulae whose instantiation is blocked, since a node added to the
+	 * branch may change whether it is still blocked.
+	 *
+	 * @param entry the rule application to be put aside
+	 * @see ProofTreeGenerator#generateProofTree(Vector, Formula, Budget, boolean)
+	 */
+	public void block(Entry entry) {
+		this.put(this.blocked, entry);
+	}
+
+	/**
+	 * Answers whether or not a rule application in the given node, or in a
+	 * node above it, has been put aside because it is blocked, and has not
+	 * been woken since. Once no more rules apply, an open branch for which
+	 * this holds has been stopped by blocking rather than fully expanded.
+	 *
+	 * @param node the node from which to look
+	 * @return <code>true</code> if a blocked rule application lies on the
+	 *  branch above the node; <code>false</code> otherwise
+	 * @see #block(Entry)
+	 */
+	public boolean isBlockedFrom(ProofTreeNode node) {
+		for(ProofTreeNode current = node; current != null; current = current.getParent()) {
+			if(this.blocked.containsKey(current)) {
+				return(true);
+			}
+		}
+		return(false);
+	}
+
+	/**
+	 * Removes the given rule application from those that have been applied,
+	 * and keeps it in the given map under the node containing it.
+	 *
+	 * @param map the map in which the application is to be kept
+	 * @param entry the rule application
+	 */
+	private void put(IdentityHashMap<ProofTreeNode, Vector<Entry>> map, final Entry entry) {
+		if(this.applied.remove(entry) && this.trail != null) {
+			this.trail.add(new Change() {
+				public void undo() {
+					Agenda.this.applied.add(entry);
+				}
+			});
+		}
+		this.put(map, entry.getNode(), entry);
+	}
+
+	/**
+	 * Adds the given rule application to the list kept in the given map under
+	 * the given key.
+	 *
+	 * @param map the map in which the application is to be kept
+	 * @param key the key under which it is to be kept
+	 * @param entry the rule application
+	 */
+	private <K> void put(final Map<K, Vector<Entry>> map, final K key, Entry entry) {
+		Vector<Entry> entries = map.get(key);
+		if(entries == null) {
+			entries = new Vector<Entry>();
+			map.put(key, entries);
+		}
+		entries.add(entry);
+		if(this.trail != null) {
+			final Vector<Entry> list = entries;
+			this.trail.add(new Change() {
+				public void undo() {
+					list.remove(list.size() - 1);
+					if(list.isEmpty()) {
+						map.remove(key);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Removes and returns the list of rule applications kept in the given map
+	 * under the given key, if there is one.
+	 *
+	 * @param map the map in which the applications are kept
+	 * @param key the key under which they are kept
+	 * @return the list of rule applications, or <code>null</code> if there is
+	 *  none
+	 */
+	private <K> Vector<Entry> remove(final Map<K, Vector<Entry>> map, final K key) {
+		final Vector<Entry> entries = map.remove(key);
+		if(entries != null && this.trail != null) {
+			this.trail.add(new Change() {
+				public void undo() {
+					map.put(key, entries);
+				}
+			});
+		}
+		return(entries);
+	}
+
+	/**
+	 * Queues again the rule applications kept in the given map under the
+	 * given node, and removes them from the map.
+	 *
+	 * @param map the map in which the applications are kept
+	 * @param node the node whose applications are to be queued
+	 */
+	private void wake(IdentityHashMap<ProofTreeNode, Vector<Entry>> map, ProofTreeNode node) {
+		Vector<Entry> woken = this.remove(map, node);
+		if(woken != null) {
+			for(Iterator<Entry> i = woken.iterator(); i.hasNext();) {
+				this.queue(i.next());
+			}
+		}
+	}
+
+	/**
+	 * Removes and returns the most preferred pending rule application, or
+	 * <code>null</code> if there are none. Applications whose node no longer
+	 * has any open leaves below it, which have already been applied, or whose
+	 * condition no longer holds are discarded. The application returned is
+	 * considered applied unless it is put to sleep.
+	 *
+	 * @return the most preferred pending rule application, or <code>null
+	 *  </code> if there are none
+	 */
+	public Entry next() {
+		for(int i = 0; i < this.conditions.size(); i++) {
+			Condition condition = this.conditions.get(i);
+			PriorityQueue<Entry> queue = this.queues.get(i);
+			while(!queue.isEmpty()) {
+				final Entry entry = queue.poll();
+				final int index = i;
+				this.queued.get(i).remove(entry);
+				if(this.trail != null) {
+					this.trail.add(new Change() {
+						public void undo() {
+							Agenda.this.queue(entry, index);
+						}
+					});
+				}
+				if(this.tree.closesFrom(entry.getNode()) || this.applied.contains(entry)) {
+					continue;
+				} else if(condition.dependsOnTree() && !condition.satisfies(this.tree, entry.getNode(), entry.getFormula())) {
+					continue;
+				}
+				this.applied.add(entry);
+				if(this.trail != null) {
+					this.trail.add(new Change() {
+						public void undo() {
+							Agenda.this.applied.remove(entry);
+						}
+					});
+				}
+				return(entry);
+			}
+		}
+		return(null);
+	}
+
+	/**
+	 * Queues the given rule application under the most preferred condition
+	 * that depends only on the formula and that the formula satisfies.
+	 *
+	 * @param entry the rule application to be queued
+	 */
+	private void queue(Entry entry) {
+		for(int i = 0; i < this.conditions.size(); i++) {
+			Condition condition = this.conditions.get(i);
+			if(!condition.dependsOnTree() && condition.satisfies(this.tree, entry.getNode(), entry.getFormula())) {
+				this.queue(entry, i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Queues the given rule application under the given condition, unless it
+	 * is already queued there.
+	 *
+	 * @param entry the rule application to be queued
+	 * @param condition the index of the condition
+	 */
+	private void queue(final Entry entry, final int condition) {
+		if(this.queued.get(condition).add(entry)) {
+			this.queues.get(condition).add(entry);
+			if(this.trail != null) {
+				this.trail.add(new Change() {
+					public void undo() {
+						Agenda.this.queued.get(condition).remove(entry);
+						Agenda.this.queues.get(condition).remove(entry);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Records the given rule application under the triggers named for it by
+	 * each condition which depends on the tree, or under its node if some
+	 * condition names none.
+	 *
+	 * @param entry the rule application to be recorded
+	 */
+	private void index(Entry entry) {
+		Vector<Formula> triggers = new Vector<Formula>();
+		for(int i = 0; i < this.conditions.size(); i++) {
+			Condition condition = this.conditions.get(i);
+			if(condition.dependsOnTree()) {
+				List<Formula> conditionTriggers = condition.getTriggers(entry.getFormula());
+				if(conditionTriggers == null) {
+					this.put(this.untriggered, entry.getNode(), entry);
+					return;
+				}
+				triggers.addAll(conditionTriggers);
+			}
+		}
+		for(Iterator<Formula> i = triggers.iterator(); i.hasNext();) {
+			this.put(this.triggered, i.next(), entry);
+		}
+	}
+
+	/**
+	 * Reconsiders the rule applications which have the given atom as a
+	 * trigger. Those which have been applied, or whose node no longer has any
+	 * open leaves below it, are forgotten. Applications on other branches may
+	 * be reconsidered too; this is harmless, since their conditions cannot
+	 * have changed.
+	 *
+	 * @param atom the atom added to the tree
+	 */
+	private void reconsider(Formula atom) {
+		final Vector<Entry> entries = this.triggered.get(atom);
+		if(entries == null) {
+			return;
+		}
+		for(int i = 0; i < entries.size();) {
+			final Entry entry = entries.get(i);
+			if(this.applied.contains(entry) || this.tree.closesFrom(entry.getNode())) {
+				final int index = i;
+				entries.remove(i);
+				if(this.trail != null) {
+					this.trail.add(new Change() {
+						public void undo() {
+							entries.add(index, entry);
+						}
+					});
+				}
+			} else {
+				this.reconsider(entry);
+				i++;
+			}
+		}
+		if(entries.isEmpty()) {
+			this.remove(this.triggered, atom);
+		}
+	}
+
+	/**
+	 * Evaluates the conditions which depend on the tree for the given rule
+	 * application, unless it has been applied, and queues it under each
+	 * condition it satisfies. Conditions under which it is already queued
+	 * are not evaluated again, since they are checked once more before it is
+	 * handed out.
+	 *
+	 * @param entry the rule application to be reconsidered
+	 */
+	private void reconsider(Entry entry) {
+		if(this.applied.contains(entry)) {
+			return;
+		}
+		for(int i = 0; i < this.conditions.size(); i++) {
+			Condition condition = this.conditions.get(i);
+			if(condition.dependsOnTree() && !this.queued.get(i).contains(entry) && condition.satisfies(this.tree, entry.getNode(), entry.getFormula())) {
+				this.queue(entry, i);
+			}
+		}
+	}
+
+	/**
+	 * The <code>Change</code> class represents a change made to the agenda,
+	 * which can be undone.
+	 *
+	 * @see Agenda#undo(int)
+	 */
+	abstract static class Change {
+		/**
+		 * Undoes the change. Changes made after it must already have been
+		 * undone.
+		 */
+		public abstract void undo();
+	}
+
+	/**
+	 * The <code>Entry</code> class represents a pending rule application,
+	 * i.e., a formula in a node of the tree. Entries are ordered by the place
+	 * of their nodes in a pre-order walk of the tree, and then by the position
+	 * of the formula in the node, which is the order in which rules were tried
+	 * when the whole tree was scanned at each stage.
+	 */
+	static class Entry implements Comparable<Entry> {
+		/**
+		 * The node containing the formula.
+		 */
+		private ProofTreeNode node;
+
+		/**
+		 * The place of the node in a pre-order walk of the tree.
+		 */
+		private Place place;
+
+		/**
+		 * The formula to which a rule is to be applied.
+		 */
+		private Formula formula;
+
+		/**
+		 * The position of the formula in the node.
+		 */
+		private int position;
+
+		/**
+		 * Creates a new <code>Entry</code> for the given formula in the given
+		 * node.
+		 *
+		 * @param node the node containing the formula
+		 * @param place the place of the node in a pre-order walk of the tree
+		 * @param formula the formula to which a rule is to be applied
+		 * @param position the position of the formula in the node
+		 */
+		public Entry(ProofTreeNode node, Place place, Formula formula, int position) {
+			this.node = node;
+			this.place = place;
+			this.formula = formula;
+			this.position = position;
+		}
+
+		/**
+		 * Returns the node containing the formula.
+		 *
+		 * @return the node containing the formula
+		 */
+		public ProofTreeNode getNode() {
+			return(this.node);
+		}
+
+		/**
+		 * Returns the position of the formula in the node.
+		 *
+		 * @return the position of the formula in the node
+		 */
+		public int getPosition() {
+			return(this.position);
+		}
+
+		/**
+		 * Returns the formula to which a rule is to be applied.
+		 *
+		 * @return the formula to which a rule is to be applied
+		 */
+		public Formula getFormula() {
+			return(this.formula);
+		}
+
+		/**
+		 * Compares this entry with another for order of preference.
+		 *
+		 * @param other the entry to be compared with
+		 * @return a negative integer, zero, or a positive integer as this entry
+		 *  is preferred to, equally preferred to, or less preferred than the
+		 *  other
+		 */
+		public int compareTo(Entry other) {
+			int difference = this.place.compareTo(other.place);
+			return((difference != 0) ? difference : (this.position - other.position));
+		}
+
+		/**
+		 * Answers whether or not this entry is equal to another object. Two
+		 * entries are equal if they are for the same position in the same
+		 * node.
+		 *
+		 * @param obj the <code>Object</code> to be tested for equality
+		 * @return <code>true</code> if the specified object is equal to this
+		 *	<code>Entry</code>; <code>false</code> otherwise
+		 */
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Entry)) {
+				return(false);
+			} else {
+				Entry other = (Entry)obj;
+				return(this.node == other.node && this.position == other.position);
+			}
+		}
+
+		/**
+		 * Returns a hash code for this entry.
+		 *
+		 * @return a hash code for this entry
+		 */
+		public int hashCode() {
+			return(31 * System.identityHashCode(this.node) + this.position);
+		}
+	}
+
+	/**
+	 * The <code>Segment</code> class represents a run of nodes of the tree,
+	 * each but the first of which is the only child of the one before it. The
+	 * first node of a segment is the root of the tree or has a sibling.
+	 */
+	static class Segment {
+		/**
+		 * The segment containing the parent of the first node, or <code>null
+		 * </code> if the first node is the root.
+		 */
+		private Segment parent;
+
+		/**
+		 * Whether the first node is the left (0) or right (1) child of its
+		 * parent.
+		 */
+		private int side;
+
+		/**
+		 * The depth of the first node in the tree.
+		 */
+		private int depth;
+
+		/**
+		 * Creates a new <code>Segment</code> starting at the given depth.
+		 *
+		 * @param parent the segment containing the parent of the first node
+		 * @param side whether the first node is the left (0) or right (1)
+		 *  child of its parent
+		 * @param depth the depth of the first node in the tree
+		 */
+		public Segment(Segment parent, int side, int depth) {
+			this.parent = parent;
+			this.side = side;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * The <code>Place</code> class represents the place of a node in a
+	 * pre-order walk of the tree, as the segment containing it and its depth.
+	 * Comparing two places takes time proportional to the number of branching
+	 * points above them, rather than to their depth.
+	 */
+	static class Place implements Comparable<Place> {
+		/**
+		 * The segment containing the node.
+		 */
+		private Segment segment;
+
+		/**
+		 * The depth of the node in the tree.
+		 */
+		private int depth;
+
+		/**
+		 * Creates a new <code>Place</code> for the node at the given depth of
+		 * the given segment.
+		 *
+		 * @param segment the segment containing the node
+		 * @param depth the depth of the node in the tree
+		 */
+		public Place(Segment segment, int depth) {
+			this.segment = segment;
+			this.depth = depth;
+		}
+
+		/**
+		 * Compares this place with another in pre-order. Both places are
+		 * moved up to the branching points leading to them until they lie in
+		 * the same segment; there, a node comes before the nodes below it, and
+		 * the left branch before the right.
+		 *
+		 * @param other the place to be compared with
+		 * @return a negative integer, zero, or a positive integer as this place
+		 *  comes before, is the same as, or comes after the other
+		 */
+		public int compareTo(Place other) {
+			Segment segment = this.segment;
+			Segment otherSegment = other.segment;
+			int depth = this.depth;
+			int otherDepth = other.depth;
+			int side = -1;
+			int otherSide = -1;
+			while(segment != otherSegment) {
+				if(segment.depth >= otherSegment.depth) {
+					side = segment.side;
+					depth = segment.depth - 1;
+					segment = segment.parent;
+				} else {
+					otherSide = otherSegment.side;
+					otherDepth = otherSegment.depth - 1;
+					otherSegment = otherSegment.parent;
+				}
+			}
+			return((depth != otherDepth) ? (depth - otherDepth) : (side - otherSide));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The <code>Budget</code> class limits the work done while generating a proof
+ * tree. A budget allows a maximum number of rule applications, a maximum
+ * number of nodes and a maximum amount of time, counted from the creation of
+ * the budget. Generation stops as soon as any of these runs out, or as soon as
+ * the budget is cancelled, possibly from another thread. A tree whose
+ * generation was stopped this way is incomplete, and its outcome is unknown
+ * unless it has already closed.
+ * <p>
+ * A budget counts the work charged to it, so it should be used for a single
+ * tree only.
+ *
+ * @see ProofTreeGenerator#generateProofTree(java.util.Vector, Formula, Budget)
+ * @see ProofTree#getOutcome()
+ */
+public class Budget {
+	/**
+	 * The maximum number of rule applications.
+	 */
+	private long maxSteps;
+
+	/**
+	 * The maximum number of nodes.
+	 */
+	private long maxNodes;
+
+	/**
+	 * The value of <code>System.nanoTime()</code> after which time has run
+	 * out, or <code>Long.MAX_VALUE</code> if there is no time limit.
+	 */
+	private long deadline;
+
+	/**
+	 * The number of rule applications made so far.
+	 */
+	private AtomicLong steps;
+
+	/**
+	 * The number of nodes in the tree so far, counting the root.
+	 */
+	private AtomicLong nodes;
+
+	/**
+	 * Whether or not this budget has been cancelled.
+	 */
+	private volatile boolean cancelled;
+
+	/**
+	 * Creates a new <code>Budget</code> with no limits. Such a budget runs out
+	 * only if it is cancelled or the generating thread is interrupted.
+	 */
+	public Budget() {
+		this(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a new <code>Budget</code> with the given limits. A limit of
+	 * <code>Long.MAX_VALUE</code> means no limit.
+	 *
+	 * @param maxSteps the maximum number of rule applications
+	 * @param maxNodes the maximum number of nodes in the tree, counting the
+	 *  root
+	 * @param timeout the maximum time allowed, in milliseconds from now
+	 */
+	public Budget(long maxSteps, long maxNodes, long timeout) {
+		this.maxSteps = maxSteps;
+		this.maxNodes = maxNodes;
+		if(timeout >= Long.MAX_VALUE / 1000000) {
+			this.deadline = Long.MAX_VALUE;
+		} else {
+			this.deadline = System.nanoTime() + (timeout * 1000000);
+		}
+		this.steps = new AtomicLong();
+		this.nodes = new AtomicLong(1);
+	}
+
+	/**
+	 * Cancels this budget. Generation of the tree stops at the next rule
+	 * application. This may be called from any thread.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Answers whether or not this budget has been cancelled.
+	 *
+	 * @return <code>true</code> if this budget has been cancelled; <code>false
+	 *  </code> otherwise
+	 */
+	public boolean isCancelled() {
+		return(this.cancelled);
+	}
+
+	/**
+	 * Charges a single rule application, which added the given number of
+	 * nodes to the tree, to this budget.
+	 *
+	 * @param nodes the number of nodes added by the rule application
+	 */
+	void charge(int nodes) {
+		this.steps.incrementAndGet();
+		if(nodes > 0) {
+			this.nodes.addAndGet(nodes);
+		}
+	}
+
+	/**
+	 * Answers whether or not this budget has run out, i.e., whether generation
+	 * must stop. The budget has run out if any of its limits has been
+	 * reached, if it has been cancelled, or if the current thread has been
+	 * interrupted.
+	 *
+	 * @return <code>true</code> if this budget has run out; <code>false</code>
+	 *  otherwise
+	 */
+	boolean isExhausted() {
+		return(this.cancelled || Thread.currentThread().isInterrupted()
+			|| this.steps.get() >= this.maxSteps || this.nodes.get() >= this.maxNodes
+			|| (this.deadline != Long.MAX_VALUE && System.nanoTime() - this.deadline > 0));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,733 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * The <code>CompactProofTree</code> class stores a finished proof tree in a
+ * handful of primitive arrays rather than as a graph of <code>ProofTreeNode
+ * </code> objects. Nodes are numbered in pre-order, with the root numbered
+ * zero, and the parent and children of each node are kept as indices into
+ * parallel <code>int</code> arrays. Each distinct formula of the tree is given
+ * an id, and the ids of the formulae of all nodes are kept in a single pool,
+ * each node owning a contiguous range of it. The ticked formulae and the
+ * closed nodes are kept in bit sets.
+ * <p>
+ * A compact tree is a snapshot: it is not changed by changes to the tree it
+ * was made from, and cannot itself be changed. It can be read by index, or
+ * through the usual <code>ProofTree</code> and <code>ProofTreeNode</code>
+ * methods by way of <code>getView</code>. The nodes of the view are made from
+ * the arrays as they are reached, and kept so that each node is always the
+ * same object. Any attempt to change the view throws an <code>
+ * UnsupportedOperationException</code>.
+ *
+ * @see ProofTree
+ */
+class CompactProofTree {
+	/**
+	 * The index used for a missing parent or child.
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * The parent of each node, or <code>NONE</code>.
+	 */
+	private int[] parent;
+
+	/**
+	 * The left child of each node, or <code>NONE</code>.
+	 */
+	private int[] left;
+
+	/**
+	 * The right child of each node, or <code>NONE</code>.
+	 */
+	private int[] right;
+
+	/**
+	 * The start of the range of the pool holding the formulae of each node.
+	 * The range of node <code>i</code> ends where that of node <code>i + 1
+	 * </code> starts, so this array has one more element than there are
+	 * nodes.
+	 */
+	private int[] start;
+
+	/**
+	 * The ids of the formulae of all nodes, in the order of the nodes.
+	 */
+	private int[] pool;
+
+	/**
+	 * The distinct formulae of the tree, indexed by id.
+	 */
+	private Formula[] formulae;
+
+	/**
+	 * The positions in the pool of the ticked formulae.
+	 */
+	private BitSet ticked;
+
+	/**
+	 * The closed nodes.
+	 */
+	private BitSet closed;
+
+	/**
+	 * The open leaves of the tree (i.e., the unclosed nodes without
+	 * children), in increasing order.
+	 */
+	private int[] openLeaves;
+
+	/**
+	 * Whether or not the tree was complete.
+	 *
+	 * @see ProofTree#isComplete()
+	 */
+	private boolean complete;
+
+	/**
+	 * Whether or not branches which repeat themselves were blocked while the
+	 * tree was generated.
+	 */
+	private boolean blocking;
+
+	/**
+	 * The nodes of the view made so far, indexed by node, or <code>null
+	 * </code> if no view has been made.
+	 */
+	private Node[] nodes;
+
+	/**
+	 * Creates a new <code>CompactProofTree</code> holding a copy of the given
+	 * tree.
+	 *
+	 * @param tree the tree to be copied
+	 */
+	public CompactProofTree(ProofTree tree) {
+		int size = tree.size();
+		this.parent = new int[size];
+		this.left = new int[size];
+		this.right = new int[size];
+		this.start = new int[size + 1];
+		this.pool = new int[size];
+		this.ticked = new BitSet();
+		this.closed = new BitSet(size);
+		this.complete = tree.isComplete();
+		this.blocking = tree.isBlocking();
+
+		HashMap<Formula, Integer> ids = new HashMap<Formula, Integer>();
+		Vector<Formula> distinct = new Vector<Formula>();
+		Vector<Integer> leaves = new Vector<Integer>();
+		Vector<ProofTreeNode> stack = new Vector<ProofTreeNode>();
+		Vector<Integer> parents = new Vector<Integer>();
+		stack.add(tree.getRoot());
+		parents.add(NONE);
+		int position = 0;
+		for(int count = 0; stack.size() > 0; count++) {
+			ProofTreeNode node = stack.remove(stack.size() - 1);
+			int above = parents.remove(parents.size() - 1);
+			this.parent[count] = above;
+			this.left[count] = NONE;
+			this.right[count] = NONE;
+			if(above != NONE && node.getParent().getLeftChild() == node) {
+				this.left[above] = count;
+			} else if(above != NONE) {
+				this.right[above] = count;
+			}
+
+			this.start[count] = position;
+			for(int i = 0; i < node.getFormulaCount(); i++) {
+				Formula formula = node.getFormula(i);
+				Integer id = ids.get(formula);
+				if(id == null) {
+					id = distinct.size();
+					ids.put(formula, id);
+					distinct.add(formula);
+				}
+				if(position == this.pool.length) {
+					this.pool = Arrays.copyOf(this.pool, 2 * position);
+				}
+				if(node.isTicked(i)) {
+					this.ticked.set(position);
+				}
+				this.pool[position++] = id;
+			}
+			if(node.isClosed()) {
+				this.closed.set(count);
+			} else if(node.getLeftChild() == null && node.getRightChild() == null) {
+				leaves.add(count);
+			}
+
+			if(node.getRightChild() != null) {
+				stack.add(node.getRightChild());
+				parents.add(count);
+			}
+			if(node.getLeftChild() != null) {
+				stack.add(node.getLeftChild());
+				parents.add(count);
+			}
+		}
+		this.start[size] = position;
+		this.pool = Arrays.copyOf(this.pool, position);
+		this.formulae = distinct.toArray(new Formula[distinct.size()]);
+		this.openLeaves = new int[leaves.size()];
+		for(int i = 0; i < this.openLeaves.length; i++) {
+			this.openLeaves[i] = leaves.get(i);
+		}
+	}
+
+	/**
+	 * Answers the size of this tree, i.e., the number of nodes in the tree.
+	 *
+	 * @return the size of the tree
+	 */
+	public int size() {
+		return(this.parent.length);
+	}
+
+	/**
+	 * Answers whether or not all leaves of this tree close.
+	 *
+	 * @return <code>true</code> if all leaves of this tree close; <code>false
+	 *  </code> otherwise
+	 */
+	public boolean closes() {
+		return(this.openLeaves.length == 0);
+	}
+
+	/**
+	 * Returns the parent of the given node.
+	 *
+	 * @param node the index of a node
+	 * @return the index of the parent, or <code>NONE</code> for the root
+	 */
+	public int getParent(int node) {
+		return(this.parent[node]);
+	}
+
+	/**
+	 * Returns the left child of the given node.
+	 *
+	 * @param node the index of a node
+	 * @return the index of the left child, or <code>NONE</code>
+	 */
+	public int getLeftChild(int node) {
+		return(this.left[node]);
+	}
+
+	/**
+	 * Returns the right child of the given node.
+	 *
+	 * @param node the index of a node
+	 * @return the index of the right child, or <code>NONE</code>
+	 */
+	public int getRightChild(int node) {
+		return(this.right[node]);
+	}
+
+	/**
+	 * Returns the number of formulae in the given node.
+	 *
+	 * @param node the index of a node
+	 * @return the number of formulae in the node
+	 */
+	public int getFormulaCount(int node) {
+		return(this.start[node + 1] - this.start[node]);
+	}
+
+	/**
+	 * Returns the formula at the given position in the given node.
+	 *
+	 * @param node the index of a node
+	 * @param position the position of the formula in the node
+	 * @return the formula at the given position
+	 */
+	public Formula getFormula(int node, int position) {
+		return(this.formulae[this.pool[this.start[node] + position]]);
+	}
+
+	/**
+	 * Answers whether or not the formula at the given position in the given
+	 * node is ticked.
+	 *
+	 * @param node the index of a node
+	 * @param position the position of the formula in the node
+	 * @return <code>true</code> if the formula is ticked; <code>false</code>
+	 *  otherwise
+	 */
+	public boolean isTicked(int node, int position) {
+		return(this.ticked.get(this.start[node] + position));
+	}
+
+	/**
+	 * Answers whether or not the given node is closed.
+	 *
+	 * @param node the index of a node
+	 * @return <code>true</code> if the node is closed; <code>false</code>
+	 *  otherwise
+	 */
+	public boolean isClosed(int node) {
+		return(this.closed.get(node));
+	}
+
+	/**
+	 * Returns the index following the last node below the given node
+	 * (inclusive.) Since nodes are numbered in pre-order, the nodes below a
+	 * node are numbered consecutively from it up to this index.
+	 *
+	 * @param node the index of a node
+	 * @return the index following the last node below it
+	 */
+	private int end(int node) {
+		while(this.left[node] != NONE || this.right[node] != NONE) {
+			node = (this.right[node] != NONE) ? this.right[node] : this.left[node];
+		}
+		return(node + 1);
+	}
+
+	/**
+	 * Returns a <code>ProofTree</code> which reads this tree. Its nodes are
+	 * made as they are reached, and neither it nor its nodes can be changed.
+	 * Walks over the whole tree are faster through the index-based methods,
+	 * which make no nodes.
+	 *
+	 * @return a view of this tree
+	 */
+	public ProofTree getView() {
+		ProofTree view = new ProofTree(this.getNode(0));
+		view.setBlocking(this.blocking);
+		if(!this.complete) {
+			view.markIncomplete();
+		}
+		return(view);
+	}
+
+	/**
+	 * Returns the node of the view for the given index, making it and any of
+	 * the nodes above it which have not yet been made.
+	 *
+	 * @param index the index of a node, or <code>NONE</code>
+	 * @return the node of the view, or <code>null</code> if the index is
+	 *  <code>NONE</code>
+	 */
+	private Node getNode(int index) {
+		if(index == NONE) {
+			return(null);
+		} else if(this.nodes == null) {
+			this.nodes = new Node[this.size()];
+		}
+		if(this.nodes[index] == null) {
+			int top = index;
+			while(this.parent[top] != NONE && this.nodes[this.parent[top]] == null) {
+				top = this.parent[top];
+			}
+			Vector<Integer> path = new Vector<Integer>();
+			for(int i = index; i != this.parent[top]; i = this.parent[i]) {
+				path.add(i);
+			}
+			for(int i = path.size() - 1; i >= 0; i--) {
+				int current = path.get(i);
+				Node above = (this.parent[current] == NONE) ? null : this.nodes[this.parent[current]];
+				this.nodes[current] = new Node(this, current, above);
+			}
+		}
+		return(this.nodes[index]);
+	}
+
+	/**
+	 * Returns a string representation of this proof tree, in the same form as
+	 * <code>ProofTree.toString</code>.
+	 *
+	 * @return a string representation of this proof tree
+	 * @see ProofTree#toString()
+	 */
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		try {
+			this.write(result);
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return(result.toString());
+	}
+
+	/**
+	 * Writes a string representation of this proof tree to the given <code>
+	 * Appendable</code>, in the same form as <code>ProofTree.write</code>. The
+	 * nodes are read from the arrays in order, so no nodes of the view are
+	 * made.
+	 *
+	 * @param out the <code>Appendable</code> to write to
+	 * @throws IOException if an I/O error occurs
+	 * @see ProofTree#write(Appendable)
+	 */
+	public void write(Appendable out) throws IOException {
+		int[] level = new int[this.size()];
+		for(int i = 0; i < level.length; i++) {
+			level[i] = (this.parent[i] == NONE) ? 0 : level[this.parent[i]] + 1;
+			for(int j = 0; j < level[i]; j++) {
+				out.append("|   ");
+			}
+			for(int j = this.start[i]; j < this.start[i + 1]; j++) {
+				if(j > this.start[i]) {
+					out.append(", ");
+				}
+				this.formulae[this.pool[j]].appendTo(out);
+			}
+			if(this.closed.get(i)) {
+				out.append(" [X]");
+			}
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * The <code>Formulae</code> class is a read-only list of the formulae of
+	 * one node, read from the pool.
+	 */
+	private static class Formulae extends AbstractList<Formula> {
+		/**
+		 * The tree holding the pool.
+		 */
+		private CompactProofTree tree;
+
+		/**
+		 * The index of the node.
+		 */
+		private int node;
+
+		/**
+		 * Creates a new <code>Formulae</code> list for the given node.
+		 *
+		 * @param tree the tree holding the pool
+		 * @param node the index of the node
+		 */
+		public Formulae(CompactProofTree tree, int node) {
+			this.tree = tree;
+			this.node = node;
+		}
+
+		/**
+		 * Returns the formula at the given position in the node.
+		 *
+		 * @param position the position of the formula
+		 * @return the formula at the given position
+		 */
+		public Formula get(int position) {
+			if(position < 0 || position >= this.size()) {
+				throw new IndexOutOfBoundsException("position " + position + " of " + this.size());
+			}
+			return(this.tree.getFormula(this.node, position));
+		}
+
+		/**
+		 * Returns the number of formulae in the node.
+		 *
+		 * @return the number of formulae in the node
+		 */
+		public int size() {
+			return(this.tree.getFormulaCount(this.node));
+		}
+	}
+
+	/**
+	 * The <code>Node</code> class is a node of the view of a compact tree. Its
+	 * formulae, children, ticks and closure, and its place in the list of open
+	 * leaves, are read from the arrays of the tree. Any attempt to change it
+	 * throws an <code>UnsupportedOperationException</code>.
+	 */
+	private static class Node extends ProofTreeNode {
+		/**
+		 * The tree this node belongs to.
+		 */
+		private CompactProofTree tree;
+
+		/**
+		 * The index of this node.
+		 */
+		private int index;
+
+		/**
+		 * Creates a new <code>Node</code> for the given index.
+		 *
+		 * @param tree the tree the node belongs to
+		 * @param index the index of the node
+		 * @param parent the node of the view for the parent, or <code>null
+		 *  </code> for the root
+		 */
+		public Node(CompactProofTree tree, int index, Node parent) {
+			super(new Formulae(tree, index));
+			this.tree = tree;
+			this.index = index;
+			super.setParent(parent);
+		}
+
+		/**
+		 * Returns the left child of this node, or <code>null</code> if no left
+		 * child exists.
+		 *
+		 * @return the left child of this node, or <code>null</code>
+		 */
+		public ProofTreeNode getLeftChild() {
+			return(this.tree.getNode(this.tree.left[this.index]));
+		}
+
+		/**
+		 * Returns the right child of this node, or <code>null</code> if no
+		 * right child exists.
+		 *
+		 * @return the right child of this node, or <code>null</code>
+		 */
+		public ProofTreeNode getRightChild() {
+			return(this.tree.getNode(this.tree.right[this.index]));
+		}
+
+		/**
+		 * Answers whether or not this node is closed.
+		 *
+		 * @return <code>true</code> if this node is closed; <code>false
+		 *  </code> otherwise
+		 */
+		public boolean isClosed() {
+			return(this.tree.isClosed(this.index));
+		}
+
+		/**
+		 * Answers whether or not the given formula is ticked in this node. If
+		 * the formula occurs more than once, the first occurrence is checked.
+		 *
+		 * @param formula the formula to be checked
+		 * @return <code>true</code> if the given formula is ticked in this
+		 *  node; <code>false</code> otherwise
+		 */
+		public boolean isTicked(Formula formula) {
+			for(int i = 0; i < this.getFormulaCount(); i++) {
+				if(this.getFormula(i).equals(formula)) {
+					return(this.isTicked(i));
+				}
+			}
+			throw new IndexOutOfBoundsException(formula + " is not in the node");
+		}
+
+		/**
+		 * Answers whether or not the formula at the given position is ticked
+		 * in this node.
+		 *
+		 * @param position the position of the formula to be checked
+		 * @return <code>true</code> if the formula is ticked in this node;
+		 *  <code>false</code> otherwise
+		 */
+		public boolean isTicked(int position) {
+			return(this.tree.isTicked(this.index, position));
+		}
+
+		/**
+		 * Returns the first open leaf below this node (inclusive), found by
+		 * searching the open leaves of the tree for the range of indices below
+		 * this node.
+		 *
+		 * @return the first open leaf below this node, or <code>null</code>
+		 */
+		ProofTreeNode getFirstLeaf() {
+			int[] leaves = this.tree.openLeaves;
+			int i = search(leaves, this.index);
+			return((i < leaves.length && leaves[i] < this.tree.end(this.index)) ? this.tree.getNode(leaves[i]) : null);
+		}
+
+		/**
+		 * Returns the last open leaf below this node (inclusive.)
+		 *
+		 * @return the last open leaf below this node, or <code>null</code>
+		 */
+		ProofTreeNode getLastLeaf() {
+			int[] leaves = this.tree.openLeaves;
+			int i = search(leaves, this.tree.end(this.index)) - 1;
+			return((i >= 0 && leaves[i] >= this.index) ? this.tree.getNode(leaves[i]) : null);
+		}
+
+		/**
+		 * Returns the open leaf after this one in the list of open leaves of
+		 * the tree.
+		 *
+		 * @return the next open leaf, or <code>null</code>
+		 */
+		ProofTreeNode getNextLeaf() {
+			int[] leaves = this.tree.openLeaves;
+			int i = search(leaves, this.index + 1);
+			return((i < leaves.length && this.isLeaf()) ? this.tree.getNode(leaves[i]) : null);
+		}
+
+		/**
+		 * Returns the open leaf before this one in the list of open leaves of
+		 * the tree.
+		 *
+		 * @return the previous open leaf, or <code>null</code>
+		 */
+		ProofTreeNode getPreviousLeaf() {
+			int[] leaves = this.tree.openLeaves;
+			int i = search(leaves, this.index) - 1;
+			return((i >= 0 && this.isLeaf()) ? this.tree.getNode(leaves[i]) : null);
+		}
+
+		/**
+		 * Answers whether or not this node is an open leaf of the tree.
+		 *
+		 * @return <code>true</code> if this node is an open leaf; <code>false
+		 *  </code> otherwise
+		 */
+		private boolean isLeaf() {
+			return(Arrays.binarySearch(this.tree.openLeaves, this.index) >= 0);
+		}
+
+		/**
+		 * Returns the position of the first of the given increasing indices
+		 * which is not less than the given index.
+		 *
+		 * @param indices the increasing indices to be searched
+		 * @param index the index to be searched for
+		 * @return the position of the first index not less than the given
+		 *  one, or the number of indices if there is none
+		 */
+		private static int search(int[] indices, int index) {
+			int i = Arrays.binarySearch(indices, index);
+			return((i >= 0) ? i : -(i + 1));
+		}
+
+		/**
+		 * Returns the exception thrown by any attempt to change this node.
+		 *
+		 * @return an <code>UnsupportedOperationException</code>
+		 */
+		private static UnsupportedOperationException unchangeable() {
+			return(new UnsupportedOperationException("compact proof trees cannot be changed"));
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param parent the new parent of this node
+		 */
+		public void setParent(ProofTreeNode parent) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param leftChild the new left child of this node
+		 */
+		public void setLeftChild(ProofTreeNode leftChild) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param rightChild the new right child of this node
+		 */
+		public void setRightChild(ProofTreeNode rightChild) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param previousLeaf the previous open leaf
+		 */
+		void setPreviousLeaf(ProofTreeNode previousLeaf) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param nextLeaf the next open leaf
+		 */
+		void setNextLeaf(ProofTreeNode nextLeaf) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param firstLeaf the first open leaf below this node
+		 */
+		void setFirstLeaf(ProofTreeNode firstLeaf) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param lastLeaf the last open leaf below this node
+		 */
+		void setLastLeaf(ProofTreeNode lastLeaf) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param universal the universally quantified formula
+		 */
+		public void setUniversal(Formula universal) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 */
+		public void close() {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param formula the formula to be ticked
+		 */
+		public void tickFormula(Formula formula) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param position the position of the formula to be ticked
+		 */
+		public void tickFormula(int position) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param formula the formula to be unticked
+		 */
+		public void untickFormula(Formula formula) {
+			throw unchangeable();
+		}
+
+		/**
+		 * Throws an <code>UnsupportedOperationException</code>.
+		 *
+		 * @param position the position of the formula to be unticked
+		 */
+		public void untickFormula(int position) {
+			throw unchangeable();
+		}
+	}
+}
\ No newline at end of file
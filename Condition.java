@@ -0,0 +1,61 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.util.List;
+
+/**
+ * The <code>Condition</code> class represents a condition for rule application,
+ * i.e., a preference in the order that a rule is applied.
+ */
+abstract class Condition {
+	/**
+	 * Answers whether or not an application of a tree rule to the given formula
+	 * in the given node in the given tree satisfies a condition to be
+	 * determined by implementations of this class.
+	 *
+	 * @param tree the tree to which a tree rule is to be applied
+	 * @param node the node to which a tree rule is to be applied
+	 * @param formula the formula to which a tree rule is to be applied
+	 * @return <code>true</code> if the condition is satisfied; <code>false
+	 *  </code> otherwise
+	 */
+	public abstract boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula);
+
+	/**
+	 * Answers whether or not this condition depends on the tree, rather than
+	 * only on the formula. Conditions which depend only on the formula need to
+	 * be evaluated only once per formula.
+	 *
+	 * @return <code>true</code> if this condition depends on the tree; <code>
+	 *  false</code> otherwise
+	 * @see Agenda
+	 */
+	public boolean dependsOnTree() {
+		return(false);
+	}
+
+	/**
+	 * Returns the atoms whose addition to a branch may change whether an
+	 * application of a tree rule to the given formula, above the added node,
+	 * satisfies this condition. This lets the agenda reconsider a formula only
+	 * when one of these atoms is added below it, rather than whenever any node
+	 * is. It is only used for conditions which depend on the tree. By default
+	 * the atoms are not known, and <code>null</code> is returned.
+	 *
+	 * @param formula the formula to which a tree rule is to be applied
+	 * @return the atoms whose addition may change whether the condition is
+	 *  satisfied, or <code>null</code> if the addition of any node may
+	 * @see Agenda
+	 */
+	public List<Formula> getTriggers(Formula formula) {
+		return(null);
+	}
+}
\ No newline at end of file
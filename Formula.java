@@ -1,503 +1,1490 @@
-/*
-** COMP 4905 - Honours Project
-** School of Computer Science, Carleton University
-** Fall 2006
-**
-** Proof Trees for Propositional Logic with Extensions to First Order Logic
-**
-** John Howat
-** jhowat@primus.ca
-*/
-
-import java.util.Stack;
-import java.util.StringTokenizer;
-import java.util.Vector;
-
-/**
- * The <code>Formula</code> class represents formulae in first-order logic
- * Since propositional logic is a subset of first-order logic, this class also
- * represents formulae in propositional logic.
- * 
- * @author John Howat
- */
-public class Formula {
-	/**
-	 * The symbol used for negation.
-	 */
-	public static final String NEGATION = "~";
-
-	/**
-	 * The symbol used for disjunction.
-	 */
-	public static final String DISJUNCTION = "+";
-
-	/**
-	 * The symbol used for conjunction.
-	 */
-	public static final String CONJUNCTION = "&";
-
-	/**
-	 * The symbol used for if-then.
-	 */
-	public static final String IFTHEN = ">";
-
-	/**
-	 * The symbol used for if and only if (iff).
-	 */
-	public static final String IFF = ":";
-
-	/**
-	 * The symbol used for universal quantification.
-	 */
-	public static final String FORALL = "@";
-
-	/**
-	 * The symbol used for existential quantification.
-	 */
-	public static final String EXISTS = "#";
-
-	/**
-	 * The symbol used for an opening bracket.
-	 */
-	public static final String OPEN_BRACKET = "(";
-
-	/**
-	 * The symbol used for a closing bracket.
-	 */
-	public static final String CLOSE_BRACKET = ")";
-
-	/**
-	 * A string consisting of all possible brackets. Used for testing to see
-	 * if something is itself a bracket.
-	 */
-	private static final String BRACKETS = OPEN_BRACKET + CLOSE_BRACKET;
-
-	/**
-	 * A string consisting of all possible operators. Used for testing to see
-	 * if something is itself an operator.
-	 */
-	private static final String OPERATORS = NEGATION + DISJUNCTION + CONJUNCTION + IFTHEN + IFF;
-
-	/**
-	 * A string consisting of all possible quantifiers. Used for testing to see
-	 * if something is itself a quantifier.
-	 */
-	private static final String QUANTIFIERS = FORALL + EXISTS;
-
-	/**
-	 * A string consisting of all possible predicates. Used for testing to see
-	 * if something is itself a predicate.
-	 */
-	private static final String PREDICATES = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-
-	/**
-	 * A string consisting of all possible delimiters. Used for testing to see
-	 * if something is itself a delimiter.
-	 */
-	private static final String DELIMITERS = OPERATORS + QUANTIFIERS + OPEN_BRACKET + CLOSE_BRACKET + PREDICATES;
-
-	/**
-	 * A representation of this formula, stored in prefix (Polish) notation.
-	 */
-	private String[] formula;
-
-	/**
-	 * Creates a new <code>Formula</code> from the given representation. The
-	 * representation will be stored in prefix (Polish) notation, but can be
-	 * specified to the constructor in either infix or prefix notation.
-	 *
-	 * @param formula a formula of first-order logic, in either infix or
-	 * 	prefix notation.
-	 * @throws IllegalArgumentException if the formula is not well-formed
-	 */
-	public Formula(String formula) {
-		String[] tokens = tokenize(formula);
-		if(!isValidPrefixNotation(tokens)) {
-			tokens = toPrefixNotation(tokens);
-			if(!isValidPrefixNotation(tokens)) {
-				throw new IllegalArgumentException(toString(tokens) + " is not a well formed formula");
-			} else {
-				this.formula = tokens;
-			}
-		} else {
-			this.formula = tokens;
-		}
-	}
-
-	/**
-	 * Creates a new <code>Formula</code> from the given array of formula
-	 * tokens. The tokens can be specified in either infix or prefix notation,
-	 * but will be converted into prefix notation upon construction.
-	 * 
-	 * @param tokens an array of formula tokens
-	 * @throws IllegalArgumentException if the formula is not well-formed
-	 */
-	private Formula(String[] tokens) {
-		if(!isValidPrefixNotation(tokens)) {
-			tokens = toPrefixNotation(tokens);
-			if(!isValidPrefixNotation(tokens)) {
-				throw new IllegalArgumentException(toString(tokens) + " is not a well formed formula");
-			} else {
-				this.formula = tokens;
-			}
-		} else {
-			this.formula = tokens;
-		}
-	}
-
-	/**
-	 * Returns the negation of this formula.
-	 *
-	 * @return the negation of this formula
-	 */
-	public Formula getNegation() {
-		String[] tokens = new String[this.formula.length + 1];
-		tokens[0] = NEGATION;
-		for(int i = 0; i < this.formula.length; i++) {
-			tokens[i + 1] = this.formula[i];
-		}
-		return(new Formula(tokens));
-	}
-
-	/**
-	 * Returns the major operator of this formula. The major operator is defined
-	 * as the operator which would be evaluated last; it separates the largest
-	 * possible subformulae.
-	 *
-	 * @return the major operator of this formula
-	 * @see #OPERATORS
-	 */
-	public String getMajorOperator() {
-		return((this.formula.length > 1) ? this.formula[0] : "");
-	}
-
-	/**
-	 * Returns a <code>Vector</code> containing the major operand(s) of this
-	 * formula. The major operand(s) are the operand(s) of the major operator of
-	 * the formula.
-	 *
-	 * @return a <code>Vector</code> containing the major operand(s) of this
-	 *  formula
-	 * @see #getMajorOperator()
-	 */
-	public Vector<Formula> getMajorOperands() {
-		Vector<Formula> result = new Vector<Formula>();
-		if(this.getMajorOperator().equals(NEGATION) || this.getMajorOperator().startsWith(EXISTS) || this.getMajorOperator().startsWith(FORALL)) {
-			result.add(new Formula(getRange(this.formula, 1, this.formula.length)));
-		} else if(this.formula.length == 1) {
-			result.add(this);
-		} else {
-			String[] subformula = getRange(this.formula, 1, this.formula.length);
-			int needed = 1;
-			int i;
-			for(i = 0; i < subformula.length; i++) {
-				String token = subformula[i];
-				if((DISJUNCTION + CONJUNCTION + IFTHEN + IFF).contains(token)) {
-					needed += 1;
-				} else if(token.equals(NEGATION) || token.startsWith(EXISTS) || token.startsWith(FORALL)) {
-					needed += 0;
-				} else {
-					needed -= 1;
-				}
-				if(needed == 0) {
-					break;
-				}
-			}
-			result.add(new Formula(getRange(subformula, 0, i + 1)));
-			result.add(new Formula(getRange(subformula, i + 1, subformula.length)));
-		}
-		return(result);
-	}
-
-	/**
-	 * Returns a <code>Vector</code> containing all of the non-bound terms in
-	 * this formula.
-	 *
-	 * @return a <code>Vector</code> containing all of the non-bound terms in
-	 * this formula
-	 */
-	public Vector<String> getConstants() {
-		return(getConstants(this, new Vector<String>()));
-	}
-
-	/**
-	 * Returns a <code>Vector</code> containing all of the non-bound variables
-	 * within the given subformula. Duplicates will not be included.
-	 *
-	 * @param f a <code>Formula</code> to be examined for non-bounded variables
-	 * @param bound a <code>Vector</code> containing terms that have been
-	 *  previously bound (i.e., in a previous call, higher in the recursion
-	 *  tree.)
-	 * @return a <code>Vector</code> containing all of the non-bound terms in
-	 *  the given subformula
-	 * @see #getConstants()
-	 */
-	private static Vector<String> getConstants(Formula f, Vector<String> bound) {
-		Vector<String> result = new Vector<String>();
-		String operator = f.getMajorOperator();
-		if(operator.equals("")) {
-			for(int i = 0; i < f.formula[0].length(); i++) {
-				String current = f.formula[0].substring(i, i + 1);
-				if(current.toLowerCase().equals(current) && !bound.contains(current)) {
-					result.add(current);
-				}
-			}
-		} else {
-			if(operator.startsWith(FORALL) || operator.startsWith(EXISTS)) {
-				bound.add(operator.substring(1));
-			}
-			if(!operator.equals("")) {
-				for(int i = 0; i < f.getMajorOperands().size(); i++) {
-					Vector<String> others = getConstants(f.getMajorOperands().get(i), new Vector<String>(bound));
-					for(int j = 0; j < others.size(); j++) {
-						if(!result.contains(others.get(j))) {
-							result.add(others.get(j));
-						}
-					}
-				}
-			}
-		}
-		return(result);
-	}
-
-	/**
-	 * Returns a copy of this formula with all occurences of the given variable
-	 * replaced by the given constant. It is the responsibility of the caller
-	 * to ensure that the substitution is semantically legal, i.e., that only
-	 * bound occurences are replaced.
-	 *
-	 * @param variable the variable to be replaced
-	 * @param constant the constant to substitute in the variable's place
-	 * @return a new <code>Formula</code> with this substitution
-	 */
-	public Formula substitute(String variable, String constant) {
-		return(new Formula(toString(this.formula).replaceAll(variable, constant)));
-	}
-
-	/**
-	 * Answers whether or not this formula is an atom. A formula is an atom if
-	 * it is either a literal or a negation of a literal.
-	 *
-	 * @return <code>true</code> if the specified Formula is an atom;
-	 *  <code>false</code> otherwise
-	 */
-	public boolean isAtom() {
-		return(
-			toString(this.formula).matches("^[" + NEGATION + PREDICATES + PREDICATES.toLowerCase() + "]+$")
-		);
-	}
-
-	/**
-	 * Answers whether or not a given formula contradicts this one. Only atoms
-	 * may contradict one another.
-	 *
-	 * @param formula a formula to be tested for contradiction with this one
-	 * @return <code>true</code> if the specified formula contradicts this one
-	 * 	provided that they are both atoms; <code>false</code> otherwise
-	 * @see #isAtom()
-	 */
-	public boolean contradicts(Formula formula) { 
-		return(
-			(this.isAtom() && formula.isAtom()) && 
-			(formula.getNegation().equals(this) ||
-			this.getNegation().equals(formula))
-		);
-	}
-
-	/**
-	 * Answers whether or not this <code>Formula</code> is equal to another
-	 * object. A necessary condition for an object being equal to a <code>
-	 * Formula</code> is that the object is an instance of <code>Formula</code>.
-	 * Beyond this, two formulae are equal if and only if their string
-	 * representations are equal.
-	 *
-	 * @param obj the <code>Object</code> to be tested for equality
-	 * @return <code>true</code> if the specified object is equal to this
-	 *	<code>Formula</code>; <code>false</code> otherwise
-	 */
-	public boolean equals(Object obj) {
-		if(!(obj instanceof Formula)) {
-			return(false);
-		} else {
-			Formula other = (Formula)obj;
-			for(int i = 0; i < Math.min(other.formula.length, this.formula.length); i++) {
-				if(!other.formula[i].equals(this.formula[i])) {	
-					return(false);
-				}
-			}
-			return(other.formula.length == this.formula.length);
-		}
-	}
-
-	/**
-	 * Returns a string representation of this formula in prefix notation.
-	 *
-	 * @return a String representation of this formula
-	 */
-	public String toString() {
-		return(toString(this.formula));
-	}
-
-	/**
-	 * Tokenizes the given string representation of a formula into an array of
-	 * tokens. The notation (i.e., infix of prefix) is the same as the original
-	 * string.
-	 *
-	 * @param formula a string representation of the formula to be tokenized
-	 * @return an array of tokens representing the given formula
-	 */
-	private String[] tokenize(String formula) {
-		formula = formula.replaceAll("\\s+", "");
-		Vector<String> result = new Vector<String>();
-		StringTokenizer tokens = new StringTokenizer(formula, DELIMITERS, true);
-		while(tokens.hasMoreTokens()) {
-			String token = tokens.nextToken().trim();
-			if(OPERATORS.contains(token) || BRACKETS.contains(token)) {
-				result.add(token);
-			} else if(tokens.hasMoreTokens()) {
-				String next = tokens.nextToken().trim();
-				if(DELIMITERS.contains(next.substring(0, 1))) {
-					result.add(token);
-					result.add(next);
-				} else {
-					result.add(token + next);
-				}
-			} else {
-				result.add(token);
-			}
-		}
-		return(result.toArray(new String[0]));
-	}
-
-	/**
-	 * Converts the given array of tokens representing a formula into prefix
-	 * (Polish) notation. No attempt is made to verify the result is
-	 * well-formed, although this is guaranteed if the input was well-formed.
-	 *
-	 * @param formula an array of tokens representing a formula in infix
-	 *  notation
-	 * @return an array of tokens representating the given formula in prefix
-	 *  notation
-	 * @see http://www.calstatela.edu/faculty/jguo/teaching/cs490/InfixPrefixAndPostfix.ppt
-	 */
-	private static String[] toPrefixNotation(String[] formula) {
-		Stack<String> stack = new Stack<String>();
-		Vector<String> result = new Vector<String>();
-
-		for(int i = formula.length - 1; i >= 0; i--) {
-			String token = formula[i];
-			if(OPERATORS.contains(token.substring(0, 1))) {
-				boolean repeat = true;
-				while(repeat) {
-					repeat = false;
-					if(
-						stack.empty() ||
-						stack.peek().equals(CLOSE_BRACKET) ||
-						(operatorPriority(stack.peek()) >= operatorPriority(token))
-					) {
-						stack.push(token);
-					} else {
-						result.add(0, stack.pop());
-						repeat = true;
-					}
-				}
-			} else if(token.equals(OPEN_BRACKET)) {
-				String top;
-				while(!(top = stack.pop()).equals(CLOSE_BRACKET)) {
-					result.add(0, top);
-				}
-			} else if(token.equals(CLOSE_BRACKET)) {
-				stack.push(token);
-			} else {
-				result.add(0, token);
-			}
-		}
-		while(!stack.empty()) {
-			result.add(0, stack.pop());
-		}
-
-		return(result.toArray(new String[0]));
-	}
-
-	/**
-	 * Answers whether or not the given string representation of a formula in
-	 * prefix notation is valid, i.e., well-formed.
-	 *
-	 * @param formula a formula in prefix notation to be checked for validity
-	 * @return <code>true</code> if the given formula is well-formed;
-	 * 	<code>false</code> otherwise
-	 */
-	private static boolean isValidPrefixNotation(String[] formula) {
-		String current = toString(formula);
-		String original = "";
-		while(!original.equals(current)) {
-			original = current;
-			current = current.replaceAll("[" + FORALL + EXISTS + "][^" + DELIMITERS + "]", "");
-			current = current.replaceAll("[A-Z][a-z]*", "t");
-			current = current.replaceAll("[" + CONJUNCTION + DISJUNCTION + IFTHEN + IFF + "][^" + OPERATORS + "]{2}","t");
-			current = current.replaceAll(NEGATION + "[^" + OPERATORS + "]", "t");
-			
-		}
-		return((current.length() == 1) && (!DELIMITERS.contains(current)));
-	}
-
-	/**
-	 * Gives the priority of the operator. The smaller the number, the more
-	 * tightly the operator binds. The intent of this method is to compare the
-	 * priority of two operators; the integer returned is meaningless on its
-	 * own.
-	 *
-	 * @param operator the operator whose priority is to be determined
-	 * @return an integer representing the priority of the given operator
-	 * @see #OPERATORS
-	 */
-	private static int operatorPriority(String operator) {
-		if(operator.equals(NEGATION)) {
-			return(1);
-		} else if(operator.startsWith(FORALL)) {
-			return(2);
-		} else if(operator.startsWith(EXISTS)) {
-			return(2);
-		}  else if(operator.equals(CONJUNCTION)) {
-			return(3);
-		} else if(operator.equals(DISJUNCTION)) {
-			return(4);
-		} else if(operator.equals(IFTHEN)) {
-			return(5);
-		} else if(operator.equals(IFF)) {
-			return(6);
-		} else {
-			return(0);
-		}
-	}
-
-	/**
-	 * Converts an array of tokens into a string representation.
-	 *
-	 * @param s the array of tokens to be converted to a string representation
-	 * @return a string representation of the given array of tokens
-	 */
-	private static String toString(String[] s) {
-		String result = "";
-		for(int i = 0; i < s.length; i++) {
-			result += s[i];
-		}
-		return(result);
-	}
-
-	/**
-	 * Returns a subrange of the given array of tokens.
-	 *
-	 * @param original the array of tokens to be examined
-	 * @param begin the index to start copying from, inclusive
-	 * @param end the index to copy until, exclusive
-	 * @return the specified subrange of the given array
-	 */
-	private static String[] getRange(String[] original, int begin, int end) {
-		String[] result = new String[end - begin];
-		for(int i = begin; i < end; i++) {
-			result[i - begin] = original[i];
-		}
-		return(result);
-	}
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The <code>Formula</code> class represents formulae in first-order logic
+ * Since propositional logic is a subset of first-order logic, this class also
+ * represents formulae in propositional logic.
+ * <p>
+ * Formulae are immutable and hash-consed: every formula is stored as a tree of
+ * its major operator and major operands, and structurally identical formulae
+ * are represented by a single shared instance. New formulae are obtained via
+ * <code>parse</code> or the other static factories rather than a constructor.
+ * The table of shared instances holds them only weakly, so a formula no longer
+ * used by any proof is reclaimed like any other object.
+ * 
+ * @author John Howat
+ */
+public class Formula {
+	/**
+	 * The symbol used for negation.
+	 */
+	public static final String NEGATION = "~";
+
+	/**
+	 * The symbol used for disjunction.
+	 */
+	public static final String DISJUNCTION = "+";
+
+	/**
+	 * The symbol used for conjunction.
+	 */
+	public static final String CONJUNCTION = "&";
+
+	/**
+	 * The symbol used for if-then.
+	 */
+	public static final String IFTHEN = ">";
+
+	/**
+	 * The symbol used for if and only if (iff).
+	 */
+	public static final String IFF = ":";
+
+	/**
+	 * The symbol used for universal quantification.
+	 */
+	public static final String FORALL = "@";
+
+	/**
+	 * The symbol used for existential quantification.
+	 */
+	public static final String EXISTS = "#";
+
+	/**
+	 * The symbol used for an opening bracket.
+	 */
+	public static final String OPEN_BRACKET = "(";
+
+	/**
+	 * The symbol used for a closing bracket.
+	 */
+	public static final String CLOSE_BRACKET = ")";
+
+	/**
+	 * A string consisting of all possible operators. Used for testing to see
+	 * if something is itself an operator.
+	 */
+	private static final String OPERATORS = NEGATION + DISJUNCTION + CONJUNCTION + IFTHEN + IFF;
+
+	/**
+	 * A string consisting of all possible quantifiers. Used for testing to see
+	 * if something is itself a quantifier.
+	 */
+	private static final String QUANTIFIERS = FORALL + EXISTS;
+
+	/**
+	 * A string consisting of all possible predicates. Used for testing to see
+	 * if something is itself a predicate.
+	 */
+	private static final String PREDICATES = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+	/**
+	 * A string consisting of all possible delimiters. Used for testing to see
+	 * if something is itself a delimiter.
+	 */
+	private static final String DELIMITERS = OPERATORS + QUANTIFIERS + OPEN_BRACKET + CLOSE_BRACKET + PREDICATES;
+
+	/**
+	 * A term which is never read from a string representation, since it is a
+	 * delimiter. It stands in for a constant when formulae about different
+	 * constants are compared.
+	 *
+	 * @see #substitute(String, String)
+	 */
+	public static final String PLACEHOLDER = OPEN_BRACKET;
+
+	/**
+	 * The table of all formulae in use, keyed by their structure. Every
+	 * formula is built through this table, so that structurally identical
+	 * formulae (and subformulae) are represented by a single shared instance.
+	 * Each formula is kept as a weak reference, which serves as both key and
+	 * value, and its entry is removed once it has been reclaimed.
+	 */
+	private static final ConcurrentHashMap<Object, Reference> TABLE = new ConcurrentHashMap<Object, Reference>();
+
+	/**
+	 * The queue to which the references in the table are added once their
+	 * formulae have been reclaimed.
+	 */
+	private static final ReferenceQueue<Formula> RECLAIMED = new ReferenceQueue<Formula>();
+
+	/**
+	 * The queue to which the references to instances of quantified formulae
+	 * are added once the instances have been reclaimed.
+	 *
+	 * @see #instantiate(String)
+	 */
+	private static final ReferenceQueue<Formula> RECLAIMED_INSTANCES = new ReferenceQueue<Formula>();
+
+	/**
+	 * An empty array of operands, shared by all atoms.
+	 */
+	private static final Formula[] NO_OPERANDS = new Formula[0];
+
+	/**
+	 * The major operator of this formula, or the empty string if this formula
+	 * is an atom. Quantifiers are stored together with the variable they
+	 * bind.
+	 */
+	private final String operator;
+
+	/**
+	 * The symbol of this formula if it is an atom (i.e., a predicate followed
+	 * by its terms), or <code>null</code> otherwise.
+	 */
+	private final String symbol;
+
+	/**
+	 * The major operand(s) of this formula. Atoms have no operands.
+	 */
+	private final Formula[] operands;
+
+	/**
+	 * The hash code of this formula, computed once from its structure.
+	 */
+	private final int hash;
+
+	/**
+	 * Whether or not this formula is an atom in the sense of <code>isAtom()
+	 * </code>.
+	 *
+	 * @see #isAtom()
+	 */
+	private final boolean atom;
+
+	/**
+	 * The major operand(s) of this formula as a <code>List</code>, or <code>
+	 * null</code> if not yet computed.
+	 *
+	 * @see #getMajorOperands()
+	 */
+	private List<Formula> majorOperands;
+
+	/**
+	 * The branches produced by the sentential tree rule for this formula, or
+	 * <code>null</code> if not yet computed.
+	 *
+	 * @see #getRuleBranches()
+	 */
+	private List<List<Formula>> ruleBranches;
+
+	/**
+	 * The negation of this formula, or <code>null</code> if the negation has
+	 * not yet been created.
+	 *
+	 * @see #getNegation()
+	 */
+	private volatile Formula negation;
+
+	/**
+	 * If this formula is quantified, the template used to instantiate it, or
+	 * <code>null</code> if not yet compiled.
+	 *
+	 * @see #instantiate(String)
+	 */
+	private volatile Template template;
+
+	/**
+	 * If this formula is quantified, the instances of it already built, by
+	 * constant, or <code>null</code> if there are none yet. Instances are held
+	 * weakly, so that they do not outlive their use, and the entry of an
+	 * instance is removed once it has been reclaimed.
+	 *
+	 * @see #instantiate(String)
+	 */
+	private volatile ConcurrentHashMap<String, Instance> instances;
+
+	/**
+	 * Creates a new <code>Formula</code> with the given major operator and
+	 * operands. Formulae must only be created through <code>intern</code>, so
+	 * that each structure is represented exactly once.
+	 *
+	 * @param operator the major operator, or the empty string for an atom
+	 * @param symbol the symbol of an atom, or <code>null</code>
+	 * @param operands the major operand(s) of the formula
+	 * @see #intern(String, String, Formula[])
+	 */
+	private Formula(String operator, String symbol, Formula[] operands) {
+		this.operator = operator;
+		this.symbol = symbol;
+		this.operands = operands;
+		this.hash = hash(operator, symbol, operands);
+		this.atom = (symbol != null) || (operator.equals(NEGATION) && operands[0].atom);
+	}
+
+	/**
+	 * Returns the hash code of the formula with the given structure.
+	 *
+	 * @param operator the major operator, or the empty string for an atom
+	 * @param symbol the symbol of an atom, or <code>null</code>
+	 * @param operands the major operand(s) of the formula
+	 * @return the hash code of the formula
+	 */
+	private static int hash(String operator, String symbol, Formula[] operands) {
+		int h = (symbol != null) ? symbol.hashCode() : operator.hashCode();
+		for(int i = 0; i < operands.length; i++) {
+			h = 31 * h + operands[i].hash;
+		}
+		return(h);
+	}
+
+	/**
+	 * Returns the unique <code>Formula</code> with the given structure,
+	 * creating it if it does not yet exist. Whenever a negation is returned,
+	 * it is linked to its operand, so that a formula always knows its
+	 * negation once the negation exists.
+	 *
+	 * @param operator the major operator, or the empty string for an atom
+	 * @param symbol the symbol of an atom, or <code>null</code>
+	 * @param operands the major operand(s) of the formula
+	 * @return the shared formula with the given structure
+	 */
+	private static Formula intern(String operator, String symbol, Formula[] operands) {
+		expunge();
+		Key key = new Key(operator, symbol, operands, hash(operator, symbol, operands));
+		Formula result = null;
+		while(result == null) {
+			Reference existing = TABLE.get(key);
+			result = (existing == null) ? null : existing.get();
+			if(result == null) {
+				Formula candidate = new Formula(operator, symbol, operands);
+				Reference reference = new Reference(candidate);
+				existing = TABLE.putIfAbsent(reference, reference);
+				result = (existing == null) ? candidate : existing.get();
+			}
+		}
+		if(operator.equals(NEGATION)) {
+			operands[0].negation = result;
+		}
+		return(result);
+	}
+
+	/**
+	 * Removes from the table the entries of the formulae which have been
+	 * reclaimed since the last call.
+	 */
+	private static void expunge() {
+		Reference reference;
+		while((reference = (Reference)RECLAIMED.poll()) != null) {
+			TABLE.remove(reference, reference);
+		}
+	}
+
+	/**
+	 * Returns the <code>Formula</code> represented by the given string. The
+	 * string can be specified in either infix or prefix notation (or a mixture
+	 * of both), and is parsed in a single pass.
+	 *
+	 * @param formula a formula of first-order logic, in either infix or
+	 * 	prefix notation.
+	 * @return the formula represented by the given string
+	 * @throws IllegalArgumentException if the formula is not well-formed
+	 */
+	public static Formula parse(String formula) {
+		return(new Parser(formula).parse());
+	}
+
+	/**
+	 * Returns the atom with the given symbol, i.e., a predicate followed by
+	 * its terms.
+	 *
+	 * @param symbol the symbol of the atom
+	 * @return the atom with the given symbol
+	 */
+	public static Formula atom(String symbol) {
+		return(intern("", symbol, NO_OPERANDS));
+	}
+
+	/**
+	 * Returns the formula joining the two given formulae with the given binary
+	 * operator.
+	 *
+	 * @param operator one of the binary operators
+	 * @param left the left operand
+	 * @param right the right operand
+	 * @return the formula joining the two operands with the operator
+	 */
+	public static Formula compound(String operator, Formula left, Formula right) {
+		return(intern(operator, null, new Formula[] { left, right }));
+	}
+
+	/**
+	 * Returns the formula binding the given variable in the given formula with
+	 * the given quantifier.
+	 *
+	 * @param quantifier either <code>FORALL</code> or <code>EXISTS</code>
+	 * @param variable the variable to be bound
+	 * @param body the formula in which the variable is bound
+	 * @return the quantified formula
+	 */
+	public static Formula quantify(String quantifier, String variable, Formula body) {
+		return(intern(quantifier + variable, null, new Formula[] { body }));
+	}
+
+	/**
+	 * Returns the negation of this formula. The negation is created at most
+	 * once and is linked to this formula thereafter.
+	 *
+	 * @return the negation of this formula
+	 */
+	public Formula getNegation() {
+		Formula result = this.negation;
+		if(result == null) {
+			result = intern(NEGATION, null, new Formula[] { this });
+		}
+		return(result);
+	}
+
+	/**
+	 * Returns the major operator of this formula. The major operator is defined
+	 * as the operator which would be evaluated last; it separates the largest
+	 * possible subformulae.
+	 *
+	 * @return the major operator of this formula
+	 * @see #OPERATORS
+	 */
+	public String getMajorOperator() {
+		return(this.operator);
+	}
+
+	/**
+	 * Returns a <code>List</code> containing the major operand(s) of this
+	 * formula. The major operand(s) are the operand(s) of the major operator of
+	 * the formula. The list is computed once and shared between calls, so it
+	 * cannot be modified.
+	 *
+	 * @return a <code>List</code> containing the major operand(s) of this
+	 *  formula
+	 * @see #getMajorOperator()
+	 */
+	public List<Formula> getMajorOperands() {
+		if(this.majorOperands == null) {
+			this.majorOperands = branch((this.operands.length == 0) ? new Formula[] { this } : this.operands);
+		}
+		return(this.majorOperands);
+	}
+
+	/**
+	 * Returns the branches produced by applying the sentential tree rule for
+	 * this formula. Each branch is a <code>List</code> of the formulae to be
+	 * added on it; a rule that does not split the tree produces a single
+	 * branch. Atoms, negated atoms and quantified formulae (whose rules depend
+	 * on the tree) produce no branches. The result is computed once and
+	 * shared between calls, so it cannot be modified.
+	 *
+	 * @return a <code>List</code> of the branches produced by the sentential
+	 *  tree rule for this formula
+	 */
+	public List<List<Formula>> getRuleBranches() {
+		if(this.ruleBranches == null) {
+			this.ruleBranches = computeRuleBranches();
+		}
+		return(this.ruleBranches);
+	}
+
+	/**
+	 * Computes the branches produced by applying the sentential tree rule for
+	 * this formula.
+	 *
+	 * @return a <code>List</code> of the branches produced by the sentential
+	 *  tree rule for this formula
+	 * @see #getRuleBranches()
+	 */
+	private List<List<Formula>> computeRuleBranches() {
+		List<List<Formula>> result = new ArrayList<List<Formula>>(2);
+		if(this.operator.equals(DISJUNCTION)) {
+			result.add(branch(this.operands[0]));
+			result.add(branch(this.operands[1]));
+		} else if(this.operator.equals(CONJUNCTION)) {
+			result.add(branch(this.operands[0], this.operands[1]));
+		} else if(this.operator.equals(IFTHEN)) {
+			result.add(branch(this.operands[0].getNegation()));
+			result.add(branch(this.operands[1]));
+		} else if(this.operator.equals(IFF)) {
+			result.add(branch(this.operands[0], this.operands[1]));
+			result.add(branch(this.operands[0].getNegation(), this.operands[1].getNegation()));
+		} else if(this.operator.equals(NEGATION)) {
+			String nextOperator = this.operands[0].operator;
+			Formula[] nextOperands = this.operands[0].operands;
+			if(nextOperator.equals(DISJUNCTION)) {
+				result.add(branch(nextOperands[0].getNegation(), nextOperands[1].getNegation()));
+			} else if(nextOperator.equals(CONJUNCTION)) {
+				result.add(branch(nextOperands[0].getNegation()));
+				result.add(branch(nextOperands[1].getNegation()));
+			} else if(nextOperator.equals(IFTHEN)) {
+				result.add(branch(nextOperands[0], nextOperands[1].getNegation()));
+			} else if(nextOperator.equals(IFF)) {
+				result.add(branch(nextOperands[0], nextOperands[1].getNegation()));
+				result.add(branch(nextOperands[0].getNegation(), nextOperands[1]));
+			} else if(nextOperator.startsWith(FORALL)) {
+				result.add(branch(quantify(EXISTS, nextOperator.substring(1), nextOperands[0].getNegation())));
+			} else if(nextOperator.startsWith(EXISTS)) {
+				result.add(branch(quantify(FORALL, nextOperator.substring(1), nextOperands[0].getNegation())));
+			} else if(nextOperator.equals(NEGATION)) {
+				result.add(branch(nextOperands[0]));
+			}
+		}
+		return(Collections.unmodifiableList(result));
+	}
+
+	/**
+	 * Returns an unmodifiable <code>List</code> of the given formulae.
+	 *
+	 * @param formulae the formulae to be listed
+	 * @return an unmodifiable <code>List</code> of the given formulae
+	 */
+	private static List<Formula> branch(Formula... formulae) {
+		return(Collections.unmodifiableList(Arrays.asList(formulae)));
+	}
+
+	/**
+	 * Returns a <code>Vector</code> containing all of the non-bound terms in
+	 * this formula.
+	 *
+	 * @return a <code>Vector</code> containing all of the non-bound terms in
+	 * this formula
+	 */
+	public Vector<String> getConstants() {
+		Vector<String> result = new Vector<String>();
+		Vector<String> bound = new Vector<String>();
+		Vector<Formula> pending = new Vector<Formula>();
+		pending.add(this);
+		while(pending.size() > 0) {
+			Formula f = pending.remove(pending.size() - 1);
+			if(f == null) {
+				bound.remove(bound.size() - 1);
+			} else if(f.symbol != null) {
+				for(int i = 1; i < f.symbol.length(); i = termEnd(f.symbol, i)) {
+					String current = f.symbol.substring(i, termEnd(f.symbol, i));
+					if(!bound.contains(current) && !result.contains(current)) {
+						result.add(current);
+					}
+				}
+			} else {
+				if(f.operator.startsWith(FORALL) || f.operator.startsWith(EXISTS)) {
+					bound.add(f.operator.substring(1));
+					pending.add(null);
+				}
+				pushOperands(f, pending);
+			}
+		}
+		return(result);
+	}
+
+	/**
+	 * Returns a <code>Vector</code> containing all of the variables bound by
+	 * the quantifiers in this formula.
+	 *
+	 * @return a <code>Vector</code> containing all of the bound variables in
+	 *  this formula
+	 */
+	public Vector<String> getVariables() {
+		Vector<String> result = new Vector<String>();
+		Vector<Formula> pending = new Vector<Formula>();
+		pending.add(this);
+		while(pending.size() > 0) {
+			Formula f = pending.remove(pending.size() - 1);
+			if(f.symbol == null) {
+				if(f.operator.startsWith(FORALL) || f.operator.startsWith(EXISTS)) {
+					String variable = f.operator.substring(1);
+					if(!result.contains(variable)) {
+						result.add(variable);
+					}
+				}
+				pushOperands(f, pending);
+			}
+		}
+		return(result);
+	}
+
+	/**
+	 * Returns the position just after the term starting at the given position
+	 * of the given atom symbol. A term is a single character other than a
+	 * digit, followed by any number of digits, so that <code>a</code> and
+	 * <code>a12</code> are both terms.
+	 *
+	 * @param symbol the symbol of an atom
+	 * @param start the position at which a term starts
+	 * @return the position just after the term
+	 */
+	private static int termEnd(String symbol, int start) {
+		int end = start + 1;
+		while(end < symbol.length() && Character.isDigit(symbol.charAt(end))) {
+			end++;
+		}
+		return(end);
+	}
+
+	/**
+	 * Returns the constant with the given index in the sequence from which
+	 * new constants are drawn. The sequence begins with the letters <code>a
+	 * </code> to <code>z</code>, and continues with the same letters followed
+	 * by a number (<code>a1</code> to <code>z1</code>, <code>a2</code>, and so
+	 * on), so it never runs out.
+	 *
+	 * @param index the index of the constant, starting at zero
+	 * @return the constant with the given index
+	 */
+	public static String getFreshConstant(int index) {
+		char letter = (char)('a' + (index % 26));
+		return((index < 26) ? String.valueOf(letter) : letter + String.valueOf(index / 26));
+	}
+
+	/**
+	 * Returns a canonical form of this formula, which is the same for any two
+	 * formulae that differ only in the names of their bound variables. Each
+	 * bound variable is replaced by the depth of the quantifier binding it.
+	 * The canonical form is not itself a well formed formula.
+	 *
+	 * @return a canonical form of this formula
+	 */
+	public String getCanonicalForm() {
+		StringBuilder result = new StringBuilder();
+		Vector<String> bound = new Vector<String>();
+		Vector<Formula> pending = new Vector<Formula>();
+		pending.add(this);
+		while(pending.size() > 0) {
+			Formula f = pending.remove(pending.size() - 1);
+			if(f == null) {
+				bound.remove(bound.size() - 1);
+			} else if(f.symbol != null) {
+				result.append(f.symbol.charAt(0));
+				for(int i = 1; i < f.symbol.length(); i = termEnd(f.symbol, i)) {
+					String current = f.symbol.substring(i, termEnd(f.symbol, i));
+					int depth = bound.lastIndexOf(current);
+					if(depth < 0) {
+						result.append(current);
+					} else {
+						result.append('{').append(depth).append('}');
+					}
+				}
+			} else {
+				if(f.operator.startsWith(FORALL) || f.operator.startsWith(EXISTS)) {
+					result.append(f.operator.charAt(0));
+					bound.add(f.operator.substring(1));
+					pending.add(null);
+				} else {
+					result.append(f.operator);
+				}
+				pushOperands(f, pending);
+			}
+		}
+		return(result.toString());
+	}
+
+	/**
+	 * Returns the instance of this quantified formula for the given constant,
+	 * i.e., the body of the formula with each free occurrence of the bound
+	 * variable replaced by the constant. The positions of the variable in the
+	 * body are found once, when the formula is first instantiated, and are
+	 * kept in a template; only the subformulae containing the variable are
+	 * rebuilt, and the rest are shared with the body. Instances are also
+	 * remembered, so instantiating the formula with the same constant again
+	 * takes constant time. The entries of instances which have since been
+	 * reclaimed, in any formula, are removed first.
+	 *
+	 * @param constant the constant to substitute for the bound variable
+	 * @return the instance of this formula for the given constant
+	 * @throws IllegalStateException if this formula is not quantified
+	 * @see #substitute(String, String)
+	 */
+	public Formula instantiate(String constant) {
+		if(!this.operator.startsWith(FORALL) && !this.operator.startsWith(EXISTS)) {
+			throw new IllegalStateException(this + " is not quantified");
+		}
+		Instance.expunge();
+		ConcurrentHashMap<String, Instance> instances = this.instances;
+		if(instances == null) {
+			instances = new ConcurrentHashMap<String, Instance>();
+			this.instances = instances;
+		}
+		Instance instance = instances.get(constant);
+		Formula result = (instance == null) ? null : instance.get();
+		if(result == null) {
+			Template template = this.template;
+			if(template == null) {
+				template = Template.compile(this.operands[0], this.operator.substring(1));
+				this.template = template;
+			}
+			result = (template == null) ? this.operands[0] : template.instantiate(constant);
+			instances.put(constant, new Instance(result, instances, constant));
+		}
+		return(result);
+	}
+
+	/**
+	 * Returns a copy of this formula with all free occurences of the given
+	 * variable replaced by the given constant. Subformulae in which the
+	 * variable does not occur free are shared with this formula. The
+	 * substitution is made through a template, which is not kept.
+	 *
+	 * @param variable the variable to be replaced
+	 * @param constant the constant to substitute in the variable's place
+	 * @return a new <code>Formula</code> with this substitution
+	 * @see #instantiate(String)
+	 */
+	public Formula substitute(String variable, String constant) {
+		Template template = Template.compile(this, variable);
+		return((template == null) ? this : template.instantiate(constant));
+	}
+
+	/**
+	 * Answers whether or not every predicate in this formula is applied to at
+	 * most one term, i.e., whether or not the formula belongs to the monadic
+	 * fragment.
+	 *
+	 * @return <code>true</code> if no atom in this formula has more than one
+	 *  term; <code>false</code> otherwise
+	 */
+	public boolean isMonadic() {
+		Vector<Formula> pending = new Vector<Formula>();
+		pending.add(this);
+		while(pending.size() > 0) {
+			Formula f = pending.remove(pending.size() - 1);
+			if(f.symbol != null) {
+				if(f.symbol.length() > 1 && termEnd(f.symbol, 1) < f.symbol.length()) {
+					return(false);
+				}
+			} else {
+				pushOperands(f, pending);
+			}
+		}
+		return(true);
+	}
+
+	/**
+	 * Answers whether or not this formula is an atom. A formula is an atom if
+	 * it is either a literal or a negation of a literal.
+	 *
+	 * @return <code>true</code> if the specified Formula is an atom;
+	 *  <code>false</code> otherwise
+	 */
+	public boolean isAtom() {
+		return(this.atom);
+	}
+
+	/**
+	 * Answers whether or not a given formula contradicts this one. Only atoms
+	 * may contradict one another. Since a formula is linked to its negation
+	 * whenever the negation exists, this requires no new formulae.
+	 *
+	 * @param formula a formula to be tested for contradiction with this one
+	 * @return <code>true</code> if the specified formula contradicts this one
+	 * 	provided that they are both atoms; <code>false</code> otherwise
+	 * @see #isAtom()
+	 */
+	public boolean contradicts(Formula formula) { 
+		return(
+			(this.atom && formula.atom) && 
+			(formula.negation == this || this.negation == formula)
+		);
+	}
+
+	/**
+	 * Answers whether or not this formula contradicts any formula in the
+	 * given set of atoms. Since formulae are shared, an atom together with its
+	 * negations identifies a predicate, its terms and a sign, so it is enough
+	 * to look up the (at most two) formulae which this one contradicts.
+	 *
+	 * @param atoms a set of atoms
+	 * @return <code>true</code> if this formula contradicts some atom in the
+	 *  given set; <code>false</code> otherwise
+	 * @see #contradicts(Formula)
+	 */
+	public boolean contradictsAnyOf(PersistentSet<Formula> atoms) {
+		if(!this.atom) {
+			return(false);
+		}
+		Formula negation = this.negation;
+		if(negation != null && atoms.contains(negation)) {
+			return(true);
+		}
+		return(this.operator.equals(NEGATION) && atoms.contains(this.operands[0]));
+	}
+
+	/**
+	 * Answers whether or not this <code>Formula</code> is equal to another
+	 * object. Since every structure is represented by exactly one instance,
+	 * two formulae are equal if and only if they are the same object.
+	 *
+	 * @param obj the <code>Object</code> to be tested for equality
+	 * @return <code>true</code> if the specified object is equal to this
+	 *	<code>Formula</code>; <code>false</code> otherwise
+	 */
+	public boolean equals(Object obj) {
+		return(this == obj);
+	}
+
+	/**
+	 * Returns a hash code for this formula. The hash code depends only on the
+	 * structure of the formula and is computed once on construction.
+	 *
+	 * @return a hash code for this formula
+	 */
+	public int hashCode() {
+		return(this.hash);
+	}
+
+	/**
+	 * Returns a string representation of this formula in prefix notation.
+	 *
+	 * @return a String representation of this formula
+	 */
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		try {
+			this.appendTo(result);
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return(result.toString());
+	}
+
+	/**
+	 * Appends a string representation of this formula in prefix notation to
+	 * the given <code>Appendable</code>. The subformulae still to be written
+	 * are kept on a stack rather than in recursive calls, so that deeply
+	 * nested formulae do not exhaust the call stack.
+	 *
+	 * @param out the <code>Appendable</code> to append to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void appendTo(Appendable out) throws IOException {
+		Vector<Formula> pending = new Vector<Formula>();
+		pending.add(this);
+		while(pending.size() > 0) {
+			Formula f = pending.remove(pending.size() - 1);
+			if(f.symbol != null) {
+				out.append(f.symbol);
+			} else {
+				out.append(f.operator);
+				pushOperands(f, pending);
+			}
+		}
+	}
+
+	/**
+	 * Pushes the operands of the given formula onto the given stack, last
+	 * operand first, so that they are popped from left to right.
+	 *
+	 * @param f a formula which is not an atom
+	 * @param pending the stack of subformulae still to be visited
+	 */
+	private static void pushOperands(Formula f, Vector<Formula> pending) {
+		for(int i = f.operands.length - 1; i >= 0; i--) {
+			pending.add(f.operands[i]);
+		}
+	}
+
+	/**
+	 * The <code>Template</code> class records where a variable occurs free in
+	 * a formula, so that the formula can be instantiated without searching
+	 * it. A template mirrors the part of the formula containing the variable:
+	 * for an atom, it records the positions of the variable in the symbol;
+	 * otherwise it holds a template for each operand containing the variable.
+	 * Templates are compiled and instantiated with explicit stacks rather
+	 * than recursive calls, so that deeply nested formulae do not exhaust the
+	 * call stack.
+	 */
+	private static class Template {
+		/**
+		 * The formula this template instantiates.
+		 */
+		private final Formula formula;
+
+		/**
+		 * If the formula is an atom, the positions of the variable in its
+		 * symbol.
+		 */
+		private final int[] positions;
+
+		/**
+		 * If the formula is an atom, the length of the variable.
+		 */
+		private final int length;
+
+		/**
+		 * If the formula is not an atom, the template for each operand, or
+		 * <code>null</code> for operands in which the variable does not occur
+		 * free.
+		 */
+		private final Template[] operands;
+
+		/**
+		 * Creates a new <code>Template</code>.
+		 *
+		 * @param formula the formula the template instantiates
+		 * @param positions the positions of the variable in an atom
+		 * @param length the length of the variable
+		 * @param operands the templates of the operands of a compound formula
+		 */
+		private Template(Formula formula, int[] positions, int length, Template[] operands) {
+			this.formula = formula;
+			this.positions = positions;
+			this.length = length;
+			this.operands = operands;
+		}
+
+		/**
+		 * Returns the template instantiating the given variable in the given
+		 * formula, or <code>null</code> if the variable does not occur free.
+		 *
+		 * @param formula the formula to be instantiated
+		 * @param variable the variable to be replaced
+		 * @return the template, or <code>null</code>
+		 */
+		public static Template compile(Formula formula, String variable) {
+			Vector<Formula> pending = new Vector<Formula>();
+			Vector<Formula> open = new Vector<Formula>();
+			Vector<Template> compiled = new Vector<Template>();
+			pending.add(formula);
+			while(pending.size() > 0) {
+				Formula f = pending.remove(pending.size() - 1);
+				if(f == null) {
+					f = open.remove(open.size() - 1);
+					int first = compiled.size() - f.operands.length;
+					Template[] operands = new Template[f.operands.length];
+					boolean free = false;
+					for(int i = 0; i < operands.length; i++) {
+						operands[i] = compiled.get(first + i);
+						free |= (operands[i] != null);
+					}
+					compiled.setSize(first);
+					compiled.add(free ? new Template(f, null, 0, operands) : null);
+				} else if(f.symbol != null) {
+					int count = 0;
+					int[] positions = new int[f.symbol.length()];
+					for(int i = 1; i < f.symbol.length(); i = termEnd(f.symbol, i)) {
+						if(termEnd(f.symbol, i) - i == variable.length() && f.symbol.startsWith(variable, i)) {
+							positions[count++] = i;
+						}
+					}
+					compiled.add((count == 0) ? null : new Template(f, Arrays.copyOf(positions, count), variable.length(), null));
+				} else if(f.operator.equals(FORALL + variable) || f.operator.equals(EXISTS + variable)) {
+					compiled.add(null);
+				} else {
+					open.add(f);
+					pending.add(null);
+					pushOperands(f, pending);
+				}
+			}
+			return(compiled.get(0));
+		}
+
+		/**
+		 * Returns the formula with the variable replaced by the given
+		 * constant.
+		 *
+		 * @param constant the constant to substitute for the variable
+		 * @return the instantiated formula
+		 */
+		public Formula instantiate(String constant) {
+			Vector<Template> pending = new Vector<Template>();
+			Vector<Template> open = new Vector<Template>();
+			Vector<Formula> instantiated = new Vector<Formula>();
+			pending.add(this);
+			while(pending.size() > 0) {
+				Template t = pending.remove(pending.size() - 1);
+				if(t == null) {
+					t = open.remove(open.size() - 1);
+					Formula[] operands = t.formula.operands.clone();
+					for(int i = operands.length - 1; i >= 0; i--) {
+						if(t.operands[i] != null) {
+							operands[i] = instantiated.remove(instantiated.size() - 1);
+						}
+					}
+					instantiated.add(intern(t.formula.operator, null, operands));
+				} else if(t.positions != null) {
+					String symbol = t.formula.symbol;
+					StringBuilder result = new StringBuilder(symbol.length() + (constant.length() - t.length) * t.positions.length);
+					int last = 0;
+					for(int i = 0; i < t.positions.length; i++) {
+						result.append(symbol, last, t.positions[i]).append(constant);
+						last = t.positions[i] + t.length;
+					}
+					result.append(symbol, last, symbol.length());
+					instantiated.add(atom(result.toString()));
+				} else {
+					open.add(t);
+					pending.add(null);
+					for(int i = t.operands.length - 1; i >= 0; i--) {
+						if(t.operands[i] != null) {
+							pending.add(t.operands[i]);
+						}
+					}
+				}
+			}
+			return(instantiated.get(0));
+		}
+	}
+
+	/**
+	 * Gives the priority of the operator. The smaller the number, the more
+	 * tightly the operator binds. The intent of this method is to compare the
+	 * priority of two operators; the integer returned is meaningless on its
+	 * own.
+	 *
+	 * @param operator the operator whose priority is to be determined
+	 * @return an integer representing the priority of the given operator
+	 * @see #OPERATORS
+	 */
+	private static int operatorPriority(String operator) {
+		if(operator.equals(NEGATION)) {
+			return(1);
+		} else if(operator.startsWith(FORALL)) {
+			return(2);
+		} else if(operator.startsWith(EXISTS)) {
+			return(2);
+		}  else if(operator.equals(CONJUNCTION)) {
+			return(3);
+		} else if(operator.equals(DISJUNCTION)) {
+			return(4);
+		} else if(operator.equals(IFTHEN)) {
+			return(5);
+		} else if(operator.equals(IFF)) {
+			return(6);
+		} else {
+			return(0);
+		}
+	}
+
+	/**
+	 * The <code>Parser</code> class reads a formula from its string
+	 * representation in a single left-to-right pass. Infix formulae are parsed
+	 * by operator precedence over the priorities given by <code>
+	 * operatorPriority</code>, with binary operators of equal priority
+	 * grouping to the left. A binary operator found where an operand is
+	 * expected begins a formula in prefix notation, so formulae in prefix
+	 * notation are accepted by the same grammar. Whitespace is ignored.
+	 * <p>
+	 * The operators and operands still waiting to be combined are kept on an
+	 * explicit stack of frames rather than on the call stack, so formulae may
+	 * be nested (by negations, quantifiers, prefix operators or brackets) as
+	 * deeply as memory allows.
+	 *
+	 * @see #operatorPriority(String)
+	 */
+	private static class Parser {
+		/**
+		 * The string representation being parsed.
+		 */
+		private final String text;
+
+		/**
+		 * The position of the next character to be read.
+		 */
+		private int position;
+
+		/**
+		 * The frames still waiting for operands, innermost last.
+		 */
+		private final Vector<Frame> frames;
+
+		/**
+		 * Creates a new <code>Parser</code> for the given string
+		 * representation of a formula.
+		 *
+		 * @param text the string representation to be parsed
+		 */
+		public Parser(String text) {
+			this.text = text;
+			this.position = 0;
+			this.frames = new Vector<Frame>();
+		}
+
+		/**
+		 * Parses the whole string representation. Where an operand is
+		 * expected, prefix operators and opening brackets push new frames
+		 * until an atom is read. The atom is then passed to the frames above
+		 * it, each of which combines it with its operator once it has all of
+		 * its operands, until it reaches a frame for an infix formula (the
+		 * whole string, or a bracketed formula). There, the next character is
+		 * either a binary operator, after which another operand is expected,
+		 * or the end of the infix formula.
+		 *
+		 * @return the formula represented by the string
+		 * @throws IllegalArgumentException if the formula is not well-formed
+		 */
+		public Formula parse() {
+			this.frames.add(new Frame(null, false));
+			while(true) {
+				Frame frame = this.complete(this.parseOperand());
+				while(frame.isInfix() && !isBinaryOperator(peek())) {
+					if(!frame.isBracketed()) {
+						if(peek() != 0) {
+							throw error("unexpected '" + peek() + "'");
+						}
+						return(frame.getResult());
+					} else if(peek() != CLOSE_BRACKET.charAt(0)) {
+						throw error("expected '" + CLOSE_BRACKET + "'");
+					}
+					next();
+					this.frames.remove(this.frames.size() - 1);
+					frame = this.complete(frame.getResult());
+				}
+				if(frame.isInfix()) {
+					frame.addOperator(String.valueOf(next()));
+				}
+			}
+		}
+
+		/**
+		 * Passes a finished operand to the innermost frame, and the formula of
+		 * each frame it completes to the frame below it in turn.
+		 *
+		 * @param operand the finished operand
+		 * @return the innermost frame still open afterwards
+		 */
+		private Frame complete(Formula operand) {
+			Frame frame = this.frames.lastElement();
+			while(frame.add(operand)) {
+				this.frames.remove(this.frames.size() - 1);
+				operand = frame.getResult();
+				frame = this.frames.lastElement();
+			}
+			return(frame);
+		}
+
+		/**
+		 * Reads up to the next atom, pushing a frame for each negation,
+		 * quantifier, prefix binary operator or opening bracket before it, and
+		 * returns the atom.
+		 *
+		 * @return the atom read
+		 */
+		private Formula parseOperand() {
+			while(true) {
+				char c = peek();
+				if(c == 0) {
+					throw error("expected a formula");
+				} else if(NEGATION.indexOf(c) >= 0) {
+					next();
+					this.frames.add(new Frame(NEGATION, false));
+				} else if(QUANTIFIERS.indexOf(c) >= 0) {
+					next();
+					String variable = readTerms();
+					if(variable.length() == 0 || Character.isDigit(variable.charAt(0)) || termEnd(variable, 0) != variable.length()) {
+						throw error("expected a variable");
+					}
+					this.frames.add(new Frame(c + variable, false));
+				} else if(isBinaryOperator(c)) {
+					next();
+					this.frames.add(new Frame(String.valueOf(c), false));
+				} else if(OPEN_BRACKET.indexOf(c) >= 0) {
+					next();
+					this.frames.add(new Frame(null, true));
+				} else if(PREDICATES.indexOf(c) >= 0) {
+					next();
+					String terms = readTerms();
+					if(terms.length() > 0 && Character.isDigit(terms.charAt(0))) {
+						throw error("expected a term");
+					}
+					return(atom(c + terms));
+				} else {
+					throw error("unexpected '" + c + "'");
+				}
+			}
+		}
+
+		/**
+		 * Reads the terms following a predicate or quantifier, i.e., all
+		 * characters up to the next delimiter. Each term is a single character
+		 * other than a digit, followed by any number of digits.
+		 *
+		 * @return the terms read, possibly empty
+		 */
+		private String readTerms() {
+			StringBuilder result = new StringBuilder();
+			while(peek() != 0 && DELIMITERS.indexOf(peek()) < 0) {
+				result.append(next());
+			}
+			return(result.toString());
+		}
+
+		/**
+		 * Answers whether or not the given character is a binary operator.
+		 *
+		 * @param c the character to be tested
+		 * @return <code>true</code> if the character is a binary operator;
+		 *  <code>false</code> otherwise
+		 */
+		private static boolean isBinaryOperator(char c) {
+			return(c != 0 && OPERATORS.indexOf(c) >= 0 && NEGATION.indexOf(c) < 0);
+		}
+
+		/**
+		 * Returns the next character that is not whitespace without consuming
+		 * it, or <code>0</code> at the end of the string.
+		 *
+		 * @return the next character, or <code>0</code> at the end
+		 */
+		private char peek() {
+			while(this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position))) {
+				this.position++;
+			}
+			return((this.position < this.text.length()) ? this.text.charAt(this.position) : 0);
+		}
+
+		/**
+		 * Consumes and returns the next character that is not whitespace.
+		 *
+		 * @return the next character
+		 */
+		private char next() {
+			char c = peek();
+			this.position++;
+			return(c);
+		}
+
+		/**
+		 * Returns an exception describing a syntax error at the current
+		 * position.
+		 *
+		 * @param message a description of the error
+		 * @return an exception describing the error
+		 */
+		private IllegalArgumentException error(String message) {
+			return(new IllegalArgumentException(this.text + " is not a well formed formula: " + message + " at position " + (this.position + 1)));
+		}
+	}
+
+	/**
+	 * The <code>Frame</code> class represents a formula whose parsing has
+	 * begun but which is still waiting for operands. A frame is either for a
+	 * prefix operator (a negation, a quantifier or a binary operator in prefix
+	 * notation), which is complete once it has all of its operands, or for an
+	 * infix formula, which combines its operands and binary operators by
+	 * priority.
+	 *
+	 * @see Parser
+	 */
+	private static class Frame {
+		/**
+		 * The prefix operator of this frame, or <code>null</code> for an infix
+		 * formula.
+		 */
+		private final String operator;
+
+		/**
+		 * Whether or not this frame is for a bracketed infix formula.
+		 */
+		private final boolean bracketed;
+
+		/**
+		 * The operands received so far. For an infix formula, these are the
+		 * operands not yet combined, with the binary operators between them
+		 * kept in <code>operators</code>.
+		 */
+		private final Vector<Formula> operands;
+
+		/**
+		 * For an infix formula, the binary operators not yet applied, in
+		 * order of increasing priority number (i.e., loosest first).
+		 */
+		private final Vector<String> operators;
+
+		/**
+		 * Creates a new <code>Frame</code>.
+		 *
+		 * @param operator the prefix operator, or <code>null</code> for an
+		 *  infix formula
+		 * @param bracketed whether or not an infix formula is bracketed
+		 */
+		public Frame(String operator, boolean bracketed) {
+			this.operator = operator;
+			this.bracketed = bracketed;
+			this.operands = new Vector<Formula>(2);
+			this.operators = new Vector<String>();
+		}
+
+		/**
+		 * Answers whether or not this frame is for an infix formula.
+		 *
+		 * @return <code>true</code> if this frame is for an infix formula;
+		 *  <code>false</code> otherwise
+		 */
+		public boolean isInfix() {
+			return(this.operator == null);
+		}
+
+		/**
+		 * Answers whether or not this frame is for a bracketed infix formula.
+		 *
+		 * @return <code>true</code> if this frame is for a bracketed infix
+		 *  formula; <code>false</code> otherwise
+		 */
+		public boolean isBracketed() {
+			return(this.bracketed);
+		}
+
+		/**
+		 * Adds the next operand to this frame.
+		 *
+		 * @param operand the operand to be added
+		 * @return <code>true</code> if this frame is for a prefix operator
+		 *  which now has all of its operands; <code>false</code> otherwise
+		 */
+		public boolean add(Formula operand) {
+			this.operands.add(operand);
+			if(this.operator == null) {
+				return(false);
+			}
+			return(this.operands.size() == ((this.operator.equals(NEGATION) || QUANTIFIERS.indexOf(this.operator.charAt(0)) >= 0) ? 1 : 2));
+		}
+
+		/**
+		 * Adds the next binary operator to this infix frame. The operators
+		 * already waiting which bind at least as tightly are applied first, so
+		 * that operators of equal priority group to the left.
+		 *
+		 * @param operator the binary operator to be added
+		 */
+		public void addOperator(String operator) {
+			while(this.operators.size() > 0 && operatorPriority(this.operators.lastElement()) <= operatorPriority(operator)) {
+				this.reduce();
+			}
+			this.operators.add(operator);
+		}
+
+		/**
+		 * Applies the last binary operator waiting to the last two operands.
+		 */
+		private void reduce() {
+			Formula right = this.operands.remove(this.operands.size() - 1);
+			Formula left = this.operands.remove(this.operands.size() - 1);
+			this.operands.add(compound(this.operators.remove(this.operators.size() - 1), left, right));
+		}
+
+		/**
+		 * Returns the formula of this frame, which must have all of its
+		 * operands.
+		 *
+		 * @return the formula of this frame
+		 */
+		public Formula getResult() {
+			if(this.operator == null) {
+				while(this.operators.size() > 0) {
+					this.reduce();
+				}
+				return(this.operands.get(0));
+			} else if(this.operator.equals(NEGATION)) {
+				return(this.operands.get(0).getNegation());
+			} else if(this.operands.size() == 1) {
+				return(quantify(this.operator.substring(0, 1), this.operator.substring(1), this.operands.get(0)));
+			}
+			return(compound(this.operator, this.operands.get(0), this.operands.get(1)));
+		}
+	}
+
+	/**
+	 * Answers whether or not this formula has the given structure, i.e., the
+	 * given major operator and symbol and the very same operands. Since
+	 * operands are themselves shared, this is equivalent to structural
+	 * equality.
+	 *
+	 * @param operator the major operator, or the empty string for an atom
+	 * @param symbol the symbol of an atom, or <code>null</code>
+	 * @param operands the major operand(s)
+	 * @return <code>true</code> if this formula has the given structure;
+	 *  <code>false</code> otherwise
+	 */
+	private boolean hasStructure(String operator, String symbol, Formula[] operands) {
+		if(!this.operator.equals(operator) || this.operands.length != operands.length) {
+			return(false);
+		} else if((this.symbol == null) ? (symbol != null) : !this.symbol.equals(symbol)) {
+			return(false);
+		}
+		for(int i = 0; i < operands.length; i++) {
+			if(this.operands[i] != operands[i]) {
+				return(false);
+			}
+		}
+		return(true);
+	}
+
+	/**
+	 * The <code>Key</code> class describes the structure of a formula, in
+	 * order to look it up in the table of all formulae. A key is equal to the
+	 * reference to a formula with the same structure.
+	 */
+	private static class Key {
+		/**
+		 * The major operator, or the empty string for an atom.
+		 */
+		private final String operator;
+
+		/**
+		 * The symbol of an atom, or <code>null</code>.
+		 */
+		private final String symbol;
+
+		/**
+		 * The major operand(s).
+		 */
+		private final Formula[] operands;
+
+		/**
+		 * The hash code of the formula.
+		 */
+		private final int hash;
+
+		/**
+		 * Creates a new <code>Key</code> for the formula with the given
+		 * structure.
+		 *
+		 * @param operator the major operator, or the empty string for an atom
+		 * @param symbol the symbol of an atom, or <code>null</code>
+		 * @param operands the major operand(s) of the formula
+		 * @param hash the hash code of the formula
+		 */
+		public Key(String operator, String symbol, Formula[] operands, int hash) {
+			this.operator = operator;
+			this.symbol = symbol;
+			this.operands = operands;
+			this.hash = hash;
+		}
+
+		/**
+		 * Answers whether or not this key is equal to another object.
+		 *
+		 * @param obj the <code>Object</code> to be tested for equality
+		 * @return <code>true</code> if the specified object is a reference to
+		 *  a formula with this structure; <code>false</code> otherwise
+		 */
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Reference)) {
+				return(false);
+			}
+			Formula formula = ((Reference)obj).get();
+			return(formula != null && formula.hasStructure(this.operator, this.symbol, this.operands));
+		}
+
+		/**
+		 * Returns the hash code of the formula.
+		 *
+		 * @return the hash code of the formula
+		 */
+		public int hashCode() {
+			return(this.hash);
+		}
+	}
+
+	/**
+	 * The <code>Reference</code> class is a weak reference to a formula in the
+	 * table of all formulae. It serves as the key of the formula in the table,
+	 * and so remembers the hash code of the formula, which is needed to
+	 * remove the entry once the formula has been reclaimed. Two references
+	 * are equal if they are the same reference or refer to formulae with the
+	 * same structure.
+	 */
+	private static class Reference extends WeakReference<Formula> {
+		/**
+		 * The hash code of the formula.
+		 */
+		private final int hash;
+
+		/**
+		 * Creates a new <code>Reference</code> to the given formula.
+		 *
+		 * @param formula the formula to be referred to
+		 */
+		public Reference(Formula formula) {
+			super(formula, RECLAIMED);
+			this.hash = formula.hash;
+		}
+
+		/**
+		 * Answers whether or not this reference is equal to another object.
+		 *
+		 * @param obj the <code>Object</code> to be tested for equality
+		 * @return <code>true</code> if the specified object is this reference,
+		 *  or a key or reference for a formula with the same structure as the
+		 *  one referred to; <code>false</code> otherwise
+		 */
+		public boolean equals(Object obj) {
+			if(obj == this) {
+				return(true);
+			} else if(obj instanceof Key) {
+				return(obj.equals(this));
+			} else if(!(obj instanceof Reference)) {
+				return(false);
+			}
+			Formula formula = this.get();
+			Formula other = ((Reference)obj).get();
+			return(formula != null && other != null && formula.hasStructure(other.operator, other.symbol, other.operands));
+		}
+
+		/**
+		 * Returns the hash code of the formula referred to.
+		 *
+		 * @return the hash code of the formula
+		 */
+		public int hashCode() {
+			return(this.hash);
+		}
+	}
+
+	/**
+	 * The <code>Instance</code> class is a weak reference to an instance of a
+	 * quantified formula. It remembers the map of instances holding it and
+	 * the constant under which it is held, so that its entry can be removed
+	 * once the instance has been reclaimed.
+	 *
+	 * @see Formula#instantiate(String)
+	 */
+	private static class Instance extends WeakReference<Formula> {
+		/**
+		 * The map of instances holding this reference.
+		 */
+		private final ConcurrentHashMap<String, Instance> instances;
+
+		/**
+		 * The constant under which this reference is held.
+		 */
+		private final String constant;
+
+		/**
+		 * Creates a new <code>Instance</code> referring to the given formula,
+		 * held in the given map under the given constant.
+		 *
+		 * @param formula the instance to be referred to
+		 * @param instances the map of instances holding the reference
+		 * @param constant the constant under which the reference is held
+		 */
+		public Instance(Formula formula, ConcurrentHashMap<String, Instance> instances, String constant) {
+			super(formula, RECLAIMED_INSTANCES);
+			this.instances = instances;
+			this.constant = constant;
+		}
+
+		/**
+		 * Removes from their maps the entries of the instances which have
+		 * been reclaimed since the last call.
+		 */
+		public static void expunge() {
+			Instance instance;
+			while((instance = (Instance)RECLAIMED_INSTANCES.poll()) != null) {
+				instance.instances.remove(instance.constant, instance);
+			}
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,349 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The <code>PersistentSet</code> class represents an immutable set. Adding an
+ * element returns a new set and leaves the original unchanged, but the two
+ * sets share all of their structure except for the path to the new element.
+ * This makes it cheap for every node of a proof tree to hold a set describing
+ * its whole branch: a child's set is its parent's set plus the child's own
+ * elements.
+ * <p>
+ * The set is stored as a hash array mapped trie. Each level of the trie
+ * consumes five bits of an element's hash code, so lookups and additions take
+ * time proportional to the depth of the trie, which is logarithmic in the size
+ * of the set. Elements whose hash codes are identical are kept together in a
+ * list at the bottom of the trie.
+ * <p>
+ * Elements are iterated in an order determined by their hash codes, which is
+ * the same for any two sets holding the same elements.
+ */
+class PersistentSet<E> implements Iterable<E> {
+	/**
+	 * The number of hash code bits consumed by each level of the trie.
+	 */
+	private static final int BITS = 5;
+
+	/**
+	 * The empty set. Since the set is immutable, a single instance serves
+	 * for every element type.
+	 */
+	private static final PersistentSet<Object> EMPTY = new PersistentSet<Object>(new Node(0, new Object[0]), 0);
+
+	/**
+	 * The root of the trie holding the elements of this set.
+	 */
+	private final Node root;
+
+	/**
+	 * The number of elements in this set.
+	 */
+	private final int size;
+
+	/**
+	 * Creates a new <code>PersistentSet</code> with the given trie.
+	 *
+	 * @param root the root of the trie holding the elements of the set
+	 * @param size the number of elements in the trie
+	 */
+	private PersistentSet(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the empty set.
+	 *
+	 * @return the empty set
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentSet<E> empty() {
+		return((PersistentSet<E>)EMPTY);
+	}
+
+	/**
+	 * Answers whether or not this set contains the given element.
+	 *
+	 * @param element the element to be tested for
+	 * @return <code>true</code> if this set contains the given element; <code>
+	 *  false</code> otherwise
+	 */
+	public boolean contains(Object element) {
+		return(this.root.contains(element, element.hashCode(), 0));
+	}
+
+	/**
+	 * Returns a set containing the elements of this set and the given
+	 * element. If this set already contains the element, this set itself is
+	 * returned.
+	 *
+	 * @param element the element to be added
+	 * @return a set containing the elements of this set and the given element
+	 */
+	public PersistentSet<E> plus(E element) {
+		Node result = this.root.plus(element, element.hashCode(), 0);
+		return((result == this.root) ? this : new PersistentSet<E>(result, this.size + 1));
+	}
+
+	/**
+	 * Returns an <code>Iterator</code> over the elements of this set.
+	 *
+	 * @return an <code>Iterator</code> over the elements of this set
+	 * @see java.util.Iterator
+	 */
+	public Iterator<E> iterator() {
+		return(new Elements<E>(this.root));
+	}
+
+	/**
+	 * Returns the number of elements in this set.
+	 *
+	 * @return the number of elements in this set
+	 */
+	public int size() {
+		return(this.size);
+	}
+
+	/**
+	 * The <code>Node</code> class represents a node of the trie. A node holds
+	 * a slot for each distinct value of the hash code bits consumed at its
+	 * level, and a bitmap recording which of these values are present. Each
+	 * slot holds either an element or a node for the next level. Below the
+	 * last level, a node is simply a list of elements with identical hash
+	 * codes and the bitmap is unused.
+	 */
+	private static class Node {
+		/**
+		 * A bitmap with a bit set for each hash code value present in this
+		 * node.
+		 */
+		private final int bitmap;
+
+		/**
+		 * The slots of this node, in increasing order of hash code value.
+		 */
+		private final Object[] slots;
+
+		/**
+		 * Creates a new <code>Node</code> with the given bitmap and slots.
+		 *
+		 * @param bitmap a bitmap with a bit set for each slot
+		 * @param slots the slots of the node
+		 */
+		public Node(int bitmap, Object[] slots) {
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+
+		/**
+		 * Answers whether or not the trie below this node contains the given
+		 * element.
+		 *
+		 * @param element the element to be tested for
+		 * @param hash the hash code of the element
+		 * @param shift the number of hash code bits consumed above this node
+		 * @return <code>true</code> if the element is found; <code>false
+		 *  </code> otherwise
+		 */
+		public boolean contains(Object element, int hash, int shift) {
+			if(shift >= Integer.SIZE) {
+				for(int i = 0; i < this.slots.length; i++) {
+					if(this.slots[i].equals(element)) {
+						return(true);
+					}
+				}
+				return(false);
+			}
+			int bit = 1 << ((hash >>> shift) & ((1 << BITS) - 1));
+			if((this.bitmap & bit) == 0) {
+				return(false);
+			}
+			Object slot = this.slots[Integer.bitCount(this.bitmap & (bit - 1))];
+			if(slot instanceof Node) {
+				return(((Node)slot).contains(element, hash, shift + BITS));
+			} else {
+				return(slot.equals(element));
+			}
+		}
+
+		/**
+		 * Returns a node holding the trie below this node together with the
+		 * given element. If the element is already present, this node itself
+		 * is returned.
+		 *
+		 * @param element the element to be added
+		 * @param hash the hash code of the element
+		 * @param shift the number of hash code bits consumed above this node
+		 * @return a node holding the trie below this node and the element
+		 */
+		public Node plus(Object element, int hash, int shift) {
+			if(shift >= Integer.SIZE) {
+				if(this.contains(element, hash, shift)) {
+					return(this);
+				}
+				Object[] slots = new Object[this.slots.length + 1];
+				System.arraycopy(this.slots, 0, slots, 0, this.slots.length);
+				slots[this.slots.length] = element;
+				return(new Node(0, slots));
+			}
+			int bit = 1 << ((hash >>> shift) & ((1 << BITS) - 1));
+			int index = Integer.bitCount(this.bitmap & (bit - 1));
+			if((this.bitmap & bit) == 0) {
+				Object[] slots = new Object[this.slots.length + 1];
+				System.arraycopy(this.slots, 0, slots, 0, index);
+				slots[index] = element;
+				System.arraycopy(this.slots, index, slots, index + 1, this.slots.length - index);
+				return(new Node(this.bitmap | bit, slots));
+			}
+			Object slot = this.slots[index];
+			Object replacement;
+			if(slot instanceof Node) {
+				replacement = ((Node)slot).plus(element, hash, shift + BITS);
+			} else if(slot.equals(element)) {
+				replacement = slot;
+			} else {
+				replacement = pair(slot, slot.hashCode(), element, hash, shift + BITS);
+			}
+			if(replacement == slot) {
+				return(this);
+			}
+			Object[] slots = this.slots.clone();
+			slots[index] = replacement;
+			return(new Node(this.bitmap, slots));
+		}
+
+		/**
+		 * Returns a node holding exactly the two given (distinct) elements.
+		 *
+		 * @param first the first element
+		 * @param firstHash the hash code of the first element
+		 * @param second the second element
+		 * @param secondHash the hash code of the second element
+		 * @param shift the number of hash code bits consumed above the node
+		 * @return a node holding the two elements
+		 */
+		private static Node pair(Object first, int firstHash, Object second, int secondHash, int shift) {
+			if(shift >= Integer.SIZE) {
+				return(new Node(0, new Object[] { first, second }));
+			}
+			int firstIndex = (firstHash >>> shift) & ((1 << BITS) - 1);
+			int secondIndex = (secondHash >>> shift) & ((1 << BITS) - 1);
+			if(firstIndex == secondIndex) {
+				return(new Node(1 << firstIndex, new Object[] { pair(first, firstHash, second, secondHash, shift + BITS) }));
+			} else if(firstIndex < secondIndex) {
+				return(new Node((1 << firstIndex) | (1 << secondIndex), new Object[] { first, second }));
+			} else {
+				return(new Node((1 << firstIndex) | (1 << secondIndex), new Object[] { second, first }));
+			}
+		}
+	}
+
+	/**
+	 * The <code>Elements</code> class iterates over the elements of a trie
+	 * depth-first, keeping the path from the root to the current slot.
+	 */
+	private static class Elements<E> implements Iterator<E> {
+		/**
+		 * The nodes on the path from the root to the current slot.
+		 */
+		private final Node[] path = new Node[(Integer.SIZE / BITS) + 2];
+
+		/**
+		 * For each node on the path, the index of the next slot to visit.
+		 */
+		private final int[] index = new int[(Integer.SIZE / BITS) + 2];
+
+		/**
+		 * The depth of the deepest node on the path, or <code>-1</code> once
+		 * the iteration is complete.
+		 */
+		private int depth;
+
+		/**
+		 * The next element to be returned, or <code>null</code> if there are
+		 * no more elements.
+		 */
+		private Object next;
+
+		/**
+		 * Creates a new <code>Elements</code> iterator over the trie with the
+		 * given root.
+		 *
+		 * @param root the root of the trie
+		 */
+		public Elements(Node root) {
+			this.path[0] = root;
+			this.depth = 0;
+			this.advance();
+		}
+
+		/**
+		 * Answers whether or not there are more elements.
+		 *
+		 * @return <code>true</code> if there are more elements; <code>false
+		 *  </code> otherwise
+		 */
+		public boolean hasNext() {
+			return(this.next != null);
+		}
+
+		/**
+		 * Returns the next element.
+		 *
+		 * @return the next element
+		 * @throws NoSuchElementException if there are no more elements
+		 */
+		@SuppressWarnings("unchecked")
+		public E next() {
+			if(this.next == null) {
+				throw new NoSuchElementException();
+			}
+			E result = (E)this.next;
+			this.advance();
+			return(result);
+		}
+
+		/**
+		 * Unsupported, since sets are immutable.
+		 *
+		 * @throws UnsupportedOperationException always
+		 */
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * Moves to the next element of the trie, if any.
+		 */
+		private void advance() {
+			while(this.depth >= 0) {
+				Node node = this.path[this.depth];
+				if(this.index[this.depth] < node.slots.length) {
+					Object slot = node.slots[this.index[this.depth]++];
+					if(slot instanceof Node) {
+						this.depth++;
+						this.path[this.depth] = (Node)slot;
+						this.index[this.depth] = 0;
+					} else {
+						this.next = slot;
+						return;
+					}
+				} else {
+					this.depth--;
+				}
+			}
+			this.next = null;
+		}
+	}
+}
\ No newline at end of file
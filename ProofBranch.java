@@ -0,0 +1,167 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.util.Collection;
+import java.util.Vector;
+
+/**
+ * The <code>ProofBranch</code> class represents a single open branch of a
+ * proof tree, viewed as a proof tree in its own right. The branch shares its
+ * nodes with the tree, but its only leaf is the last node of the branch, so
+ * rules applied through the branch add nodes below that leaf only.
+ * <p>
+ * The branches split from one another share a single <code>Agenda</code>.
+ * When a branch splits, each new branch records a mark for the state of the
+ * agenda at the split, and the agenda is returned to that mark before the
+ * branch is expanded. The branches must therefore be expanded depth first,
+ * the last one split being the first one resumed, so that only the changes
+ * made along the branch being expanded are kept, rather than a copy of the
+ * agenda for every branch waiting to be expanded.
+ *
+ * @see Agenda
+ */
+class ProofBranch extends ProofTree {
+	/**
+	 * The last node of this branch.
+	 */
+	private ProofTreeNode leaf;
+
+	/**
+	 * The rule applications still possible on this branch.
+	 */
+	private Agenda agenda;
+
+	/**
+	 * The mark for the state of the agenda when this branch was split from
+	 * another, or -1 if it was not.
+	 */
+	private int mark;
+
+	/**
+	 * Creates a new <code>ProofBranch</code> consisting of the root of the
+	 * given tree, which must not yet have any children.
+	 *
+	 * @param tree the tree whose root begins the branch
+	 * @param preferences the preferences used to order rule applications
+	 */
+	public ProofBranch(ProofTree tree, Vector<Condition> preferences) {
+		super(tree.getRoot());
+		this.setBlocking(tree.isBlocking());
+		this.leaf = tree.getRoot();
+		this.agenda = new Agenda(this, preferences);
+		this.agenda.add(this.leaf);
+		this.mark = -1;
+	}
+
+	/**
+	 * Creates a new <code>ProofBranch</code> consisting of the given branch
+	 * extended by the given child of its leaf. The new branch shares the
+	 * agenda of the given branch, and must be resumed before it is expanded.
+	 *
+	 * @param branch the branch to be extended
+	 * @param leaf a child of the leaf of the given branch
+	 */
+	private ProofBranch(ProofBranch branch, ProofTreeNode leaf) {
+		super(branch.getRoot());
+		this.setBlocking(branch.isBlocking());
+		this.leaf = leaf;
+		this.agenda = branch.agenda;
+		this.mark = this.agenda.mark();
+	}
+
+	/**
+	 * Prepares this branch to be expanded. If it was split from another
+	 * branch, the shared agenda is returned to its state at the split, and
+	 * the leaf of this branch is added to it. Changes to the agenda are no
+	 * longer recorded if no other branch remains to be resumed.
+	 *
+	 * @param last <code>true</code> if no other branch remains to be
+	 *  resumed; <code>false</code> otherwise
+	 */
+	public void resume(boolean last) {
+		if(this.mark >= 0) {
+			this.agenda.undo(this.mark);
+			this.agenda.setTree(this);
+			this.agenda.add(this.leaf);
+		}
+		if(last) {
+			this.agenda.forget();
+		}
+	}
+
+	/**
+	 * Returns the last node of this branch.
+	 *
+	 * @return the last node of this branch
+	 */
+	public ProofTreeNode getLeaf() {
+		return(this.leaf);
+	}
+
+	/**
+	 * Returns the agenda of rule applications still possible on this branch.
+	 *
+	 * @return the agenda of this branch
+	 */
+	public Agenda getAgenda() {
+		return(this.agenda);
+	}
+
+	/**
+	 * Extends this branch by the given child of its leaf, which becomes the
+	 * new leaf.
+	 *
+	 * @param leaf a child of the leaf of this branch
+	 */
+	public void extendTo(ProofTreeNode leaf) {
+		this.leaf = leaf;
+		this.agenda.add(leaf);
+	}
+
+	/**
+	 * Returns a new branch consisting of this branch extended by the given
+	 * child of its leaf. This branch is left unchanged, so it can be split
+	 * once for each of the children of its leaf, but the agenda it shares
+	 * with the new branches is not, so it must not be expanded again.
+	 *
+	 * @param leaf a child of the leaf of this branch
+	 * @return a new branch ending in the given node
+	 */
+	public ProofBranch split(ProofTreeNode leaf) {
+		return(new ProofBranch(this, leaf));
+	}
+
+	/**
+	 * Adds the leaf of this branch to the given collection if it is not
+	 * closed. The given node is assumed to lie on this branch.
+	 *
+	 * @param parent a node on this branch
+	 * @param result the collection to which the leaf is to be added
+	 */
+	public void getLeavesBelow(ProofTreeNode parent, Collection<ProofTreeNode> result) {
+		if(!this.leaf.isClosed()) {
+			result.add(this.leaf);
+		}
+	}
+
+	/**
+	 * Answers whether or not the leaf of this branch is closed. The given
+	 * node is assumed to lie on this branch, so the leaf of the branch is the
+	 * only leaf below it.
+	 *
+	 * @param node a node on this branch
+	 * @return <code>true</code> if the leaf of this branch is closed; <code>
+	 *  false</code> otherwise
+	 */
+	public boolean closesFrom(ProofTreeNode node) {
+		return(this.leaf.isClosed());
+	}
+}
\ No newline at end of file
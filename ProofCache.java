@@ -0,0 +1,237 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.Vector;
+
+/**
+ * The <code>ProofCache</code> class remembers the outcome and tree size of
+ * arguments already proved, so that an argument submitted again need not be
+ * proved again.
+ * <p>
+ * Arguments are looked up by a canonical key: the set of the canonical forms
+ * of the premises and of the negated conclusion, in sorted order. An argument
+ * is valid exactly when this set is unsatisfiable, so arguments whose premises
+ * are reordered or repeated, or whose bound variables are renamed, share a
+ * key. The tree size remembered is that of the first tree built for the key.
+ * <p>
+ * At most a fixed number of results are kept, the least recently used being
+ * discarded first. Results may also be appended to a file, from which they are
+ * read back when a cache is next created with the same file. Only complete
+ * results are remembered; an unknown outcome is never cached.
+ *
+ * @see Formula#getCanonicalForm()
+ */
+public class ProofCache {
+	/**
+	 * The results remembered, by key, in order of use.
+	 */
+	private LinkedHashMap<String, Result> results;
+
+	/**
+	 * The writer appending results to the file, or <code>null</code> if the
+	 * results are not kept in a file.
+	 */
+	private Writer store;
+
+	/**
+	 * Creates a new, empty <code>ProofCache</code> holding at most the given
+	 * number of results.
+	 *
+	 * @param capacity the greatest number of results to be held
+	 */
+	public ProofCache(final int capacity) {
+		this.results = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+				return(this.size() > capacity);
+			}
+		};
+	}
+
+	/**
+	 * Creates a new <code>ProofCache</code> holding at most the given number
+	 * of results, and keeping its results in the given file. The results
+	 * already in the file, if it exists, are read in; lines which cannot be
+	 * read are ignored.
+	 *
+	 * @param capacity the greatest number of results to be held
+	 * @param file the file in which results are kept
+	 * @throws IOException if the file cannot be read or opened for writing
+	 */
+	public ProofCache(int capacity, File file) throws IOException {
+		this(capacity);
+		if(file.exists()) {
+			BufferedReader reader = new BufferedReader(new FileReader(file));
+			try {
+				String line;
+				while((line = reader.readLine()) != null) {
+					String[] fields = line.split(" ", 3);
+					if(fields.length == 3 && (fields[0].equals(ProofTree.VALID) || fields[0].equals(ProofTree.INVALID))) {
+						try {
+							this.results.put(fields[2], new Result(fields[0], Integer.parseInt(fields[1])));
+						} catch(NumberFormatException e) {
+							continue;
+						}
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		this.store = new BufferedWriter(new FileWriter(file, true));
+	}
+
+	/**
+	 * Returns the key of the given argument.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @return the key of the argument
+	 */
+	public static String getKey(Vector<Formula> premises, Formula conclusion) {
+		TreeSet<String> forms = new TreeSet<String>();
+		for(Iterator<Formula> i = premises.iterator(); i.hasNext();) {
+			forms.add(i.next().getCanonicalForm());
+		}
+		forms.add(conclusion.getNegation().getCanonicalForm());
+		StringBuilder result = new StringBuilder();
+		for(Iterator<String> i = forms.iterator(); i.hasNext();) {
+			result.append(i.next());
+			if(i.hasNext()) {
+				result.append(',');
+			}
+		}
+		return(result.toString());
+	}
+
+	/**
+	 * Returns the remembered result for the given argument, or <code>null
+	 * </code> if there is none.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @return the remembered result, or <code>null</code>
+	 */
+	public Result get(Vector<Formula> premises, Formula conclusion) {
+		String key = getKey(premises, conclusion);
+		synchronized(this) {
+			return(this.results.get(key));
+		}
+	}
+
+	/**
+	 * Returns the result for the given argument, building a proof tree within
+	 * the given budget only if no result is remembered. A complete result is
+	 * remembered, and written to the file if there is one. This may be called
+	 * from several threads at once; two threads proving the same argument at
+	 * once will both build its tree.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @param budget the budget limiting the work done
+	 * @param blocking whether or not branches which repeat themselves are
+	 *  blocked
+	 * @return the result for the argument
+	 * @throws IOException if the result cannot be written to the file
+	 * @see ProofTreeGenerator#generateProofTree(Vector, Formula, Budget, boolean)
+	 */
+	public Result prove(Vector<Formula> premises, Formula conclusion, Budget budget, boolean blocking) throws IOException {
+		String key = getKey(premises, conclusion);
+		synchronized(this) {
+			Result result = this.results.get(key);
+			if(result != null) {
+				return(result);
+			}
+		}
+		ProofTree tree = ProofTreeGenerator.generateProofTree(premises, conclusion, budget, blocking);
+		Result result = new Result(tree.getOutcome(), tree.size());
+		if(!result.getOutcome().equals(ProofTree.UNKNOWN)) {
+			synchronized(this) {
+				this.results.put(key, result);
+				if(this.store != null) {
+					this.store.write(result.getOutcome() + " " + result.getSize() + " " + key + "\n");
+					this.store.flush();
+				}
+			}
+		}
+		return(result);
+	}
+
+	/**
+	 * Closes the file in which results are kept, if any.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public synchronized void close() throws IOException {
+		if(this.store != null) {
+			this.store.close();
+			this.store = null;
+		}
+	}
+
+	/**
+	 * The <code>Result</code> class represents the remembered result of
+	 * proving an argument.
+	 */
+	public static class Result {
+		/**
+		 * The outcome of the proof tree.
+		 */
+		private String outcome;
+
+		/**
+		 * The size of the proof tree.
+		 */
+		private int size;
+
+		/**
+		 * Creates a new <code>Result</code>.
+		 *
+		 * @param outcome the outcome of the proof tree
+		 * @param size the size of the proof tree
+		 */
+		public Result(String outcome, int size) {
+			this.outcome = outcome;
+			this.size = size;
+		}
+
+		/**
+		 * Returns the outcome of the proof tree.
+		 *
+		 * @return the outcome of the proof tree
+		 * @see ProofTree#getOutcome()
+		 */
+		public String getOutcome() {
+			return(this.outcome);
+		}
+
+		/**
+		 * Returns the size of the proof tree.
+		 *
+		 * @return the size of the proof tree
+		 */
+		public int getSize() {
+			return(this.size);
+		}
+	}
+}
\ No newline at end of file
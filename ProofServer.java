@@ -0,0 +1,303 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The <code>ProofServer</code> class is a long-running service which proves
+ * arguments sent to it over HTTP on the local machine. This avoids starting a
+ * new virtual machine for every argument.
+ * <p>
+ * Arguments are sent with a <code>POST</code> request to <code>/prove</code>,
+ * whose body lists one premise per line followed by the conclusion on the last
+ * line, exactly as in an argument file. The response gives the validity of the
+ * argument, the size of the tree and the building time, one per line, followed
+ * by the tree itself if the query string contains <code>tree=true</code>.
+ * <p>
+ * Each request is handled on its own thread, which is a virtual thread where
+ * the virtual machine supports them, and its tree is built on that thread. At
+ * most a fixed number of trees are built at once, and a bounded number of
+ * further requests wait for their turn; requests beyond those are refused
+ * with status 503. Each request has a deadline, which may be shortened by
+ * passing <code>deadline=</code> followed by a number of milliseconds in the
+ * query string. A request still waiting for its turn at the deadline is
+ * answered with status 504. If the tree is not complete by the deadline,
+ * generation stops and the outcome of the partial tree (usually unknown) is
+ * returned. Passing <code>block=true</code> blocks branches which only repeat
+ * themselves.
+ * <p>
+ * Unless the tree itself is asked for, results are looked up in, and added
+ * to, a <code>ProofCache</code>, in which case the building time reported is
+ * that of the lookup.
+ *
+ * @see Budget
+ * @see ProofCache
+ */
+public class ProofServer {
+	/**
+	 * The underlying HTTP server.
+	 */
+	private HttpServer server;
+
+	/**
+	 * The executor running the threads on which requests are handled and
+	 * trees are built.
+	 */
+	private ExecutorService workers;
+
+	/**
+	 * The permits for building trees, one per tree which may be built at once.
+	 */
+	private Semaphore permits;
+
+	/**
+	 * The permits for accepting requests, one per tree which may be built at
+	 * once and one per request which may wait for its turn.
+	 */
+	private Semaphore admissions;
+
+	/**
+	 * The longest time allowed for building a tree, in milliseconds.
+	 */
+	private long deadline;
+
+	/**
+	 * The results already known.
+	 */
+	private ProofCache cache;
+
+	/**
+	 * Creates a new <code>ProofServer</code> listening on the given port of
+	 * the local machine. The server must be started with <code>start</code>.
+	 *
+	 * @param port the port to listen on
+	 * @param capacity the number of trees which may be built at once
+	 * @param queue the number of further requests which may wait for their
+	 *  turn
+	 * @param deadline the longest time allowed for building a tree, in
+	 *  milliseconds
+	 * @param cache the results already known
+	 * @throws IOException if the port cannot be opened
+	 * @see #start()
+	 */
+	public ProofServer(int port, int capacity, int queue, long deadline, ProofCache cache) throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.workers = newThreadPerTaskExecutor();
+		this.permits = new Semaphore(capacity, true);
+		this.admissions = new Semaphore(capacity + queue);
+		this.deadline = deadline;
+		this.cache = cache;
+		this.server.setExecutor(this.workers);
+		this.server.createContext("/prove", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					prove(exchange);
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start() {
+		this.server.start();
+	}
+
+	/**
+	 * Stops accepting requests, and interrupts any trees still being built.
+	 */
+	public void stop() {
+		this.server.stop(0);
+		this.workers.shutdownNow();
+	}
+
+	/**
+	 * Handles a single request to prove an argument. The tree is built on the
+	 * thread handling the request, once a permit is available. A failure
+	 * while reading the argument or building the tree, including running out
+	 * of stack on a deeply nested argument, is reported in the response.
+	 *
+	 * @param exchange the request and its response
+	 * @throws IOException if an I/O error occurs
+	 */
+	private void prove(HttpExchange exchange) throws IOException {
+		if(!exchange.getRequestMethod().equals("POST")) {
+			respond(exchange, 405, "use POST\n");
+			return;
+		}
+		URI uri = exchange.getRequestURI();
+		boolean showTree = "true".equals(getParameter(uri, "tree"));
+		boolean blocking = "true".equals(getParameter(uri, "block"));
+		long deadline = this.deadline;
+		String requested = getParameter(uri, "deadline");
+		if(requested != null) {
+			try {
+				deadline = Math.min(deadline, Long.parseLong(requested));
+			} catch(NumberFormatException e) {
+				respond(exchange, 400, "invalid deadline " + requested + "\n");
+				return;
+			}
+		}
+
+		Vector<Formula> premises = new Vector<Formula>();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), "UTF-8"));
+			String line;
+			while((line = reader.readLine()) != null) {
+				if(!line.trim().equals("")) {
+					premises.add(Formula.parse(line));
+				}
+			}
+		} catch(IllegalArgumentException e) {
+			respond(exchange, 400, e.getMessage() + "\n");
+			return;
+		} catch(StackOverflowError e) {
+			respond(exchange, 400, "argument nested too deeply\n");
+			return;
+		}
+		if(premises.size() == 0) {
+			respond(exchange, 400, "no conclusion\n");
+			return;
+		}
+		Formula conclusion = premises.remove(premises.size() - 1);
+
+		if(!this.admissions.tryAcquire()) {
+			respond(exchange, 503, "busy\n");
+			return;
+		}
+		try {
+			Budget budget = new Budget(Long.MAX_VALUE, Long.MAX_VALUE, deadline);
+			if(!this.permits.tryAcquire(deadline, TimeUnit.MILLISECONDS)) {
+				respond(exchange, 504, "timed out waiting to start\n");
+				return;
+			}
+			int status = 200;
+			String body;
+			try {
+				body = build(premises, conclusion, budget, blocking, showTree);
+			} catch(IOException e) {
+				status = 500;
+				body = e + "\n";
+			} catch(RuntimeException e) {
+				status = 500;
+				body = e + "\n";
+			} catch(StackOverflowError e) {
+				status = 500;
+				body = "argument nested too deeply\n";
+			} finally {
+				this.permits.release();
+			}
+			respond(exchange, status, body);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			this.admissions.release();
+		}
+	}
+
+	/**
+	 * Proves the given argument within the given budget, and returns the body
+	 * of the response: the outcome, the size of the tree and the building
+	 * time, one per line, followed by the tree if it is asked for. Unless the
+	 * tree is asked for, the result is looked up in the cache first.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument
+	 * @param budget the budget limiting the work done
+	 * @param blocking whether or not branches which repeat themselves are
+	 *  blocked
+	 * @param showTree whether or not the tree is to be included
+	 * @return the body of the response
+	 * @throws IOException if the result cannot be written to the cache
+	 */
+	private String build(Vector<Formula> premises, Formula conclusion, Budget budget, boolean blocking, boolean showTree) throws IOException {
+		long start = System.nanoTime();
+		if(!showTree) {
+			ProofCache.Result result = this.cache.prove(premises, conclusion, budget, blocking);
+			long stop = System.nanoTime();
+			return(result.getOutcome() + "\n" + result.getSize() + "\n" + ((double)(stop-start)/1000000000.0) + "\n");
+		}
+		ProofTree tree = ProofTreeGenerator.generateProofTree(premises, conclusion, budget, blocking);
+		long stop = System.nanoTime();
+		return(tree.getOutcome() + "\n" + tree.size() + "\n" + ((double)(stop-start)/1000000000.0) + "\n\n" + tree);
+	}
+
+	/**
+	 * Sends the given response.
+	 *
+	 * @param exchange the request and its response
+	 * @param status the HTTP status code
+	 * @param body the body of the response
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream output = exchange.getResponseBody();
+		output.write(bytes);
+		output.close();
+	}
+
+	/**
+	 * Returns the value of the given parameter in the query string of the
+	 * given URI, or <code>null</code> if it is not present.
+	 *
+	 * @param uri the URI of the request
+	 * @param name the name of the parameter
+	 * @return the value of the parameter, or <code>null</code>
+	 */
+	private static String getParameter(URI uri, String name) {
+		String query = uri.getQuery();
+		if(query == null) {
+			return(null);
+		}
+		String[] parameters = query.split("&");
+		for(int i = 0; i < parameters.length; i++) {
+			if(parameters[i].startsWith(name + "=")) {
+				return(parameters[i].substring(name.length() + 1));
+			}
+		}
+		return(null);
+	}
+
+	/**
+	 * Returns an executor which runs each task on a new virtual thread, or,
+	 * where the virtual machine does not support virtual threads, on a thread
+	 * from a pool which grows as needed.
+	 *
+	 * @return an executor running each task on its own thread
+	 */
+	private static ExecutorService newThreadPerTaskExecutor() {
+		try {
+			return((ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+		} catch(Exception e) {
+			return(Executors.newCachedThreadPool());
+		}
+	}
+}
\ No newline at end of file
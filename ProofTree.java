@@ -1,320 +1,645 @@
-/*
-** COMP 4905 - Honours Project
-** School of Computer Science, Carleton University
-** Fall 2006
-**
-** Proof Trees for Propositional Logic with Extensions to First Order Logic
-**
-** John Howat
-** jhowat@primus.ca
-*/
-
-import java.util.Iterator;
-import java.util.Vector;
-
-/**
- * The <code>ProofTree</code> class represents a proof tree. A proof tree is
- * essentially a binary tree comprised of <code>ProofTreeNode</code> objects as
- * nodes. The tree records only its root, and leaves bookkeeping to its nodes.
- */
-public class ProofTree {
-	/**
-	 * The root node of this proof tree.
-	 */
-	private ProofTreeNode root;
-
-	/**
-	 * Creates a new <code>ProofTree</code> object. The root of the tree will
-	 * be a node containing the specified formulae.
-	 *
-	 * @param formulae the formulae to be placed in the root node
-	 */
-	public ProofTree(Vector<Formula> formulae) {
-		root = new ProofTreeNode(formulae);
-	}
-
-	/**
-	 * Creates a new <code>ProofTree</code> object with the specified root.
-	 *
-	 * @param root the root of the tree
-	 */
-	public ProofTree(ProofTreeNode root) {
-		this.root = root;
-	}
-
-	/**
-	 * Returns the root of this tree.
-	 *
-	 * @return the root of this tree
-	 */
-	public ProofTreeNode getRoot() {
-		return(this.root);
-	}
-
-	/**
-	 * Adds a child to the given node in the tree. The node will be added as
-	 * either the left child or the right child, depending on which is not yet
-	 * currently occupied. If both are already occupied, an <code>
-	 * IllegalArgumentException</code> is thrown. The parent and child
-	 * relationships of each node are updated accordingly.
-	 *
-	 * @param parent the parent of the node to be added
-	 * @param child the child to be added to the specified parent
-	 * @throws IllegalArgumentException if the parent already has two children
-	 */
-	public void addChild(ProofTreeNode parent, ProofTreeNode child) {
-		if(parent.getLeftChild() == null) {
-			parent.setLeftChild(child);
-			child.setParent(parent);
-		} else if(parent.getRightChild() == null) {
-			parent.setRightChild(child);
-			child.setParent(parent);
-		} else {
-			throw new IllegalArgumentException("too many children");
-		}
-	}
-
-	/**
-	 * Removes a child of the given node in the tree. No operation is performed
-	 * if the given node does not have the specified child. The parent and child
-	 * relationships of each node are updated accordingly.
-	 *
-	 * @param parent the parent of the node to be removed
-	 * @param child the child to be removed from the specified parent
-	 */
-	public void removeChild(ProofTreeNode parent, ProofTreeNode child) {
-		if(parent.getLeftChild() == child) {
-			parent.setLeftChild(null);
-			child.setParent(null);
-		} else if(parent.getRightChild() == child) {
-			parent.setRightChild(null);
-			child.setParent(null);
-		}
-	}
-
-	/**
-	 * Returns a <code>Vector</code> containing all of the leaves of the tree
-	 * below the given node.
-	 *
-	 * @param parent the node under which all leaves should be returned
-	 * @return all leaves under the specified node
-	 */
-	public Vector<ProofTreeNode> getLeavesBelow(ProofTreeNode parent) {
-		Vector<ProofTreeNode> result = new Vector<ProofTreeNode>();
-		if(this.isLeaf(parent) && !parent.isClosed()) {
-			result.add(parent);
-		} else {
-			if((parent.getLeftChild() != null) && (!parent.getLeftChild().isClosed())) {
-				result.addAll(getLeavesBelow(parent.getLeftChild()));
-			}
-			if((parent.getRightChild() != null) && (!parent.getRightChild().isClosed())) {
-				result.addAll(getLeavesBelow(parent.getRightChild()));
-			}
-		}
-		return(result);
-	}
-
-	/**
-	 * Adds as children all the specified nodes to the leaves of the tree below
-	 * the given node. Nodes are closed as appropriate.
-	 *
-	 * @param parent the node under which the leaves are to be updated
-	 * @param children the children to be added under each leaf
-	 * @return <code>true</code> if the tree changed as a result of this
-	 * operation; <code>false</code> otherwise
-	 */
-	public boolean addLeavesBelow(ProofTreeNode parent, Vector<ProofTreeNode> children) {
-		boolean changed = false;
-		for(Iterator<ProofTreeNode> i = this.getLeavesBelow(parent).iterator(); i.hasNext();) {
-			ProofTreeNode leaf = i.next();
-			for(Iterator<ProofTreeNode> j = children.iterator(); j.hasNext();) {
-				ProofTreeNode child = (ProofTreeNode)j.next().clone();
-				int already = 0;
-				int total = 0;
-				for(Iterator<Formula> k = child.getFormulae(); k.hasNext();) {
-					total++;
-					if(leaf.containsFormulaFrom(k.next())) {
-						already++;
-					}
-				}
-				if(already < total) {
-					this.addChild(leaf, child);
-					if(this.checkContradictionFrom(child)) {
-						child.close();
-					}
-					changed = true;
-				}
-			}
-		}
-		return(changed);
-	}
-
-	/**
-	 * Answers whether or not the specified node is a leaf in this tree. A node
-	 * is a leaf if and only if it has no children.
-	 *
-	 * @param node the node to be tested for being a leaf
-	 * @return <code>true</code> if the specified node is a leaf in this tree;
-	 *  <code>false</code> otherwise
-	 */
-	private boolean isLeaf(ProofTreeNode node) {
-		return((node.getLeftChild() == null) && (node.getRightChild() == null));
-	}
-
-	/**
-	 * Answers the size of this tree, i.e., the number of nodes in the tree.
-	 *
-	 * @return the size of the tree
-	 */
-	public int size() {
-		return(sizeFrom(root));
-	}
-
-	/**
-	 * Answers the size of this tree below the given node (inclusive.)
-	 *
-	 * @return the size of the tree below the given node (inclusive.)
-	 * @see #size()
-	 */
-	private int sizeFrom(ProofTreeNode node) {
-		if(node == null) {
-			return(0);
-		} else {
-			return(1 + sizeFrom(node.getLeftChild()) + sizeFrom(node.getRightChild()));
-		}
-	}
-
-	/**
-	 * Returns an <code>Iterator</code> over the unclosed nodes of this tree.
-	 *
-	 * @return an <code>Iterator</code> over the unclosed nodes of this tree
-	 * @see java.util.Iterator
-	 */
-	public Iterator<ProofTreeNode> getUnclosedNodes() {
-		return(getUnclosedNodesBelow(root).iterator());
-	}
-
-	/**
-	 * Returns an <code>Vector</code> of the unclosed nodes of this tree below
-	 * the given node.
-	 *
-	 * @return all of the unclosed nodes in this tree below the given node
-	 * @see #getUnclosedNodes()
-	 * @see java.util.Iterator
-	 */
-	private Vector<ProofTreeNode> getUnclosedNodesBelow(ProofTreeNode parent) {
-		Vector<ProofTreeNode> result = new Vector<ProofTreeNode>();
-		if(!parent.isClosed()) {
-			result.add(parent);
-		}
-		if((parent.getLeftChild() != null) && (!parent.getLeftChild().isClosed())) {
-			result.addAll(getUnclosedNodesBelow(parent.getLeftChild()));
-		}
-		if((parent.getRightChild() != null) && (!parent.getRightChild().isClosed())) {
-			result.addAll(getUnclosedNodesBelow(parent.getRightChild()));
-		}
-		return(result);
-	}
-
-	/**
-	 * Answers whether a contradiction exists between this node and any node
-	 * above it.
-	 *
-	 * @param node the node to begin checking for contradictions from
-	 * @return <code>true</code> if this node contradicts with any node above
-	 *  it; <code>false</code> otherwise
-	 */
-	public boolean checkContradictionFrom(ProofTreeNode node) {
-		return(checkContradictionBetween(node, node));
-	}
-
-	/**
-	 * Answers whether a contradiction exists between one node and any node
-	 * beteen it and another node.
-	 *
-	 * @param start the node to begin checking for contradictions from
-	 * @param current the node to stop checking for contradictions from
-	 * @return <code>true</code> if this node contradicts with any node above
-	 *  it up to <code>current</code>; <code>false</code> otherwise
-	 * @see #checkContradictionFrom(ProofTreeNode)
-	 */
-	private boolean checkContradictionBetween(ProofTreeNode start, ProofTreeNode current) {
-		if(start.contradicts(current)) {
-			return(true);
-		} else if(current == this.root) {
-			return(false);
-		} else {
-			return(checkContradictionBetween(start, current.getParent()));
-		}
-	}
-
-	/**
-	 * Answers whether or not all leaves of this tree close.
-	 *
-	 * @return <code>true</code> if all leaves of this tree close; <code>false
-	 *  </code> otherwise
-	 */
-	public boolean closes() {
-		return(closesFrom(root));
-	}
-
-	/**
-	 * Answers whether or not all leaves of this tree below the given node
-	 * close.
-	 *
-	 * @param node the node to start checking from
-	 * @return <code>true</code> if all leaves of this tree below the given node
-	 *  close; <code>false</code> otherwise
-	 */
-	public boolean closesFrom(ProofTreeNode node) {
-		if(node.isClosed()) {
-			return(true);
-		} else {
-			if(node.getLeftChild() != null) {
-				if(node.getRightChild() != null) {
-					return(closesFrom(node.getLeftChild()) && closesFrom(node.getRightChild()));
-				} else {
-					return(closesFrom(node.getLeftChild()));
-				}
-			} else {
-				if(node.getRightChild() != null) {
-					return(closesFrom(node.getRightChild()));
-				} else {
-					return(false);
-				}
-			}
-		}
-	}
-
-	/**
-	 * Returns a string representation of this proof tree.
-	 *
-	 * @return a string representation of this proof tree
-	 */
-	public String toString() {
-		return(this.toStringFrom(this.root, 0));
-	}
-
-	/**
-	 * Returns a string representation of this proof tree from the given node
-	 * with the given level of indentation for pretty-printing purposes.
-	 *
-	 * @param node the node to begin from
-	 * @param level the levels of indentation, i.e., the height of a node
-	 * @return a string representation of this proof tree below the given node
-	 */
-	private String toStringFrom(ProofTreeNode node, int level) {
-		if(node == null) {
-			return("");
-		} else {
-			String result = "";
-			for(int i = 0; i < level; i++) {
-				result += "|   ";
-			}
-			result += node.toString() + "\n";
-			result += this.toStringFrom(node.getLeftChild(), level + 1);
-			result += this.toStringFrom(node.getRightChild(), level + 1);
-			return(result);
-		}
-	}
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Vector;
+
+/**
+ * The <code>ProofTree</code> class represents a proof tree. A proof tree is
+ * essentially a binary tree comprised of <code>ProofTreeNode</code> objects as
+ * nodes. The tree records only its root, and leaves bookkeeping to its nodes.
+ * <p>
+ * The open leaves of the tree (i.e., the unclosed nodes without children) are
+ * kept in a list running from left to right, and each node records the first
+ * and last open leaves below it. Since the open leaves below any node are
+ * adjacent in the list, they can be found without walking the tree. The list
+ * is updated as nodes are added, removed and closed, which must therefore be
+ * done through the tree. Trees sharing the same root (such as the branches of
+ * a tree) share the list, and updates to it are synchronized on the root.
+ */
+public class ProofTree {
+	/**
+	 * The outcome of a tree which closes, i.e., of a valid argument.
+	 */
+	public static final String VALID = "valid";
+
+	/**
+	 * The outcome of a complete tree which does not close, i.e., of an
+	 * invalid argument.
+	 */
+	public static final String INVALID = "invalid";
+
+	/**
+	 * The outcome of an incomplete tree which does not close.
+	 */
+	public static final String UNKNOWN = "unknown";
+
+	/**
+	 * The root node of this proof tree.
+	 */
+	private ProofTreeNode root;
+
+	/**
+	 * Whether or not every rule that applies has been applied to this tree.
+	 * This is cleared if generation of the tree is stopped early, or if its
+	 * open branches were only stopped by blocking which may be unsound.
+	 */
+	private volatile boolean complete = true;
+
+	/**
+	 * Whether or not branches which repeat themselves are blocked while this
+	 * tree is generated.
+	 *
+	 * @see ProofTreeGenerator#generateProofTree(Vector, Formula, Budget, boolean)
+	 */
+	private boolean blocking;
+
+	/**
+	 * Creates a new <code>ProofTree</code> object. The root of the tree will
+	 * be a node containing the specified formulae.
+	 *
+	 * @param formulae the formulae to be placed in the root node
+	 */
+	public ProofTree(Vector<Formula> formulae) {
+		this(new ProofTreeNode(formulae));
+	}
+
+	/**
+	 * Creates a new <code>ProofTree</code> object with the specified root.
+	 *
+	 * @param root the root of the tree
+	 */
+	public ProofTree(ProofTreeNode root) {
+		this.root = root;
+		if(this.isLeaf(root) && !root.isClosed() && root.getFirstLeaf() == null) {
+			this.insertOpenLeaf(root);
+		}
+	}
+
+	/**
+	 * Returns the root of this tree.
+	 *
+	 * @return the root of this tree
+	 */
+	public ProofTreeNode getRoot() {
+		return(this.root);
+	}
+
+	/**
+	 * Adds a child to the given node in the tree. The node will be added as
+	 * either the left child or the right child, depending on which is not yet
+	 * currently occupied. If both are already occupied, an <code>
+	 * IllegalArgumentException</code> is thrown. The parent and child
+	 * relationships of each node are updated accordingly.
+	 *
+	 * @param parent the parent of the node to be added
+	 * @param child the child to be added to the specified parent
+	 * @throws IllegalArgumentException if the parent already has two children
+	 */
+	public void addChild(ProofTreeNode parent, ProofTreeNode child) {
+		synchronized(this.root) {
+			boolean wasLeaf = (parent.getFirstLeaf() == parent);
+			if(parent.getLeftChild() == null) {
+				parent.setLeftChild(child);
+				child.setParent(parent);
+			} else if(parent.getRightChild() == null) {
+				parent.setRightChild(child);
+				child.setParent(parent);
+			} else {
+				throw new IllegalArgumentException("too many children");
+			}
+			if(!parent.isClosed()) {
+				for(ProofTreeNode node = child; node != null; node = this.next(node, child, !node.isClosed())) {
+					if(this.isLeaf(node) && !node.isClosed()) {
+						this.insertOpenLeaf(node);
+					}
+				}
+			}
+			if(wasLeaf) {
+				this.removeOpenLeaf(parent);
+			}
+		}
+	}
+
+	/**
+	 * Removes a child of the given node in the tree. No operation is performed
+	 * if the given node does not have the specified child. The parent and child
+	 * relationships of each node are updated accordingly.
+	 *
+	 * @param parent the parent of the node to be removed
+	 * @param child the child to be removed from the specified parent
+	 */
+	public void removeChild(ProofTreeNode parent, ProofTreeNode child) {
+		synchronized(this.root) {
+			if(parent.getLeftChild() == child) {
+				this.removeOpenLeavesBelow(child);
+				parent.setLeftChild(null);
+				child.setParent(null);
+			} else if(parent.getRightChild() == child) {
+				this.removeOpenLeavesBelow(child);
+				parent.setRightChild(null);
+				child.setParent(null);
+			} else {
+				return;
+			}
+			if(this.isLeaf(parent) && !parent.isClosed()) {
+				this.insertOpenLeaf(parent);
+			}
+		}
+	}
+
+	/**
+	 * Closes the given node of the tree. The open leaves below the node, if
+	 * any, are no longer open.
+	 *
+	 * @param node the node to be closed
+	 * @see ProofTreeNode#close()
+	 */
+	public void close(ProofTreeNode node) {
+		synchronized(this.root) {
+			node.close();
+			this.removeOpenLeavesBelow(node);
+		}
+	}
+
+	/**
+	 * Inserts the given node into the list of open leaves, after the open
+	 * leaves to its left, and updates the ranges of open leaves of the nodes
+	 * above it.
+	 *
+	 * @param leaf the open leaf to be inserted
+	 */
+	private void insertOpenLeaf(ProofTreeNode leaf) {
+		ProofTreeNode previous = null;
+		ProofTreeNode top = leaf;
+		for(ProofTreeNode current = leaf; previous == null && current.getParent() != null; current = current.getParent()) {
+			ProofTreeNode parent = current.getParent();
+			if(current == parent.getRightChild() && parent.getLeftChild() != null) {
+				previous = parent.getLeftChild().getLastLeaf();
+			}
+			top = parent;
+		}
+		ProofTreeNode next = (previous != null) ? previous.getNextLeaf() : top.getFirstLeaf();
+		leaf.setPreviousLeaf(previous);
+		leaf.setNextLeaf(next);
+		if(previous != null) {
+			previous.setNextLeaf(leaf);
+		}
+		if(next != null) {
+			next.setPreviousLeaf(leaf);
+		}
+		for(ProofTreeNode current = leaf; current != null; current = current.getParent()) {
+			if(current.getFirstLeaf() == null) {
+				current.setFirstLeaf(leaf);
+				current.setLastLeaf(leaf);
+			} else if(current.getFirstLeaf() == next) {
+				current.setFirstLeaf(leaf);
+			} else if(current.getLastLeaf() == previous) {
+				current.setLastLeaf(leaf);
+			} else {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Removes the given node from the list of open leaves, and updates the
+	 * ranges of open leaves of the nodes above it.
+	 *
+	 * @param leaf the open leaf to be removed
+	 */
+	private void removeOpenLeaf(ProofTreeNode leaf) {
+		ProofTreeNode previous = leaf.getPreviousLeaf();
+		ProofTreeNode next = leaf.getNextLeaf();
+		for(ProofTreeNode current = leaf; current != null; current = current.getParent()) {
+			if(current.getFirstLeaf() == leaf && current.getLastLeaf() == leaf) {
+				current.setFirstLeaf(null);
+				current.setLastLeaf(null);
+			} else if(current.getFirstLeaf() == leaf) {
+				current.setFirstLeaf(next);
+			} else if(current.getLastLeaf() == leaf) {
+				current.setLastLeaf(previous);
+			} else {
+				break;
+			}
+		}
+		if(previous != null) {
+			previous.setNextLeaf(next);
+		}
+		if(next != null) {
+			next.setPreviousLeaf(previous);
+		}
+		leaf.setPreviousLeaf(null);
+		leaf.setNextLeaf(null);
+	}
+
+	/**
+	 * Removes the open leaves below the given node (inclusive) from the list
+	 * of open leaves.
+	 *
+	 * @param node the node under which open leaves are to be removed
+	 */
+	private void removeOpenLeavesBelow(ProofTreeNode node) {
+		ProofTreeNode last = node.getLastLeaf();
+		ProofTreeNode leaf = node.getFirstLeaf();
+		while(leaf != null) {
+			ProofTreeNode next = leaf.getNextLeaf();
+			this.removeOpenLeaf(leaf);
+			leaf = (leaf == last) ? null : next;
+		}
+	}
+
+	/**
+	 * Returns a <code>Vector</code> containing all of the leaves of the tree
+	 * below the given node.
+	 *
+	 * @param parent the node under which all leaves should be returned
+	 * @return all leaves under the specified node
+	 * @see #getLeavesBelow(ProofTreeNode, Collection)
+	 */
+	public Vector<ProofTreeNode> getLeavesBelow(ProofTreeNode parent) {
+		Vector<ProofTreeNode> result = new Vector<ProofTreeNode>();
+		this.getLeavesBelow(parent, result);
+		return(result);
+	}
+
+	/**
+	 * Adds all of the open leaves of the tree below the given node to the
+	 * given collection, in order from left to right. This takes time
+	 * proportional to the number of leaves found, since they are read from
+	 * the list of open leaves.
+	 *
+	 * @param parent the node under which all leaves should be collected
+	 * @param result the collection to which the leaves are to be added
+	 */
+	public void getLeavesBelow(ProofTreeNode parent, Collection<ProofTreeNode> result) {
+		ProofTreeNode last = parent.getLastLeaf();
+		for(ProofTreeNode leaf = parent.getFirstLeaf(); leaf != null; leaf = leaf.getNextLeaf()) {
+			result.add(leaf);
+			if(leaf == last) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Adds as children all the specified nodes to the leaves of the tree below
+	 * the given node. Nodes are closed as appropriate.
+	 *
+	 * @param parent the node under which the leaves are to be updated
+	 * @param children the children to be added under each leaf
+	 * @return <code>true</code> if the tree changed as a result of this
+	 * operation; <code>false</code> otherwise
+	 */
+	public boolean addLeavesBelow(ProofTreeNode parent, Vector<ProofTreeNode> children) {
+		return(this.addLeavesBelow(parent, children, null));
+	}
+
+	/**
+	 * Adds as children all the specified nodes to the leaves of the tree below
+	 * the given node, and reports the nodes actually added. Nodes are closed
+	 * as appropriate.
+	 *
+	 * @param parent the node under which the leaves are to be updated
+	 * @param children the children to be added under each leaf
+	 * @param added a collection to which each node added to the tree is
+	 *  added, or <code>null</code>
+	 * @return <code>true</code> if the tree changed as a result of this
+	 * operation; <code>false</code> otherwise
+	 * @see #addLeavesBelow(ProofTreeNode, Vector)
+	 */
+	public boolean addLeavesBelow(ProofTreeNode parent, Vector<ProofTreeNode> children, Collection<ProofTreeNode> added) {
+		boolean changed = false;
+		Vector<ProofTreeNode> leaves = new Vector<ProofTreeNode>();
+		this.getLeavesBelow(parent, leaves);
+		for(int i = 0; i < leaves.size(); i++) {
+			ProofTreeNode[] prepared = prepareChildren(leaves.get(i), children);
+			for(int j = 0; j < prepared.length; j++) {
+				this.addChild(leaves.get(i), prepared[j]);
+				if(added != null) {
+					added.add(prepared[j]);
+				}
+				changed = true;
+			}
+		}
+		return(changed);
+	}
+
+	/**
+	 * Prepares copies of the given nodes to be added as children of the given
+	 * leaf, without changing the tree. No copies are needed if every formula
+	 * in one of the nodes already occurs on the branch of the leaf: the branch
+	 * then already holds everything that alternative would add, and adding
+	 * the other alternatives without it could close a branch which should
+	 * stay open. Each copy records the leaf as its parent, so that the
+	 * formulae above it are known, and is closed if it contradicts them; it
+	 * is up to the caller to add it to the tree.
+	 *
+	 * @param leaf the leaf under which the nodes are to be added
+	 * @param children the nodes to be added under the leaf
+	 * @return a copy of each of the given nodes, or an empty array if none
+	 *  are needed
+	 */
+	private static ProofTreeNode[] prepareChildren(ProofTreeNode leaf, Vector<ProofTreeNode> children) {
+		for(int i = 0; i < children.size(); i++) {
+			boolean redundant = true;
+			for(Iterator<Formula> k = children.get(i).getFormulae(); k.hasNext() && redundant;) {
+				redundant = leaf.containsFormulaFrom(k.next());
+			}
+			if(redundant) {
+				return(new ProofTreeNode[0]);
+			}
+		}
+		ProofTreeNode[] result = new ProofTreeNode[children.size()];
+		for(int i = 0; i < children.size(); i++) {
+			ProofTreeNode child = (ProofTreeNode)children.get(i).clone();
+			child.setParent(leaf);
+			if(child.contradictsFrom()) {
+				child.close();
+			}
+			result[i] = child;
+		}
+		return(result);
+	}
+
+	/**
+	 * Answers whether or not the specified node is a leaf in this tree. A node
+	 * is a leaf if and only if it has no children.
+	 *
+	 * @param node the node to be tested for being a leaf
+	 * @return <code>true</code> if the specified node is a leaf in this tree;
+	 *  <code>false</code> otherwise
+	 */
+	private boolean isLeaf(ProofTreeNode node) {
+		return((node.getLeftChild() == null) && (node.getRightChild() == null));
+	}
+
+	/**
+	 * Returns the node following the given node in a pre-order walk of the
+	 * tree below the given start node, or <code>null</code> once the walk is
+	 * complete. The walk follows parent links rather than keeping a stack, so
+	 * it needs no extra memory however deep the tree is.
+	 *
+	 * @param node the current node of the walk
+	 * @param start the node at which the walk began
+	 * @param descend whether or not the children of the current node are to
+	 *  be visited
+	 * @return the next node of the walk, or <code>null</code> if there are
+	 *  none
+	 */
+	private ProofTreeNode next(ProofTreeNode node, ProofTreeNode start, boolean descend) {
+		if(descend) {
+			if(node.getLeftChild() != null) {
+				return(node.getLeftChild());
+			} else if(node.getRightChild() != null) {
+				return(node.getRightChild());
+			}
+		}
+		while(node != start) {
+			ProofTreeNode parent = node.getParent();
+			if(node == parent.getLeftChild() && parent.getRightChild() != null) {
+				return(parent.getRightChild());
+			}
+			node = parent;
+		}
+		return(null);
+	}
+
+	/**
+	 * Answers the size of this tree, i.e., the number of nodes in the tree.
+	 *
+	 * @return the size of the tree
+	 */
+	public int size() {
+		return(sizeFrom(root));
+	}
+
+	/**
+	 * Answers the size of this tree below the given node (inclusive.)
+	 *
+	 * @return the size of the tree below the given node (inclusive.)
+	 * @see #size()
+	 */
+	private int sizeFrom(ProofTreeNode node) {
+		int size = 0;
+		for(ProofTreeNode current = node; current != null; current = this.next(current, node, true)) {
+			size++;
+		}
+		return(size);
+	}
+
+	/**
+	 * Returns an <code>Iterator</code> over the unclosed nodes of this tree.
+	 *
+	 * @return an <code>Iterator</code> over the unclosed nodes of this tree
+	 * @see java.util.Iterator
+	 */
+	public Iterator<ProofTreeNode> getUnclosedNodes() {
+		Vector<ProofTreeNode> result = new Vector<ProofTreeNode>();
+		this.getUnclosedNodesBelow(root, result);
+		return(result.iterator());
+	}
+
+	/**
+	 * Adds the unclosed nodes of this tree below the given node to the given
+	 * collection. Closed nodes are not descended into.
+	 *
+	 * @param parent the node under which unclosed nodes should be collected
+	 * @param result the collection to which the nodes are to be added
+	 * @see #getUnclosedNodes()
+	 */
+	private void getUnclosedNodesBelow(ProofTreeNode parent, Collection<ProofTreeNode> result) {
+		for(ProofTreeNode node = parent; node != null; node = this.next(node, parent, !node.isClosed())) {
+			if(!node.isClosed()) {
+				result.add(node);
+			}
+		}
+	}
+
+	/**
+	 * Answers whether a contradiction exists between this node and any node
+	 * above it.
+	 *
+	 * @param node the node to begin checking for contradictions from
+	 * @return <code>true</code> if this node contradicts with any node above
+	 *  it; <code>false</code> otherwise
+	 * @see ProofTreeNode#contradictsFrom()
+	 */
+	public boolean checkContradictionFrom(ProofTreeNode node) {
+		return(node.contradictsFrom());
+	}
+
+	/**
+	 * Answers whether or not all leaves of this tree close. This takes
+	 * constant time.
+	 *
+	 * @return <code>true</code> if all leaves of this tree close; <code>false
+	 *  </code> otherwise
+	 */
+	public boolean closes() {
+		return(closesFrom(root));
+	}
+
+	/**
+	 * Answers whether or not all leaves of this tree below the given node
+	 * close, i.e., whether there are no open leaves below it. This takes
+	 * constant time, since closing a leaf updates the range of open leaves of
+	 * each node above it.
+	 *
+	 * @param node the node to start checking from
+	 * @return <code>true</code> if all leaves of this tree below the given node
+	 *  close; <code>false</code> otherwise
+	 */
+	public boolean closesFrom(ProofTreeNode node) {
+		return(node.getFirstLeaf() == null);
+	}
+
+	/**
+	 * Answers whether or not this tree is complete, i.e., whether its
+	 * generation ran to the end rather than being stopped early.
+	 *
+	 * @return <code>true</code> if this tree is complete; <code>false</code>
+	 *  otherwise
+	 * @see Budget
+	 */
+	public boolean isComplete() {
+		return(this.complete);
+	}
+
+	/**
+	 * Marks this tree as incomplete. This is done when generation of the tree
+	 * is stopped early, or when every open branch was stopped by blocking
+	 * outside the fragment in which blocking is sound. It may be called from
+	 * any thread.
+	 */
+	void markIncomplete() {
+		this.complete = false;
+	}
+
+	/**
+	 * Answers whether or not branches which repeat themselves are blocked
+	 * while this tree is generated.
+	 *
+	 * @return <code>true</code> if such branches are blocked; <code>false
+	 *  </code> otherwise
+	 * @see ProofTreeGenerator#generateProofTree(Vector, Formula, Budget, boolean)
+	 */
+	boolean isBlocking() {
+		return(this.blocking);
+	}
+
+	/**
+	 * Sets whether or not branches which repeat themselves are blocked while
+	 * this tree is generated.
+	 *
+	 * @param blocking <code>true</code> to block such branches; <code>false
+	 *  </code> otherwise
+	 */
+	void setBlocking(boolean blocking) {
+		this.blocking = blocking;
+	}
+
+	/**
+	 * Returns the outcome of this tree: <code>VALID</code> if the tree closes,
+	 * <code>INVALID</code> if it is complete and does not close, and <code>
+	 * UNKNOWN</code> otherwise.
+	 *
+	 * @return the outcome of this tree
+	 */
+	public String getOutcome() {
+		if(this.closes()) {
+			return(VALID);
+		} else if(this.complete) {
+			return(INVALID);
+		} else {
+			return(UNKNOWN);
+		}
+	}
+
+	/**
+	 * Returns a string representation of this proof tree.
+	 *
+	 * @return a string representation of this proof tree
+	 */
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		try {
+			this.write(result);
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return(result.toString());
+	}
+
+	/**
+	 * Writes a string representation of this proof tree to the given <code>
+	 * Appendable</code>, one node per line, indented by depth. The tree is
+	 * written as it is traversed, so it need not fit in memory as a single
+	 * string.
+	 *
+	 * @param out the <code>Appendable</code> to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(Appendable out) throws IOException {
+		this.write(out, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Writes a string representation of this proof tree to the given <code>
+	 * Appendable</code>, omitting nodes deeper than the given depth. The root
+	 * is at depth zero. Where the children of a node are omitted, a line
+	 * containing <code>...</code> is written in their place.
+	 *
+	 * @param out the <code>Appendable</code> to write to
+	 * @param depth the depth of the deepest nodes to be written
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(Appendable out, int depth) throws IOException {
+		ProofTreeNode node = this.root;
+		int level = 0;
+		while(node != null) {
+			indent(out, level);
+			node.appendTo(out);
+			out.append('\n');
+			boolean descend = (level < depth);
+			if(!descend && !this.isLeaf(node)) {
+				indent(out, level + 1);
+				out.append("...\n");
+			}
+			ProofTreeNode next = this.next(node, this.root, descend);
+			if(next != null) {
+				if(next.getParent() == node) {
+					level++;
+				} else {
+					for(ProofTreeNode current = node.getParent(); current != next.getParent(); current = current.getParent()) {
+						level--;
+					}
+				}
+			}
+			node = next;
+		}
+	}
+
+	/**
+	 * Writes the indentation for a node at the given level.
+	 *
+	 * @param out the <code>Appendable</code> to write to
+	 * @param level the levels of indentation
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void indent(Appendable out, int level) throws IOException {
+		for(int i = 0; i < level; i++) {
+			out.append("|   ");
+		}
+	}
 }
\ No newline at end of file
@@ -1,453 +1,854 @@
-/*
-** COMP 4905 - Honours Project
-** School of Computer Science, Carleton University
-** Fall 2006
-**
-** Proof Trees for Propositional Logic with Extensions to First Order Logic
-**
-** John Howat
-** jhowat@primus.ca
-*/
-
-import java.util.Iterator;
-import java.util.Vector;
-
-/**
- * The <code>ProofTreeGenerator</code> class generates a proof tree. Proof trees
- * themselves are described in detail the accompanying paper. Essentially, proof
- * trees are trees representing derivations of proofs for (in this case) first
- * order logic. The tree is built by applying various tree rules. These rules
- * can be applied in different orders, and the goal of this class is to apply
- * them in such a way as to minimize proof tree size as much as possible.
- * Additionally, since first order logic is undecidable, some proof trees may
- * not have finite length, i.e., the generation algorithm may not terminate. The
- * heuristics used to apply the rules try to avoid this, but they cannot do
- * this in all cases.
- */
-public class ProofTreeGenerator {
-	/**
-	 * Generate a proof tree for the given argument.
-	 *
-	 * @param premises a list of the premises of the argument
-	 * @param conclusion the (unnegated) conclusion of the argument.
-	 * @return a <code>ProofTree</code> object representing a proof tree for
-	 *  this argument (although termination is not guaranteed)
-	 */
-	public static ProofTree generateProofTree(Vector<Formula> premises, Formula conclusion) {
-		ProofTree tree = generateInitialTree(premises, conclusion);
-
-		if(tree.checkContradictionFrom(tree.getRoot())) {
-			tree.getRoot().close();
-			return(tree);
-		}
-
-		Vector<Condition> preferences = new Vector<Condition>();
-		preferences.add(getMakesContradictionCondition());
-		preferences.add(getQuantifierNegationCondition());
-		preferences.add(getNonBranchingSententialCondition());
-		preferences.add(getExistentialInstantiationCondition());
-		preferences.add(getUniversalInstantiationCondition());
-		preferences.add(getBranchingSententialCondition());
-		preferences.add(getWildCardCondition());
-
-		applyRulesWithPreferences(tree, preferences);
-		return(tree);
-	}
-
-	/**
-	 * Generate an initial tree for the given argument.
-	 * 
-	 * @param premises a list of the premises of the argument
-	 * @param conclusion the (unnegated) conclusion of the argument.
-	 * @return a <code>ProofTree</code> object representing an initial proof
-	 * proof tree for the argument
-	 */
-	private static ProofTree generateInitialTree(Vector<Formula> premises, Formula conclusion) {
-		Vector<Formula> rootFormulae = new Vector<Formula>();
-		rootFormulae.addAll(premises);
-		rootFormulae.add(conclusion.getNegation());
-		return(new ProofTree(new ProofTreeNode(rootFormulae)));
-	}
-
-	/**
-	 * Apply the tree rules using the given preferences. Preferences describe
-	 * the order in which rule should be applied. The method tries to apply the
-	 * preferences in the order they are specified until a change is made, and
-	 * then goes back to the beginning to try to apply the next rule. Therefore,
-	 * the most preferred rule is always applied at any given stage.
-	 *
-	 * @param tree the tree to which the tree rules are to be applied
-	 * @param preferences a list of preferences, in the order in which they are
-	 *  to be applied
-	 */
-	private static void applyRulesWithPreferences(ProofTree tree, Vector<Condition> preferences) {
-		for(int i = 0; i < preferences.size(); i++) {
-			if(applyRuleToTreeWhere(tree, preferences.get(i))) {
-				i = -1;
-			}
-		}
-	}
-
-	/**
-	 * Attempt to apply a tree rule given using the given preference, i.e., if
-	 * the preference is satisified by any application of a rule, then apply it.
-	 *
-	 * @param tree the tree to which the tree rule is to be applied
-	 * @param condition the preference currently under consideration
-	 * @return <code>true</code> if the condition was satisfied and the tree
-	 *  changed as a result of the application of a tree rule; <code>false
-	 *  </code> otherwise
-	 */
-	private static boolean applyRuleToTreeWhere(ProofTree tree, Condition condition) {
-		for(Iterator<ProofTreeNode> nodes = tree.getUnclosedNodes(); nodes.hasNext();) {
-			ProofTreeNode currentNode = nodes.next();
-			for(Iterator<Formula> formulae = currentNode.getFormulae(); formulae.hasNext();) {
-				Formula currentFormula = formulae.next();
-				if(!currentNode.isTicked(currentFormula) && condition.satisfies(tree, currentNode, currentFormula)) {
-					Vector<ProofTreeNode> newLeaves = applyRule(tree, currentNode, currentFormula);
-					if(newLeaves.size() > 0 && tree.addLeavesBelow(currentNode, newLeaves)) {
-						return(true);
-					}
-				}
-			}
-		}
-		return(false);
-	}
-
-	/**
-	 * Apply a tree rule to the given formula in the given node to the tree.
-	 * Note that any given formula can only have one tree rule applied to it,
-	 * so this method will work on any node/formula combination. No regard is
-	 * given to rule preference; this is the caller's responsibility.
-	 *
-	 * @param tree the tree to which a tree rule is to be applied
-	 * @param node the node to which a tree rule is to be applied
-	 * @param formula the formula to which a tree rule is to be applied
-	 * @return the nodes created as a result of the rule application (the
-	 *  caller is responsible for adding these nodes to the tree in a
-	 *  semantically correct way)
-	 */
-	private static Vector<ProofTreeNode> applyRule(ProofTree tree, ProofTreeNode node, Formula formula) {
-		String majorOperator = formula.getMajorOperator();
-		Vector<Formula> majorOperands = formula.getMajorOperands();
-		Vector<Formula> left = new Vector<Formula>();
-		Vector<Formula> right = new Vector<Formula>();
-		Vector<ProofTreeNode> result = new Vector<ProofTreeNode>();
-		if(majorOperator.equals(Formula.DISJUNCTION)) {
-			left.add(majorOperands.get(0));
-			right.add(majorOperands.get(1));
-			result.add(new ProofTreeNode(left));
-			result.add(new ProofTreeNode(right));
-			node.tickFormula(formula);
-		} else if(majorOperator.equals(Formula.CONJUNCTION)) {
-			left.add(majorOperands.get(0));
-			left.add(majorOperands.get(1));
-			result.add(new ProofTreeNode(left));
-			node.tickFormula(formula);
-		} else if(majorOperator.equals(Formula.IFTHEN)) {
-			left.add(majorOperands.get(0).getNegation());
-			right.add(majorOperands.get(1));
-			result.add(new ProofTreeNode(left));
-			result.add(new ProofTreeNode(right));
-			node.tickFormula(formula);
-		} else if(majorOperator.equals(Formula.IFF)) {
-			left.add(majorOperands.get(0));
-			left.add(majorOperands.get(1));
-			right.add(majorOperands.get(0).getNegation());
-			right.add(majorOperands.get(1).getNegation());
-			result.add(new ProofTreeNode(left));
-			result.add(new ProofTreeNode(right));
-			node.tickFormula(formula);
-		} else if(majorOperator.startsWith(Formula.FORALL)) {
-			Vector<Formula> newFormulae = new Vector<Formula>();
-			String var = majorOperator.substring(1);
-			Formula subformula = majorOperands.get(0);
-			boolean added = false;
-			for(Iterator<ProofTreeNode> leaves = tree.getLeavesBelow(node).iterator(); leaves.hasNext();) {
-				for(Iterator<String> constants = leaves.next().getConstantsFrom(); constants.hasNext();) {
-					Formula newFormula = subformula.substitute(var, constants.next());
-					if(!newFormulae.contains(newFormula)) {
-						added = true;
-						newFormulae.add(newFormula);
-					}
-				}
-			}
-			if(!added) {
-				newFormulae.add(subformula.substitute(var, "a"));
-			}
-			result.add(new ProofTreeNode(newFormulae));
-		} else if(majorOperator.startsWith(Formula.EXISTS)) {
-			String var = majorOperator.substring(1);
-			Formula subformula = majorOperands.get(0);
-			String con = "";
-			for(Iterator<String> constants = node.getConstantsFrom(); constants.hasNext();) {
-				con += constants.next();
-			}
-			String newconstant;
-			if(con.equals("")) {
-				newconstant = "a";
-			} else {
-				newconstant = "abcdefghijklmnopqrstuvwxyz".replaceAll("[" + con + "]", "");
-				if(newconstant.length() > 0) {
-					newconstant = newconstant.substring(0, 1);
-				} else {
-					newconstant = "*";
-				}
-			}
-			Formula newFormula = subformula.substitute(var, newconstant);
-			Vector<Formula> newFormulae = new Vector<Formula>();
-			newFormulae.add(newFormula);
-			result.add(new ProofTreeNode(newFormulae));
-			node.tickFormula(formula);
-		} else if(majorOperator.equals(Formula.NEGATION)) {
-			String nextMajorOperator = majorOperands.get(0).getMajorOperator();
-			Vector<Formula> nextMajorOperands = majorOperands.get(0).getMajorOperands();
-			if(nextMajorOperator.equals(Formula.DISJUNCTION)) {
-				left.add(nextMajorOperands.get(0).getNegation());
-				left.add(nextMajorOperands.get(1).getNegation());
-				result.add(new ProofTreeNode(left));
-				node.tickFormula(formula);
-			} else if(nextMajorOperator.equals(Formula.CONJUNCTION)) {
-				left.add(nextMajorOperands.get(0).getNegation());
-				right.add(nextMajorOperands.get(1).getNegation());
-				result.add(new ProofTreeNode(left));
-				result.add(new ProofTreeNode(right));
-				node.tickFormula(formula);
-			} else if(nextMajorOperator.equals(Formula.IFTHEN)) {
-				left.add(nextMajorOperands.get(0));
-				left.add(nextMajorOperands.get(1).getNegation());
-				result.add(new ProofTreeNode(left));
-				node.tickFormula(formula);
-			} else if(nextMajorOperator.equals(Formula.IFF)) {
-				left.add(nextMajorOperands.get(0));
-				left.add(nextMajorOperands.get(1).getNegation());
-				right.add(nextMajorOperands.get(0).getNegation());
-				right.add(nextMajorOperands.get(1));
-				result.add(new ProofTreeNode(left));
-				result.add(new ProofTreeNode(right));
-				node.tickFormula(formula);
-			} else if(nextMajorOperator.startsWith(Formula.FORALL)) {
-				left.add(new Formula(Formula.EXISTS + nextMajorOperator.substring(1) + Formula.NEGATION + nextMajorOperands.get(0)));
-				result.add(new ProofTreeNode(left));
-				node.tickFormula(formula);
-			} else if(nextMajorOperator.startsWith(Formula.EXISTS)) {
-				left.add(new Formula(Formula.FORALL + nextMajorOperator.substring(1) + Formula.NEGATION + nextMajorOperands.get(0)));
-				result.add(new ProofTreeNode(left));
-				node.tickFormula(formula);
-			} else if(nextMajorOperator.equals(Formula.NEGATION)) {
-				left.add(nextMajorOperands.get(0));
-				result.add(new ProofTreeNode(left));
-				node.tickFormula(formula);
-			}
-		}
-		return(result);
-	}
-
-	/**
-	 * Returns a condition that prefers rule applications which create an
-	 * immediate contradiction.
-	 *
-	 * @return a condition that prefers rule applications which create an
-	 * immediate contradiction
-	 */
-	private static Condition getMakesContradictionCondition() {
-		return(new Condition() {
-			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
-				Vector<ProofTreeNode> newNodes = applyRule(tree, node, formula);
-				if(newNodes.size() == 0) {
-					node.untickFormula(formula);
-					return(false);
-				}
-				boolean contradiction = false;
-				for(Iterator<ProofTreeNode> leaves = tree.getLeavesBelow(node).iterator(); leaves.hasNext() && !contradiction;) {
-					ProofTreeNode leaf = leaves.next();
-					for(Iterator<ProofTreeNode> children = newNodes.iterator(); children.hasNext() && !contradiction;) {
-						ProofTreeNode child = (ProofTreeNode)children.next().clone();
-						tree.addChild(leaf, child);
-						contradiction = tree.checkContradictionFrom(child);
-						tree.removeChild(leaf, child);
-					}
-				}
-				node.untickFormula(formula);
-				return(contradiction);
-			}
-		});
-	}
-
-	/**
-	 * Returns a condition that prefers quantifier negation rules.
-	 *
-	 * @return a condition that prefers quantifier negation rules
-	 */
-	private static Condition getQuantifierNegationCondition() {
-		return(new Condition() {
-			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
-				String majorOperator = formula.getMajorOperator();
-				if(majorOperator.equals(Formula.NEGATION)) {
-					String nextOperator = formula.getMajorOperands().get(0).getMajorOperator();
-					if(nextOperator.startsWith(Formula.FORALL)) {
-						return(true);
-					} else if(nextOperator.startsWith(Formula.EXISTS)) {
-						return(true);
-					} else {
-						return(false);
-					}
-				} else {
-					return(false);
-				}
-			}
-		});
-	}
-
-	/**
-	 * Returns a condition that prefers non-branching sentential rules.
-	 *
-	 * @return a condition that prefers non-branching sentential rules
-	 */
-	private static Condition getNonBranchingSententialCondition() {
-		return(new Condition() {
-			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
-				String majorOperator = formula.getMajorOperator();
-				if(majorOperator.equals(Formula.DISJUNCTION)) {
-					return(false);
-				} else if(majorOperator.equals(Formula.CONJUNCTION)) {
-					return(true);
-				} else if(majorOperator.equals(Formula.IFTHEN)) {
-					return(false);
-				} else if(majorOperator.equals(Formula.IFF)) {
-					return(false);
-				} else if(majorOperator.startsWith(Formula.FORALL)) {
-					return(false);
-				} else if(majorOperator.startsWith(Formula.EXISTS)) {
-					return(false);
-				} else if(majorOperator.equals(Formula.NEGATION)) {
-					String nextOperator = formula.getMajorOperands().get(0).getMajorOperator();
-					if(nextOperator.equals(Formula.DISJUNCTION)) {
-						return(true);
-					} else if(nextOperator.equals(Formula.CONJUNCTION)) {
-						return(false);
-					} else if(nextOperator.equals(Formula.IFTHEN)) {
-						return(true);
-					} else if(nextOperator.equals(Formula.IFF)) {
-						return(false);
-					} else if(nextOperator.startsWith(Formula.FORALL)) {
-						return(false);
-					} else if(nextOperator.startsWith(Formula.EXISTS)) {
-						return(false);
-					} else if(nextOperator.equals(Formula.NEGATION)) {
-						return(true);
-					} else {
-						return(false);
-					}
-				} else {
-					return(false);
-				}
-			}
-		});
-	}
-
-	/**
-	 * Returns a condition that prefers the existential instantiation rule.
-	 *
-	 * @return a condition that prefers the existential instantiation rule
-	 */
-	private static Condition getExistentialInstantiationCondition() {
-		return(new Condition() {
-			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
-				return(formula.getMajorOperator().startsWith(Formula.EXISTS));
-			}
-		});
-	}
-
-	/**
-	 * Returns a condition that prefers the universal instantiation rule.
-	 *
-	 * @return a condition that prefers the universal instantiation rule
-	 */
-	private static Condition getUniversalInstantiationCondition() {
-		return(new Condition() {
-			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
-				return(formula.getMajorOperator().startsWith(Formula.FORALL));
-			}
-		});
-	}
-
-	/**
-	 * Returns a condition that prefers branching sentential rules.
-	 *
-	 * @return a condition that prefers branching sentential rules
-	 */
-	private static Condition getBranchingSententialCondition() {
-		return(new Condition() {
-			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
-				String majorOperator = formula.getMajorOperator();
-				if(majorOperator.equals(Formula.DISJUNCTION)) {
-					return(true);
-				} else if(majorOperator.equals(Formula.CONJUNCTION)) {
-					return(false);
-				} else if(majorOperator.equals(Formula.IFTHEN)) {
-					return(true);
-				} else if(majorOperator.equals(Formula.IFF)) {
-					return(true);
-				} else if(majorOperator.startsWith(Formula.FORALL)) {
-					return(false);
-				} else if(majorOperator.startsWith(Formula.EXISTS)) {
-					return(false);
-				} else if(majorOperator.equals(Formula.NEGATION)) {
-					String nextOperator = formula.getMajorOperands().get(0).getMajorOperator();
-					if(nextOperator.equals(Formula.DISJUNCTION)) {
-						return(false);
-					} else if(nextOperator.equals(Formula.CONJUNCTION)) {
-						return(true);
-					} else if(nextOperator.equals(Formula.IFTHEN)) {
-						return(false);
-					} else if(nextOperator.equals(Formula.IFF)) {
-						return(true);
-					} else if(nextOperator.startsWith(Formula.FORALL)) {
-						return(false);
-					} else if(nextOperator.startsWith(Formula.EXISTS)) {
-						return(false);
-					} else if(nextOperator.equals(Formula.NEGATION)) {
-						return(false);
-					} else {
-						return(false);
-					}
-				} else {
-					return(false);
-				}
-			}
-		});
-	}
-
-	/**
-	 * Returns a condition that prefers any rule.
-	 *
-	 * @return a condition that prefers any rule
-	 */
-	private static Condition getWildCardCondition() {
-		return(new Condition() {
-			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
-				return(!formula.isAtom());
-			}
-		});
-	}
-}
-
-/**
- * The <code>Condition</code> class represents a condition for rule application,
- * i.e., a preference in the order that a rule is applied.
- */
-abstract class Condition {
-	/**
-	 * Answers whether or not an application of a tree rule to the given formula
-	 * in the given node in the given tree satisfies a condition to be
-	 * determined by implementations of this class.
-	 *
-	 * @param tree the tree to which a tree rule is to be applied
-	 * @param node the node to which a tree rule is to be applied
-	 * @param formula the formula to which a tree rule is to be applied
-	 * @return <code>true</code> if the condition is satisfied; <code>false
-	 *  </code> otherwise
-	 */
-	public abstract boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula);
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * The <code>ProofTreeGenerator</code> class generates a proof tree. Proof trees
+ * themselves are described in detail the accompanying paper. Essentially, proof
+ * trees are trees representing derivations of proofs for (in this case) first
+ * order logic. The tree is built by applying various tree rules. These rules
+ * can be applied in different orders, and the goal of this class is to apply
+ * them in such a way as to minimize proof tree size as much as possible.
+ * Additionally, since first order logic is undecidable, some proof trees may
+ * not have finite length, i.e., the generation algorithm may not terminate. The
+ * heuristics used to apply the rules try to avoid this, but they cannot do
+ * this in all cases.
+ * <p>
+ * When only the validity of an argument is needed, the branches of its tree
+ * may instead be expanded one at a time.
+ */
+public class ProofTreeGenerator {
+	/**
+	 * Generate a proof tree for the given argument.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @return a <code>ProofTree</code> object representing a proof tree for
+	 *  this argument (although termination is not guaranteed); if the current
+	 *  thread is interrupted, generation stops and the tree is incomplete
+	 */
+	public static ProofTree generateProofTree(Vector<Formula> premises, Formula conclusion) {
+		return(generateProofTree(premises, conclusion, new Budget()));
+	}
+
+	/**
+	 * Generate a proof tree for the given argument within the given budget.
+	 * If the budget runs out (or is cancelled, or the current thread is
+	 * interrupted) before the tree is complete, the partial tree built so far
+	 * is returned, and is marked as incomplete so that its outcome is unknown
+	 * unless it already closes.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @param budget the budget limiting the work done
+	 * @return a <code>ProofTree</code> object representing a proof tree, which
+	 *  may be incomplete, for this argument
+	 * @see ProofTree#getOutcome()
+	 */
+	public static ProofTree generateProofTree(Vector<Formula> premises, Formula conclusion, Budget budget) {
+		return(generateProofTree(premises, conclusion, budget, false));
+	}
+
+	/**
+	 * Generate a proof tree for the given argument within the given budget,
+	 * possibly blocking branches which repeat themselves. When blocking, an
+	 * existentially quantified formula about a constant is not instantiated
+	 * if every formula about that constant alone also holds of some constant
+	 * introduced before it on the branch, since the new constant would only
+	 * repeat the earlier one. Search then stops on arguments which would
+	 * otherwise introduce new constants forever, and an open branch is
+	 * reported instead.
+	 * <p>
+	 * Blocking never makes a tree close, so a valid outcome is always
+	 * correct. An open branch stopped by blocking shows the argument to be
+	 * invalid only in the monadic fragment, where no predicate takes more
+	 * than one term; outside it, the outcome is unknown unless some open
+	 * branch was fully expanded.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @param budget the budget limiting the work done
+	 * @param blocking <code>true</code> to block branches which repeat
+	 *  themselves; <code>false</code> otherwise
+	 * @return a <code>ProofTree</code> object representing a proof tree, which
+	 *  may be incomplete, for this argument
+	 * @see #generateProofTree(Vector, Formula, Budget)
+	 */
+	public static ProofTree generateProofTree(Vector<Formula> premises, Formula conclusion, Budget budget, boolean blocking) {
+		ProofTree tree = generateInitialTree(premises, conclusion, blocking);
+
+		if(tree.checkContradictionFrom(tree.getRoot())) {
+			tree.close(tree.getRoot());
+			return(tree);
+		}
+
+		applyRulesWithPreferences(tree, getPreferences(), budget);
+		return(tree);
+	}
+
+	/**
+	 * Decides whether or not the given argument is valid, without keeping its
+	 * proof tree.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @return <code>true</code> if the argument is valid; <code>false</code>
+	 *  otherwise (although termination is not guaranteed)
+	 * @see #decide(Vector, Formula, Budget, boolean)
+	 */
+	public static boolean isValid(Vector<Formula> premises, Formula conclusion) {
+		return(decide(premises, conclusion, new Budget()).equals(ProofTree.VALID));
+	}
+
+	/**
+	 * Decides whether or not the given argument is valid within the given
+	 * budget, without keeping its proof tree. The branches of the tree are
+	 * expanded one at a time, depth-first, sharing an agenda which is returned
+	 * to the state it was in when a branch was split off before that branch
+	 * is expanded. Each branch which closes is removed from the tree, so only the branch being
+	 * expanded and the branches waiting to be expanded are kept, and memory
+	 * use grows with the depth of the tree rather than its size. The first
+	 * branch found to be open once no more rules apply shows the argument to
+	 * be invalid, and the search stops there.
+	 * <p>
+	 * If neither the premises nor the conclusion contain a quantifier, no tree
+	 * is built at all: the premises and negated conclusion are given to a
+	 * <code>SatSolver</code>, and the argument is valid exactly when they
+	 * cannot all be true at once.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @param budget the budget limiting the work done
+	 * @return <code>ProofTree.VALID</code> if the argument is valid, <code>
+	 *  ProofTree.INVALID</code> if it is invalid, or <code>ProofTree.UNKNOWN
+	 *  </code> if the budget ran out first
+	 * @see ProofBranch
+	 * @see SatSolver
+	 */
+	public static String decide(Vector<Formula> premises, Formula conclusion, Budget budget) {
+		return(decide(premises, conclusion, budget, false));
+	}
+
+	/**
+	 * Decides whether or not the given argument is valid within the given
+	 * budget, without keeping its proof tree, possibly blocking branches
+	 * which repeat themselves. A branch stopped by blocking outside the
+	 * monadic fragment is set aside rather than showing the argument to be
+	 * invalid, and if no other branch is open the outcome is unknown.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @param budget the budget limiting the work done
+	 * @param blocking <code>true</code> to block branches which repeat
+	 *  themselves; <code>false</code> otherwise
+	 * @return <code>ProofTree.VALID</code> if the argument is valid, <code>
+	 *  ProofTree.INVALID</code> if it is invalid, or <code>ProofTree.UNKNOWN
+	 *  </code> if the budget ran out first or blocking left it undecided
+	 * @see #decide(Vector, Formula, Budget)
+	 * @see #generateProofTree(Vector, Formula, Budget, boolean)
+	 */
+	public static String decide(Vector<Formula> premises, Formula conclusion, Budget budget, boolean blocking) {
+		if(isPropositional(premises, conclusion)) {
+			SatSolver solver = new SatSolver();
+			for(Iterator<Formula> i = premises.iterator(); i.hasNext();) {
+				if(!solver.addFormula(i.next(), budget)) {
+					return(ProofTree.UNKNOWN);
+				}
+			}
+			if(!solver.addFormula(conclusion.getNegation(), budget)) {
+				return(ProofTree.UNKNOWN);
+			}
+			int result = solver.solve(budget);
+			if(result == SatSolver.UNSATISFIABLE) {
+				return(ProofTree.VALID);
+			} else if(result == SatSolver.SATISFIABLE) {
+				return(ProofTree.INVALID);
+			}
+			return(ProofTree.UNKNOWN);
+		}
+
+		ProofTree tree = generateInitialTree(premises, conclusion, blocking);
+
+		if(tree.checkContradictionFrom(tree.getRoot())) {
+			return(ProofTree.VALID);
+		}
+
+		boolean sound = !tree.isBlocking() || isMonadic(tree.getRoot());
+		boolean blocked = false;
+		Vector<ProofBranch> pending = new Vector<ProofBranch>();
+		pending.add(new ProofBranch(tree, getPreferences()));
+		while(pending.size() > 0) {
+			ProofBranch branch = pending.remove(pending.size() - 1);
+			branch.resume(pending.size() == 0);
+			Vector<ProofBranch> branches = expandBranch(tree, branch, budget);
+			if(!tree.isComplete()) {
+				return(ProofTree.UNKNOWN);
+			} else if(branches.size() > 0) {
+				pending.add(branches.get(1));
+				pending.add(branches.get(0));
+			} else if(tree.closesFrom(branch.getLeaf())) {
+				removeClosed(tree, branch.getLeaf());
+			} else if(sound || !branch.getAgenda().isBlockedFrom(branch.getLeaf())) {
+				return(ProofTree.INVALID);
+			} else {
+				blocked = true;
+			}
+		}
+		return(blocked ? ProofTree.UNKNOWN : ProofTree.VALID);
+	}
+
+	/**
+	 * Answers whether or not neither the premises nor the conclusion of the
+	 * given argument contain a quantifier.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @return <code>true</code> if the argument is propositional; <code>false
+	 *  </code> otherwise
+	 */
+	private static boolean isPropositional(Vector<Formula> premises, Formula conclusion) {
+		for(Iterator<Formula> i = premises.iterator(); i.hasNext();) {
+			if(!SatSolver.isPropositional(i.next())) {
+				return(false);
+			}
+		}
+		return(SatSolver.isPropositional(conclusion));
+	}
+
+	/**
+	 * Removes the largest closed subtree containing the given closed node
+	 * from the tree, so that it may be garbage collected. The root is never
+	 * removed.
+	 *
+	 * @param tree the tree from which the subtree is to be removed
+	 * @param node a node with no open leaves below it
+	 */
+	private static void removeClosed(ProofTree tree, ProofTreeNode node) {
+		while(node.getParent() != null && tree.closesFrom(node.getParent())) {
+			node = node.getParent();
+		}
+		if(node.getParent() != null) {
+			tree.removeChild(node.getParent(), node);
+		}
+	}
+
+	/**
+	 * Returns the preferences used to generate proof trees, in the order in
+	 * which they are to be applied.
+	 *
+	 * @return a list of preferences, in the order in which they are to be
+	 *  applied
+	 */
+	private static Vector<Condition> getPreferences() {
+		Vector<Condition> preferences = new Vector<Condition>();
+		preferences.add(getMakesContradictionCondition());
+		preferences.add(getQuantifierNegationCondition());
+		preferences.add(getNonBranchingSententialCondition());
+		preferences.add(getExistentialInstantiationCondition());
+		preferences.add(getUniversalInstantiationCondition());
+		preferences.add(getBranchingSententialCondition());
+		preferences.add(getWildCardCondition());
+		return(preferences);
+	}
+
+	/**
+	 * Generate an initial tree for the given argument.
+	 * 
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument.
+	 * @param blocking whether or not branches which repeat themselves are to
+	 *  be blocked
+	 * @return a <code>ProofTree</code> object representing an initial proof
+	 * proof tree for the argument
+	 */
+	private static ProofTree generateInitialTree(Vector<Formula> premises, Formula conclusion, boolean blocking) {
+		Vector<Formula> rootFormulae = new Vector<Formula>();
+		rootFormulae.addAll(premises);
+		rootFormulae.add(conclusion.getNegation());
+		ProofTree tree = new ProofTree(new ProofTreeNode(rootFormulae));
+		tree.setBlocking(blocking);
+		return(tree);
+	}
+
+	/**
+	 * Apply the tree rules using the given preferences. Preferences describe
+	 * the order in which rule should be applied. Pending rule applications are
+	 * kept in an <code>Agenda</code>, which hands out the most preferred one at
+	 * each stage, and is told about every node added to the tree. Rules are
+	 * applied until the tree closes or the agenda is empty, or until the
+	 * budget runs out, in which case the tree is marked as incomplete.
+	 *
+	 * @param tree the tree to which the tree rules are to be applied
+	 * @param preferences a list of preferences, in the order in which they are
+	 *  to be applied
+	 * @param budget the budget limiting the work done
+	 * @see Agenda
+	 */
+	private static void applyRulesWithPreferences(ProofTree tree, Vector<Condition> preferences, Budget budget) {
+		Agenda agenda = new Agenda(tree, preferences);
+		agenda.add(tree.getRoot());
+		Vector<ProofTreeNode> added = new Vector<ProofTreeNode>();
+		Agenda.Entry entry;
+		while(!tree.closes() && (entry = agenda.next()) != null) {
+			if(budget.isExhausted()) {
+				tree.markIncomplete();
+				return;
+			}
+			ProofTreeNode node = entry.getNode();
+			Vector<ProofTreeNode> newLeaves = applyRule(tree, node, entry.getPosition());
+			added.clear();
+			if(newLeaves.size() > 0) {
+				tree.addLeavesBelow(node, newLeaves, added);
+			}
+			budget.charge(added.size());
+			if(newLeaves.size() == 0 && entry.getFormula().getMajorOperator().startsWith(Formula.EXISTS)) {
+				agenda.block(entry);
+			} else if(!node.isTicked(entry.getPosition())) {
+				agenda.sleep(entry);
+			}
+			for(Iterator<ProofTreeNode> i = added.iterator(); i.hasNext();) {
+				ProofTreeNode child = i.next();
+				if(entry.getFormula().getMajorOperator().startsWith(Formula.FORALL)) {
+					child.setUniversal(entry.getFormula());
+				}
+				agenda.add(child);
+			}
+		}
+		if(!tree.closes() && isStoppedByBlocking(tree, agenda)) {
+			tree.markIncomplete();
+		}
+	}
+
+	/**
+	 * Answers whether or not every open branch of the given tree, to which no
+	 * more rules apply, was stopped by blocking where blocking may be
+	 * unsound. Blocking is known to be sound only in the monadic fragment,
+	 * i.e., when no predicate of the argument takes more than one term; in
+	 * that case, or if some open branch was fully expanded, the open branches
+	 * show the argument to be invalid.
+	 *
+	 * @param tree the tree, which does not close
+	 * @param agenda the agenda used to generate the tree
+	 * @return <code>true</code> if the open branches do not show the argument
+	 *  to be invalid; <code>false</code> otherwise
+	 * @see #generateProofTree(Vector, Formula, Budget, boolean)
+	 */
+	private static boolean isStoppedByBlocking(ProofTree tree, Agenda agenda) {
+		if(!tree.isBlocking() || isMonadic(tree.getRoot())) {
+			return(false);
+		}
+		for(Iterator<ProofTreeNode> i = tree.getLeavesBelow(tree.getRoot()).iterator(); i.hasNext();) {
+			ProofTreeNode leaf = i.next();
+			if(!tree.closesFrom(leaf) && !agenda.isBlockedFrom(leaf)) {
+				return(false);
+			}
+		}
+		return(true);
+	}
+
+	/**
+	 * Answers whether or not every formula in the given node is in the
+	 * monadic fragment. For the root of a tree, these are the premises and
+	 * the negated conclusion of the argument.
+	 *
+	 * @param node the node to be examined
+	 * @return <code>true</code> if no predicate in the node takes more than
+	 *  one term; <code>false</code> otherwise
+	 * @see Formula#isMonadic()
+	 */
+	private static boolean isMonadic(ProofTreeNode node) {
+		for(int i = 0; i < node.getFormulaCount(); i++) {
+			if(!node.getFormula(i).isMonadic()) {
+				return(false);
+			}
+		}
+		return(true);
+	}
+
+	/**
+	 * Apply the tree rules to a single branch using the preferences of its
+	 * agenda, until the branch closes, no more rules apply, the branch splits
+	 * in two, or the budget runs out, in which case the tree is marked as
+	 * incomplete. The branch also closes when every node a rule adds below
+	 * its leaf closes. Formulae are not ticked, since the same node may lie
+	 * on several branches; the agenda of the branch records which rules have
+	 * been applied instead.
+	 *
+	 * @param tree the tree to which the branch belongs
+	 * @param branch the branch to which the tree rules are to be applied
+	 * @param budget the budget limiting the work done
+	 * @return the two open branches into which the branch split, or an empty
+	 *  list if the branch closed, no more rules apply or the budget ran out
+	 */
+	private static Vector<ProofBranch> expandBranch(ProofTree tree, ProofBranch branch, Budget budget) {
+		Vector<ProofBranch> result = new Vector<ProofBranch>();
+		Agenda agenda = branch.getAgenda();
+		Vector<ProofTreeNode> newLeaves = new Vector<ProofTreeNode>();
+		Vector<ProofTreeNode> added = new Vector<ProofTreeNode>();
+		Agenda.Entry entry;
+		while(!branch.getLeaf().isClosed() && (entry = agenda.next()) != null) {
+			if(budget.isExhausted()) {
+				tree.markIncomplete();
+				break;
+			}
+			ProofTreeNode node = entry.getNode();
+			Formula formula = entry.getFormula();
+			newLeaves.clear();
+			for(Iterator<List<Formula>> i = getRuleBranches(branch, node, formula).iterator(); i.hasNext();) {
+				newLeaves.add(new ProofTreeNode(i.next()));
+			}
+			if(formula.getMajorOperator().startsWith(Formula.FORALL)) {
+				agenda.sleep(entry);
+			} else if(newLeaves.size() == 0 && formula.getMajorOperator().startsWith(Formula.EXISTS)) {
+				agenda.block(entry);
+			}
+			added.clear();
+			if(newLeaves.size() > 0) {
+				branch.addLeavesBelow(node, newLeaves, added);
+			}
+			budget.charge(added.size());
+			if(added.size() == 0) {
+				continue;
+			}
+			for(Iterator<ProofTreeNode> i = added.iterator(); i.hasNext();) {
+				ProofTreeNode child = i.next();
+				if(formula.getMajorOperator().startsWith(Formula.FORALL)) {
+					child.setUniversal(formula);
+				}
+				if(child.isClosed()) {
+					i.remove();
+				}
+			}
+			if(added.size() == 0) {
+				break;
+			} else if(added.size() == 1) {
+				branch.extendTo(added.get(0));
+			} else {
+				for(Iterator<ProofTreeNode> i = added.iterator(); i.hasNext();) {
+					result.add(branch.split(i.next()));
+				}
+				break;
+			}
+		}
+		return(result);
+	}
+
+	/**
+	 * Apply a tree rule to the given formula in the given node to the tree.
+	 * Note that any given formula can only have one tree rule applied to it,
+	 * so this method will work on any node/formula combination. No regard is
+	 * given to rule preference; this is the caller's responsibility.
+	 *
+	 * @param tree the tree to which a tree rule is to be applied
+	 * @param node the node to which a tree rule is to be applied
+	 * @param position the position in the node of the formula to which a tree
+	 *  rule is to be applied
+	 * @return the nodes created as a result of the rule application (the
+	 *  caller is responsible for adding these nodes to the tree in a
+	 *  semantically correct way)
+	 * @see #getRuleBranches(ProofTree, ProofTreeNode, Formula)
+	 */
+	private static Vector<ProofTreeNode> applyRule(ProofTree tree, ProofTreeNode node, int position) {
+		Formula formula = node.getFormula(position);
+		List<List<Formula>> branches = getRuleBranches(tree, node, formula);
+		Vector<ProofTreeNode> result = new Vector<ProofTreeNode>();
+		for(Iterator<List<Formula>> i = branches.iterator(); i.hasNext();) {
+			result.add(new ProofTreeNode(i.next()));
+		}
+		if(branches.size() > 0 && !formula.getMajorOperator().startsWith(Formula.FORALL)) {
+			node.tickFormula(position);
+		}
+		return(result);
+	}
+
+	/**
+	 * Returns the branches that applying a tree rule to the given formula in
+	 * the given node would produce, without changing the tree. Each branch is
+	 * a list of the formulae of one new node.
+	 *
+	 * @param tree the tree to which a tree rule would be applied
+	 * @param node the node to which a tree rule would be applied
+	 * @param formula the formula to which a tree rule would be applied
+	 * @return the branches produced by the rule application, or an empty list
+	 *  if no rule applies to the formula
+	 * @see Formula#getRuleBranches()
+	 */
+	private static List<List<Formula>> getRuleBranches(ProofTree tree, ProofTreeNode node, Formula formula) {
+		String majorOperator = formula.getMajorOperator();
+		if(majorOperator.startsWith(Formula.FORALL)) {
+			Vector<Formula> newFormulae = new Vector<Formula>();
+			boolean constants = false;
+			Vector<ProofTreeNode> leaves = tree.getLeavesBelow(node);
+			for(Iterator<ProofTreeNode> i = leaves.iterator(); i.hasNext();) {
+				ProofTreeNode leaf = i.next();
+				constants |= (leaf.getConstantCountFrom() > 0);
+				for(Iterator<String> j = leaf.getConstantsFrom(getInstantiatedCount(node, leaf, formula)).iterator(); j.hasNext();) {
+					Formula newFormula = formula.instantiate(j.next());
+					if(!newFormulae.contains(newFormula)) {
+						newFormulae.add(newFormula);
+					}
+				}
+			}
+			if(!constants) {
+				newFormulae.add(formula.instantiate(getFreshConstant(leaves)));
+			}
+			if(newFormulae.size() == 0) {
+				return(Collections.<List<Formula>>emptyList());
+			}
+			return(Collections.<List<Formula>>singletonList(newFormulae));
+		} else if(majorOperator.startsWith(Formula.EXISTS)) {
+			Vector<ProofTreeNode> leaves = tree.getLeavesBelow(node);
+			if(tree.isBlocking() && isBlocked(leaves, formula)) {
+				return(Collections.<List<Formula>>emptyList());
+			}
+			Formula newFormula = formula.instantiate(getFreshConstant(leaves));
+			return(Collections.<List<Formula>>singletonList(Collections.singletonList(newFormula)));
+		} else {
+			return(formula.getRuleBranches());
+		}
+	}
+
+	/**
+	 * Returns the number of constants of the branch of the given leaf for
+	 * which the given universally quantified formula has already been
+	 * instantiated below the given node, i.e., the number of constants above
+	 * the nearest node holding instances of the formula. The nodes of the
+	 * branch thus serve as a ledger of the instances made, so that only
+	 * constants introduced since then need to be considered.
+	 *
+	 * @param node the node containing the formula
+	 * @param leaf a leaf below the node
+	 * @param formula the universally quantified formula
+	 * @return the number of constants of the branch already used
+	 * @see ProofTreeNode#getConstantsFrom(int)
+	 */
+	private static int getInstantiatedCount(ProofTreeNode node, ProofTreeNode leaf, Formula formula) {
+		for(ProofTreeNode current = leaf; current != node; current = current.getParent()) {
+			if(current.getUniversal() == formula) {
+				return(current.getParent().getConstantCountFrom());
+			}
+		}
+		return(0);
+	}
+
+	/**
+	 * Answers whether or not instantiating the given existentially quantified
+	 * formula is blocked on the branch of each of the given leaves. It is
+	 * blocked on a branch if one of its constants is, i.e., if the formulae
+	 * on the branch about that constant alone are, up to renaming, among
+	 * those about some constant introduced before it. The new constant would
+	 * then only repeat what an earlier one has already been shown to repeat.
+	 *
+	 * @param leaves the leaves below the node containing the formula
+	 * @param formula the existentially quantified formula
+	 * @return <code>true</code> if the formula is blocked below every leaf;
+	 *  <code>false</code> otherwise
+	 * @see #generateProofTree(Vector, Formula, Budget, boolean)
+	 */
+	private static boolean isBlocked(Vector<ProofTreeNode> leaves, Formula formula) {
+		Vector<String> constants = formula.getConstants();
+		if(constants.size() == 0 || leaves.size() == 0) {
+			return(false);
+		}
+		for(Iterator<ProofTreeNode> i = leaves.iterator(); i.hasNext();) {
+			ProofTreeNode leaf = i.next();
+			Vector<String> order = leaf.getConstantsFrom(0);
+			HashMap<String, HashSet<Formula>> labels = getLabels(leaf);
+			boolean blocked = false;
+			for(Iterator<String> j = constants.iterator(); j.hasNext() && !blocked;) {
+				String constant = j.next();
+				HashSet<Formula> label = labels.get(constant);
+				for(int k = 0; k < order.indexOf(constant) && !blocked; k++) {
+					HashSet<Formula> earlier = labels.get(order.get(k));
+					blocked = (label == null) || (earlier != null && earlier.containsAll(label));
+				}
+			}
+			if(!blocked) {
+				return(false);
+			}
+		}
+		return(true);
+	}
+
+	/**
+	 * Returns the label of each constant on the branch of the given leaf,
+	 * i.e., the set of formulae on the branch in which that constant is the
+	 * only one to occur, with the constant replaced by <code>
+	 * Formula.PLACEHOLDER</code> so that the labels of different constants
+	 * can be compared.
+	 *
+	 * @param leaf the leaf of the branch
+	 * @return the labels of the constants which have one
+	 */
+	private static HashMap<String, HashSet<Formula>> getLabels(ProofTreeNode leaf) {
+		HashMap<String, HashSet<Formula>> result = new HashMap<String, HashSet<Formula>>();
+		for(Iterator<Formula> i = leaf.getFormulaeFrom(); i.hasNext();) {
+			Formula formula = i.next();
+			Vector<String> constants = formula.getConstants();
+			if(constants.size() == 1) {
+				String constant = constants.get(0);
+				HashSet<Formula> label = result.get(constant);
+				if(label == null) {
+					label = new HashSet<Formula>();
+					result.put(constant, label);
+				}
+				label.add(formula.substitute(constant, Formula.PLACEHOLDER));
+			}
+		}
+		return(result);
+	}
+
+	/**
+	 * Returns a constant which is new to the branch of each of the given
+	 * leaves, i.e., which is neither a constant nor a bound variable on any of
+	 * those branches. The search starts from the first constant new to each
+	 * branch on its own, which is known for every node, so it usually takes
+	 * one step per leaf.
+	 *
+	 * @param leaves the leaves below which the constant is to be used
+	 * @return a constant new to the branch of each leaf
+	 * @see Formula#getFreshConstant(int)
+	 */
+	private static String getFreshConstant(Vector<ProofTreeNode> leaves) {
+		int fresh = 0;
+		for(Iterator<ProofTreeNode> i = leaves.iterator(); i.hasNext();) {
+			fresh = Math.max(fresh, i.next().getFreshFrom());
+		}
+		String constant = Formula.getFreshConstant(fresh);
+		for(int i = 0; i < leaves.size(); i++) {
+			if(leaves.get(i).containsNameFrom(constant)) {
+				constant = Formula.getFreshConstant(++fresh);
+				i = -1;
+			}
+		}
+		return(constant);
+	}
+
+	/**
+	 * Returns a condition that prefers rule applications which create an
+	 * immediate contradiction. The condition only looks ahead at the nodes the
+	 * rule would add below each leaf; it never changes the tree, so it may be
+	 * evaluated from several threads at once. The rule branches of a formula
+	 * which is not quantified do not depend on the tree, so whether they
+	 * contradict a branch changes only when an atom contradicting one of them
+	 * is added to it.
+	 *
+	 * @return a condition that prefers rule applications which create an
+	 * immediate contradiction
+	 */
+	private static Condition getMakesContradictionCondition() {
+		return(new Condition() {
+			public boolean dependsOnTree() {
+				return(true);
+			}
+
+			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
+				List<List<Formula>> branches = getRuleBranches(tree, node, formula);
+				if(branches.size() == 0) {
+					return(false);
+				}
+				for(Iterator<ProofTreeNode> leaves = tree.getLeavesBelow(node).iterator(); leaves.hasNext();) {
+					ProofTreeNode leaf = leaves.next();
+					for(Iterator<List<Formula>> i = branches.iterator(); i.hasNext();) {
+						if(leaf.wouldContradict(i.next())) {
+							return(true);
+						}
+					}
+				}
+				return(false);
+			}
+
+			public List<Formula> getTriggers(Formula formula) {
+				String majorOperator = formula.getMajorOperator();
+				if(majorOperator.startsWith(Formula.FORALL) || majorOperator.startsWith(Formula.EXISTS)) {
+					return(null);
+				}
+				Vector<Formula> result = new Vector<Formula>();
+				for(Iterator<List<Formula>> i = formula.getRuleBranches().iterator(); i.hasNext();) {
+					for(Iterator<Formula> j = i.next().iterator(); j.hasNext();) {
+						Formula newFormula = j.next();
+						if(newFormula.isAtom()) {
+							result.add(newFormula.getNegation());
+							if(newFormula.getMajorOperator().equals(Formula.NEGATION)) {
+								result.add(newFormula.getMajorOperands().get(0));
+							}
+						}
+					}
+				}
+				return(result);
+			}
+		});
+	}
+
+	/**
+	 * Returns a condition that prefers quantifier negation rules.
+	 *
+	 * @return a condition that prefers quantifier negation rules
+	 */
+	private static Condition getQuantifierNegationCondition() {
+		return(new Condition() {
+			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
+				String majorOperator = formula.getMajorOperator();
+				if(majorOperator.equals(Formula.NEGATION)) {
+					String nextOperator = formula.getMajorOperands().get(0).getMajorOperator();
+					if(nextOperator.startsWith(Formula.FORALL)) {
+						return(true);
+					} else if(nextOperator.startsWith(Formula.EXISTS)) {
+						return(true);
+					} else {
+						return(false);
+					}
+				} else {
+					return(false);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns a condition that prefers non-branching sentential rules.
+	 *
+	 * @return a condition that prefers non-branching sentential rules
+	 */
+	private static Condition getNonBranchingSententialCondition() {
+		return(new Condition() {
+			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
+				String majorOperator = formula.getMajorOperator();
+				if(majorOperator.equals(Formula.DISJUNCTION)) {
+					return(false);
+				} else if(majorOperator.equals(Formula.CONJUNCTION)) {
+					return(true);
+				} else if(majorOperator.equals(Formula.IFTHEN)) {
+					return(false);
+				} else if(majorOperator.equals(Formula.IFF)) {
+					return(false);
+				} else if(majorOperator.startsWith(Formula.FORALL)) {
+					return(false);
+				} else if(majorOperator.startsWith(Formula.EXISTS)) {
+					return(false);
+				} else if(majorOperator.equals(Formula.NEGATION)) {
+					String nextOperator = formula.getMajorOperands().get(0).getMajorOperator();
+					if(nextOperator.equals(Formula.DISJUNCTION)) {
+						return(true);
+					} else if(nextOperator.equals(Formula.CONJUNCTION)) {
+						return(false);
+					} else if(nextOperator.equals(Formula.IFTHEN)) {
+						return(true);
+					} else if(nextOperator.equals(Formula.IFF)) {
+						return(false);
+					} else if(nextOperator.startsWith(Formula.FORALL)) {
+						return(false);
+					} else if(nextOperator.startsWith(Formula.EXISTS)) {
+						return(false);
+					} else if(nextOperator.equals(Formula.NEGATION)) {
+						return(true);
+					} else {
+						return(false);
+					}
+				} else {
+					return(false);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns a condition that prefers the existential instantiation rule.
+	 *
+	 * @return a condition that prefers the existential instantiation rule
+	 */
+	private static Condition getExistentialInstantiationCondition() {
+		return(new Condition() {
+			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
+				return(formula.getMajorOperator().startsWith(Formula.EXISTS));
+			}
+		});
+	}
+
+	/**
+	 * Returns a condition that prefers the universal instantiation rule.
+	 *
+	 * @return a condition that prefers the universal instantiation rule
+	 */
+	private static Condition getUniversalInstantiationCondition() {
+		return(new Condition() {
+			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
+				return(formula.getMajorOperator().startsWith(Formula.FORALL));
+			}
+		});
+	}
+
+	/**
+	 * Returns a condition that prefers branching sentential rules.
+	 *
+	 * @return a condition that prefers branching sentential rules
+	 */
+	private static Condition getBranchingSententialCondition() {
+		return(new Condition() {
+			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
+				String majorOperator = formula.getMajorOperator();
+				if(majorOperator.equals(Formula.DISJUNCTION)) {
+					return(true);
+				} else if(majorOperator.equals(Formula.CONJUNCTION)) {
+					return(false);
+				} else if(majorOperator.equals(Formula.IFTHEN)) {
+					return(true);
+				} else if(majorOperator.equals(Formula.IFF)) {
+					return(true);
+				} else if(majorOperator.startsWith(Formula.FORALL)) {
+					return(false);
+				} else if(majorOperator.startsWith(Formula.EXISTS)) {
+					return(false);
+				} else if(majorOperator.equals(Formula.NEGATION)) {
+					String nextOperator = formula.getMajorOperands().get(0).getMajorOperator();
+					if(nextOperator.equals(Formula.DISJUNCTION)) {
+						return(false);
+					} else if(nextOperator.equals(Formula.CONJUNCTION)) {
+						return(true);
+					} else if(nextOperator.equals(Formula.IFTHEN)) {
+						return(false);
+					} else if(nextOperator.equals(Formula.IFF)) {
+						return(true);
+					} else if(nextOperator.startsWith(Formula.FORALL)) {
+						return(false);
+					} else if(nextOperator.startsWith(Formula.EXISTS)) {
+						return(false);
+					} else if(nextOperator.equals(Formula.NEGATION)) {
+						return(false);
+					} else {
+						return(false);
+					}
+				} else {
+					return(false);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns a condition that prefers any rule.
+	 *
+	 * @return a condition that prefers any rule
+	 */
+	private static Condition getWildCardCondition() {
+		return(new Condition() {
+			public boolean satisfies(ProofTree tree, ProofTreeNode node, Formula formula) {
+				return(!formula.isAtom());
+			}
+		});
+	}
 }
\ No newline at end of file
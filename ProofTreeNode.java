@@ -1,350 +1,860 @@
-/*
-** COMP 4905 - Honours Project
-** School of Computer Science, Carleton University
-** Fall 2006
-**
-** Proof Trees for Propositional Logic with Extensions to First Order Logic
-**
-** John Howat
-** jhowat@primus.ca
-*/
-
-import java.util.Iterator;
-import java.util.Vector;
-
-/**
- * The <code>ProofTreeNode</code> class represents a node in a proof tree. Nodes
- * have one or more <code>Formula</code> objects associated with them. Each
- * Formula may be ``ticked'', so that will no longer be under consideration in
- * algorithms involving the node. A node may also become ``closed'' if it
- * contradicts with itself or any of its ancestors (although it is the caller's
- * responsibility to ask the node to check for this.)
- * <p>
- * A proof tree node functions very similar to a node in a binary tree, although
- * it may have only one child. A proof tree node keeps track of its parent and
- * children.
- */
-class ProofTreeNode implements Cloneable {
-	/**
-	 * A <code>Vector</code> containing the <code>Formula</code> objects
-	 * contained within this node.
-	 */
-	private Vector<Formula> formulae;
-
-	/**
-	 * The parent of this node, or <code>null</code> if no parent exists (i.e.,
-	 * this node is the root of the tree.)
-	 */
-	private ProofTreeNode parent;
-
-	/**
-	 * The right child of this node, or <code>null</code> if no right child
-	 * exists.
-	 */
-	private ProofTreeNode leftChild;
-
-	/**
-	 * The left child of this node, or <code>null</code> if no left child
-	 * exists.
-	 */
-	private ProofTreeNode rightChild;
-
-	/**
-	 * An array containing booleans representing whether the corresponding
-	 * formula in the formulae Vector is ticked.
-	 */
-	private boolean[] ticked;
-
-	/**
-	 * A boolean indicating whether or not this node is closed.
-	 */
-	private boolean closed;
-
-	/**
-	 * Creates a new <code>ProofTree</code> node from the given <code>Vector
-	 * </code> of <code>Formula</code> objects. The parent and children of the
-	 * node must be set manually after construction.
-	 *
-	 * @param formulae a <code>Vector</code> of <code>Formula</code> objects
-	 *  that this node will represent
-	 */
-	public ProofTreeNode(Vector<Formula> formulae) {
-		this.formulae = formulae;
-		this.ticked = new boolean[this.formulae.size()];
-		for(int i = 0; i < this.ticked.length; i++) {
-			this.ticked[i] = false;
-		}
-		this.closed = false;
-	}
-
-	/**
-	 * Returns an <code>Iterator</code> over the <code>Formula</code> objects
-	 * contained in this node.
-	 *
-	 * @return an <code>Iterator</code> over the given <code>Formula</code>
-	 *  objects contained in this node
-	 * @see java.util.Iterator
-	 */
-	public Iterator<Formula> getFormulae() {
-		return(this.formulae.iterator());
-	}
-
-	/**
-	 * Returns the parent of this node, or <code>null</code> if no parent exists
-	 * (i.e., this node is the root of the tree.)
-	 *
-	 * @return the parent of this node, or <code>null</code> if no parent exists
-	 */
-	public ProofTreeNode getParent() {
-		return(this.parent);
-	}
-
-	/**
-	 * Returns the left child of this node, or <code>null</code> if no left
-	 * child exists.
-	 *
-	 * @return the left child of this node, or <code>null</code> if no left
-	 *  child exists.
-	 */
-	public ProofTreeNode getLeftChild() {
-		return(this.leftChild);
-	}
-
-	/**
-	 * Returns the right child of this node, or <code>null</code> if no right
-	 * child exists.
-	 *
-	 * @return the right child of this node, or <code>null</code> if no right
-	 *  child exists.
-	 */
-	public ProofTreeNode getRightChild() {
-		return(this.rightChild);
-	}
-
-	/**
-	 * Sets the parent of this node to be the given node. It is the caller's
-	 * responsibility to set one of the parent's children to be this node.
-	 *
-	 * @param parent the new parent of this node
-	 */
-	public void setParent(ProofTreeNode parent) {
-		this.parent = parent;
-	}
-
-	/**
-	 * Sets the left child of this node to be the given node. It is the caller's
-	 * responsibility to set the child's parent to be this node.
-	 *
-	 * @param leftChild the new left child of this node
-	 */
-	public void setLeftChild(ProofTreeNode leftChild) {
-		this.leftChild = leftChild;
-	}
-
-	/**
-	 * Sets the right child of this node to be the given node. It is the
-	 * caller's responsibility to set the child's parent to be this node.
-	 *
-	 * @param rightChild the new right child of this node
-	 */
-	public void setRightChild(ProofTreeNode rightChild) {
-		this.rightChild = rightChild;
-	}
-
-	/**
-	 * Answers whether or not this node contradicts with the specified node. Two
-	 * nodes contradict if and only one formula of this node contradicts with
-	 * one formula in the other (not necessarily distinct) node.
-	 *
-	 * @param n a node to be tested for contradiction with this one
-	 * @return <code>true</code> if this node contradicts the given node; <code>
-	 *  false</code> otherwise
-	 * @see Formula#contradicts(Formula)
-	 */
-	public boolean contradicts(ProofTreeNode n) {
-		for(Iterator<Formula> i = this.formulae.iterator(); i.hasNext();) {
-			Formula current = i.next();
-			for(Iterator<Formula> j = n.formulae.iterator(); j.hasNext();) {
-				if(current.contradicts(j.next())) {
-					return(true);
-				}
-			}
-		}
-		return(false);
-	}
-
-	/**
-	 * Returns an <code>Iterator</code> over the non-bound variables of in this
-	 * node. The non-bound variables of a node are precisely the union of the
-	 * non-bound variables in each of the node's formulae. Duplicates will not
-	 * be included.
-	 *
-	 * @return an <code>Iterator</code> over the non-bound variables in this
-	 *  node
-	 * @see Formula#getConstants()
-	 * @see java.util.Iterator
-	 */
-	public Iterator<String> getConstants() {
-		Vector<String> result = new Vector<String>();
-		for(Iterator<Formula> i = this.formulae.iterator(); i.hasNext();) {
-			for(Iterator<String> j = i.next().getConstants().iterator(); j.hasNext();) {
-				String current = j.next();
-				if(!result.contains(current)) {
-					result.add(current);
-				}
-			}
-		}
-		return(result.iterator());
-	}
-
-	/**
-	 * Returns an <code>Iterator</code> over the non-bound variables of in this
-	 * node and all nodes above it. 
-	 *
-	 * @return an <code>Iterator</code> over the non-bound variables in this
-	 *  node and all nodes above it
-	 * @see #getConstants()
-	 * @see java.util.Iterator
-	 */
-	public Iterator<String> getConstantsFrom() {
-		Vector<String> result = new Vector<String>();
-		ProofTreeNode current = this;
-		while(current != null && !current.isClosed()) {
-			for(Iterator<String> i = current.getConstants(); i.hasNext();) {
-				String constant = i.next();
-				if(!result.contains(constant)) {
-					result.add(constant);
-				}
-			}
-			current = current.getParent();
-		}
-		return(result.iterator());
-	}
-
-	/**
-	 * Answers whether or not this node contains the given formula.
-	 *
-	 * @param formula the formula to be tested for
-	 * @return <code>true</code> if this node contains the given formula; <code>
-	 *  false</code> otherwise
-	 */
-	public boolean containsFormula(Formula formula) {
-		return(this.formulae.contains(formula));
-	}
-
-	/**
-	 * Answers whether or not this node or any node above it contains the given
-	 * formula.
-	 *
-	 * @param formula the formula to be tested for
-	 * @return <code>true</code> if this node or any node above it contains the
-	 *  given formula; <code>false</code> otherwise
-	 */
-	public boolean containsFormulaFrom(Formula formula) {
-		ProofTreeNode current = this;
-		while(current != null && !current.isClosed()) {
-			if(current.containsFormula(formula)) {
-				return(true);
-			}
-			current = current.getParent();
-		}
-		return(false);
-	}
-
-	/**
-	 * Closes this node.
-	 */
-	public void close() {
-		this.closed = true;
-	}
-
-	/**
-	 * Ticks the given formula inside this node.
-	 *
-	 * @param formula the formula to be ticked
-	 */
-	public void tickFormula(Formula formula) {
-		this.ticked[this.formulae.indexOf(formula)] = true;
-	}
-
-	/**
-	 * Unticks the given formula inside this node.
-	 *
-	 * @param formula the formula to be unticked
-	 */
-	public void untickFormula(Formula formula) {
-		this.ticked[this.formulae.indexOf(formula)] = false;
-	}
-
-	/**
-	 * Answers whether or not this node is closed.
-	 *
-	 * @return <code>true</code> if this node is closed; <code>false</code>
-	 *  otherwise
-	 */
-	public boolean isClosed() {
-		return(this.closed);
-	}
-
-	/**
-	 * Answers whether or not the given formula is ticked in this node.
-	 *
-	 * @param formula the formula to be checked
-	 * @return <code>true</code> if the given formula is ticked in this node;
-	 *  <code>false</code> otherwise
-	 */
-	public boolean isTicked(Formula formula) {
-		return(this.ticked[this.formulae.indexOf(formula)]);
-	}
-
-	/**
-	 * Answers whether or not this <code>ProofTreeNode</code> is equal to
-	 * another object. A necessary condition for an object being equal to a
-	 * <code>ProofTreeNode</code> is that the object is an instance of <code>
-	 * ProofTreeNode</code>. Beyond this, two proof tree nodes are equal if and
-	 * only if they have the same <code>Vector</code> of formulae.
-	 *
-	 * @param obj the <code>Object</code> to be tested for equality
-	 * @return <code>true</code> if the specified object is equal to this
-	 *	<code>ProofTreeNode</code>; <code>false</code> otherwise
-	 * @see Formula#equals(Object)
-	 */
-	public boolean equals(Object obj) {
-		if(!(obj instanceof ProofTreeNode)) {
-			return(false);
-		} else {
-			ProofTreeNode n = (ProofTreeNode)obj;
-			return(this.formulae.equals(n.formulae));
-		}
-	}
-
-	/**
-	 * Returns a string representation of this node.
-	 *
-	 * @return a string representation of this node
-	 * @see Formula#toString()
-	 */
-	public String toString() {
-		String result = "";
-		for(Iterator<Formula> i = this.formulae.iterator(); i.hasNext();) {
-			Formula formula = i.next();
-			result += formula;
-			if(i.hasNext()) {
-				result += ", ";
-			}
-		}
-		result += this.isClosed() ? " [X]" : "";
-		return(result);
-	}
-
-	/**
-	 * Returns a copy of this node containing all of the formulae of this node.
-	 * Note all formulae of the new node will be unticked and the node will be
-	 * unclosed. The new node's parent and children must be set by the caller.
-	 *
-	 * @return a copy of this node
-	 */
-	public Object clone() {
-		return(new ProofTreeNode(this.formulae));
-	}
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * The <code>ProofTreeNode</code> class represents a node in a proof tree. Nodes
+ * have one or more <code>Formula</code> objects associated with them. Each
+ * Formula may be ``ticked'', so that will no longer be under consideration in
+ * algorithms involving the node. A node may also become ``closed'' if it
+ * contradicts with itself or any of its ancestors (although it is the caller's
+ * responsibility to ask the node to check for this.)
+ * <p>
+ * A proof tree node functions very similar to a node in a binary tree, although
+ * it may have only one child. A proof tree node keeps track of its parent and
+ * children.
+ */
+class ProofTreeNode implements Cloneable {
+	/**
+	 * A <code>List</code> containing the <code>Formula</code> objects
+	 * contained within this node. The list may be shared with other nodes and
+	 * with <code>Formula</code> itself, so it is never modified.
+	 */
+	private List<Formula> formulae;
+
+	/**
+	 * The parent of this node, or <code>null</code> if no parent exists (i.e.,
+	 * this node is the root of the tree.)
+	 */
+	private ProofTreeNode parent;
+
+	/**
+	 * The right child of this node, or <code>null</code> if no right child
+	 * exists.
+	 */
+	private ProofTreeNode leftChild;
+
+	/**
+	 * The left child of this node, or <code>null</code> if no left child
+	 * exists.
+	 */
+	private ProofTreeNode rightChild;
+
+	/**
+	 * The positions of the ticked formulae in the formulae List. Ticks are
+	 * kept by position, so duplicate formulae in a node are ticked
+	 * separately.
+	 */
+	private BitSet ticked;
+
+	/**
+	 * A boolean indicating whether or not this node is closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * The atoms contained in this node and all nodes above it, or <code>null
+	 * </code> if not yet computed. This set and the two below are built from
+	 * the corresponding sets of the parent, so the sets of a branch share
+	 * their structure.
+	 *
+	 * @see #getAtomsFrom()
+	 */
+	private PersistentSet<Formula> atomsFrom;
+
+	/**
+	 * The formulae contained in this node and all nodes above it, or <code>
+	 * null</code> if not yet computed.
+	 *
+	 * @see #containsFormulaFrom(Formula)
+	 */
+	private PersistentSet<Formula> formulaeFrom;
+
+	/**
+	 * The non-bound variables of this node and all nodes above it, or <code>
+	 * null</code> if not yet computed.
+	 *
+	 * @see #getConstantsFrom()
+	 */
+	private PersistentSet<String> constantsFrom;
+
+	/**
+	 * The non-bound variables of this node which do not occur above it, in
+	 * the order in which they occur, or <code>null</code> if not yet computed.
+	 * Together with those of the nodes above, these number the non-bound
+	 * variables of a branch in the order in which they were introduced.
+	 *
+	 * @see #getConstantsFrom(int)
+	 */
+	private String[] newConstants;
+
+	/**
+	 * The nearest node at or above this one which introduces non-bound
+	 * variables, or <code>null</code> if there is none.
+	 */
+	private ProofTreeNode constantNode;
+
+	/**
+	 * The universally quantified formula whose instances this node was added
+	 * to hold, or <code>null</code>.
+	 *
+	 * @see #getUniversal()
+	 */
+	private Formula universal;
+
+	/**
+	 * The names, bound or not, of the variables of this node and all nodes
+	 * above it, or <code>null</code> if not yet computed. A fresh constant
+	 * must differ from all of these, or it could be captured by a quantifier
+	 * when a formula is instantiated with it.
+	 *
+	 * @see #containsNameFrom(String)
+	 */
+	private PersistentSet<String> namesFrom;
+
+	/**
+	 * The index of the first constant in the sequence of fresh constants not
+	 * among the names of this node and all nodes above it. This never
+	 * decreases down a branch, so it is found by continuing the search from
+	 * the index of the parent.
+	 *
+	 * @see Formula#getFreshConstant(int)
+	 */
+	private int freshFrom;
+
+	/**
+	 * The open leaf before this one in the list of open leaves of the tree,
+	 * or <code>null</code> if this node is the first or is not an open leaf.
+	 */
+	private ProofTreeNode previousLeaf;
+
+	/**
+	 * The open leaf after this one in the list of open leaves of the tree, or
+	 * <code>null</code> if this node is the last or is not an open leaf.
+	 */
+	private ProofTreeNode nextLeaf;
+
+	/**
+	 * The first open leaf below this node (inclusive), or <code>null</code>
+	 * if there are none.
+	 */
+	private ProofTreeNode firstLeaf;
+
+	/**
+	 * The last open leaf below this node (inclusive), or <code>null</code> if
+	 * there are none. The open leaves below this node are exactly those in
+	 * the list of open leaves from the first to the last.
+	 */
+	private ProofTreeNode lastLeaf;
+
+	/**
+	 * Creates a new <code>ProofTree</code> node from the given <code>List
+	 * </code> of <code>Formula</code> objects. The parent and children of the
+	 * node must be set manually after construction.
+	 *
+	 * @param formulae a <code>List</code> of <code>Formula</code> objects
+	 *  that this node will represent
+	 */
+	public ProofTreeNode(List<Formula> formulae) {
+		this.formulae = formulae;
+		this.ticked = new BitSet(this.formulae.size());
+		this.closed = false;
+	}
+
+	/**
+	 * Returns an <code>Iterator</code> over the <code>Formula</code> objects
+	 * contained in this node.
+	 *
+	 * @return an <code>Iterator</code> over the given <code>Formula</code>
+	 *  objects contained in this node
+	 * @see java.util.Iterator
+	 */
+	public Iterator<Formula> getFormulae() {
+		return(this.formulae.iterator());
+	}
+
+	/**
+	 * Returns the number of formulae contained in this node.
+	 *
+	 * @return the number of formulae contained in this node
+	 */
+	public int getFormulaCount() {
+		return(this.formulae.size());
+	}
+
+	/**
+	 * Returns the formula at the given position in this node. Together with
+	 * <code>getFormulaCount</code>, this allows the formulae of a node to be
+	 * visited by position.
+	 *
+	 * @param position the position of the formula, from zero
+	 * @return the formula at the given position
+	 * @see #getFormulaCount()
+	 */
+	public Formula getFormula(int position) {
+		return(this.formulae.get(position));
+	}
+
+	/**
+	 * Returns the parent of this node, or <code>null</code> if no parent exists
+	 * (i.e., this node is the root of the tree.)
+	 *
+	 * @return the parent of this node, or <code>null</code> if no parent exists
+	 */
+	public ProofTreeNode getParent() {
+		return(this.parent);
+	}
+
+	/**
+	 * Returns the left child of this node, or <code>null</code> if no left
+	 * child exists.
+	 *
+	 * @return the left child of this node, or <code>null</code> if no left
+	 *  child exists.
+	 */
+	public ProofTreeNode getLeftChild() {
+		return(this.leftChild);
+	}
+
+	/**
+	 * Returns the right child of this node, or <code>null</code> if no right
+	 * child exists.
+	 *
+	 * @return the right child of this node, or <code>null</code> if no right
+	 *  child exists.
+	 */
+	public ProofTreeNode getRightChild() {
+		return(this.rightChild);
+	}
+
+	/**
+	 * Sets the parent of this node to be the given node. It is the caller's
+	 * responsibility to set one of the parent's children to be this node. The
+	 * sets of atoms, formulae and names contained in this node and all nodes
+	 * above it are forgotten if the parent changes.
+	 *
+	 * @param parent the new parent of this node
+	 */
+	public void setParent(ProofTreeNode parent) {
+		if(parent == this.parent) {
+			return;
+		}
+		this.parent = parent;
+		this.atomsFrom = null;
+		this.formulaeFrom = null;
+		this.constantsFrom = null;
+		this.namesFrom = null;
+		this.newConstants = null;
+		this.constantNode = null;
+	}
+
+	/**
+	 * Sets the left child of this node to be the given node. It is the caller's
+	 * responsibility to set the child's parent to be this node.
+	 *
+	 * @param leftChild the new left child of this node
+	 */
+	public void setLeftChild(ProofTreeNode leftChild) {
+		this.leftChild = leftChild;
+	}
+
+	/**
+	 * Sets the right child of this node to be the given node. It is the
+	 * caller's responsibility to set the child's parent to be this node.
+	 *
+	 * @param rightChild the new right child of this node
+	 */
+	public void setRightChild(ProofTreeNode rightChild) {
+		this.rightChild = rightChild;
+	}
+
+	/**
+	 * Returns the open leaf before this one in the list of open leaves of the
+	 * tree.
+	 *
+	 * @return the previous open leaf, or <code>null</code>
+	 * @see ProofTree#getLeavesBelow(ProofTreeNode)
+	 */
+	ProofTreeNode getPreviousLeaf() {
+		return(this.previousLeaf);
+	}
+
+	/**
+	 * Sets the open leaf before this one in the list of open leaves.
+	 *
+	 * @param previousLeaf the previous open leaf, or <code>null</code>
+	 */
+	void setPreviousLeaf(ProofTreeNode previousLeaf) {
+		this.previousLeaf = previousLeaf;
+	}
+
+	/**
+	 * Returns the open leaf after this one in the list of open leaves of the
+	 * tree.
+	 *
+	 * @return the next open leaf, or <code>null</code>
+	 */
+	ProofTreeNode getNextLeaf() {
+		return(this.nextLeaf);
+	}
+
+	/**
+	 * Sets the open leaf after this one in the list of open leaves.
+	 *
+	 * @param nextLeaf the next open leaf, or <code>null</code>
+	 */
+	void setNextLeaf(ProofTreeNode nextLeaf) {
+		this.nextLeaf = nextLeaf;
+	}
+
+	/**
+	 * Returns the first open leaf below this node (inclusive).
+	 *
+	 * @return the first open leaf below this node, or <code>null</code> if
+	 *  there are none
+	 */
+	ProofTreeNode getFirstLeaf() {
+		return(this.firstLeaf);
+	}
+
+	/**
+	 * Sets the first open leaf below this node (inclusive).
+	 *
+	 * @param firstLeaf the first open leaf below this node, or <code>null
+	 *  </code>
+	 */
+	void setFirstLeaf(ProofTreeNode firstLeaf) {
+		this.firstLeaf = firstLeaf;
+	}
+
+	/**
+	 * Returns the last open leaf below this node (inclusive).
+	 *
+	 * @return the last open leaf below this node, or <code>null</code> if
+	 *  there are none
+	 */
+	ProofTreeNode getLastLeaf() {
+		return(this.lastLeaf);
+	}
+
+	/**
+	 * Sets the last open leaf below this node (inclusive).
+	 *
+	 * @param lastLeaf the last open leaf below this node, or <code>null
+	 *  </code>
+	 */
+	void setLastLeaf(ProofTreeNode lastLeaf) {
+		this.lastLeaf = lastLeaf;
+	}
+
+	/**
+	 * Answers whether or not this node contradicts with the specified node. Two
+	 * nodes contradict if and only one formula of this node contradicts with
+	 * one formula in the other (not necessarily distinct) node.
+	 *
+	 * @param n a node to be tested for contradiction with this one
+	 * @return <code>true</code> if this node contradicts the given node; <code>
+	 *  false</code> otherwise
+	 * @see Formula#contradicts(Formula)
+	 */
+	public boolean contradicts(ProofTreeNode n) {
+		for(Iterator<Formula> i = this.formulae.iterator(); i.hasNext();) {
+			Formula current = i.next();
+			for(Iterator<Formula> j = n.formulae.iterator(); j.hasNext();) {
+				if(current.contradicts(j.next())) {
+					return(true);
+				}
+			}
+		}
+		return(false);
+	}
+
+	/**
+	 * Answers whether or not this node contradicts with itself or any node
+	 * above it. Only the formulae of this node need to be looked up in the
+	 * atoms of the branch, so this takes time proportional to the size of this
+	 * node rather than to the depth of the branch.
+	 *
+	 * @return <code>true</code> if this node contradicts with itself or any
+	 *  node above it; <code>false</code> otherwise
+	 * @see #getAtomsFrom()
+	 */
+	public boolean contradictsFrom() {
+		PersistentSet<Formula> atoms = this.getAtomsFrom();
+		for(Iterator<Formula> i = this.formulae.iterator(); i.hasNext();) {
+			if(i.next().contradictsAnyOf(atoms)) {
+				return(true);
+			}
+		}
+		return(false);
+	}
+
+	/**
+	 * Answers whether or not a child containing the given formulae would
+	 * contradict with itself or any node above it, i.e., whether or not
+	 * adding such a child below this node would close it. The tree is not
+	 * changed.
+	 *
+	 * @param formulae the formulae of the prospective child
+	 * @return <code>true</code> if such a child would contradict with itself
+	 *  or any node above it; <code>false</code> otherwise
+	 * @see #contradictsFrom()
+	 */
+	public boolean wouldContradict(List<Formula> formulae) {
+		PersistentSet<Formula> atoms = this.getAtomsFrom();
+		for(int i = 0; i < formulae.size(); i++) {
+			Formula formula = formulae.get(i);
+			if(formula.contradictsAnyOf(atoms)) {
+				return(true);
+			}
+			for(int j = 0; j < i; j++) {
+				if(formula.contradicts(formulae.get(j))) {
+					return(true);
+				}
+			}
+		}
+		return(false);
+	}
+
+	/**
+	 * Returns the set of atoms contained in this node and all nodes above it.
+	 * The set is computed once from the set of the parent, and recomputed only
+	 * if the parent of this node changes.
+	 *
+	 * @return the set of atoms contained in this node and all nodes above it
+	 * @see Formula#isAtom()
+	 */
+	public PersistentSet<Formula> getAtomsFrom() {
+		if(this.atomsFrom == null) {
+			this.computeFrom();
+		}
+		return(this.atomsFrom);
+	}
+
+	/**
+	 * Answers whether or not the sets of atoms, formulae, non-bound variables
+	 * and names contained in this node and all nodes above it are known.
+	 *
+	 * @return <code>true</code> if the sets are known; <code>false</code>
+	 *  otherwise
+	 */
+	private boolean isComputedFrom() {
+		return(this.atomsFrom != null && this.formulaeFrom != null && this.constantsFrom != null && this.namesFrom != null && this.newConstants != null);
+	}
+
+	/**
+	 * Computes the sets of atoms, formulae, non-bound variables and names
+	 * contained in this node and all nodes above it. The sets of each ancestor
+	 * not yet known are computed first, from the top down, so that each node
+	 * adds its own elements to the sets of its parent.
+	 */
+	private void computeFrom() {
+		Vector<ProofTreeNode> path = new Vector<ProofTreeNode>();
+		for(ProofTreeNode node = this.parent; node != null && !node.isComputedFrom(); node = node.parent) {
+			path.add(node);
+		}
+		for(int i = path.size() - 1; i >= 0; i--) {
+			path.get(i).computeFromParent();
+		}
+		this.computeFromParent();
+	}
+
+	/**
+	 * Computes the sets of atoms, formulae, non-bound variables and names
+	 * contained in this node and all nodes above it, by adding those of this
+	 * node to the sets of the parent, which must already be known.
+	 */
+	private void computeFromParent() {
+		PersistentSet<Formula> atoms = PersistentSet.<Formula>empty();
+		PersistentSet<Formula> formulae = PersistentSet.<Formula>empty();
+		PersistentSet<String> constants = PersistentSet.<String>empty();
+		PersistentSet<String> names = PersistentSet.<String>empty();
+		int fresh = 0;
+		if(this.parent != null) {
+			atoms = this.parent.atomsFrom;
+			formulae = this.parent.formulaeFrom;
+			constants = this.parent.constantsFrom;
+			names = this.parent.namesFrom;
+			fresh = this.parent.freshFrom;
+		}
+		for(Iterator<Formula> i = this.formulae.iterator(); i.hasNext();) {
+			Formula formula = i.next();
+			if(formula.isAtom()) {
+				atoms = atoms.plus(formula);
+			}
+			formulae = formulae.plus(formula);
+			for(Iterator<String> j = formula.getVariables().iterator(); j.hasNext();) {
+				names = names.plus(j.next());
+			}
+		}
+		Vector<String> newConstants = new Vector<String>();
+		for(Iterator<String> i = this.getConstants(); i.hasNext();) {
+			String constant = i.next();
+			if(!constants.contains(constant)) {
+				constants = constants.plus(constant);
+				newConstants.add(constant);
+			}
+			names = names.plus(constant);
+		}
+		while(names.contains(Formula.getFreshConstant(fresh))) {
+			fresh++;
+		}
+		this.freshFrom = fresh;
+		this.formulaeFrom = formulae;
+		this.constantsFrom = constants;
+		this.namesFrom = names;
+		this.newConstants = newConstants.toArray(new String[newConstants.size()]);
+		if(this.newConstants.length > 0) {
+			this.constantNode = this;
+		} else {
+			this.constantNode = (this.parent == null) ? null : this.parent.constantNode;
+		}
+		this.atomsFrom = atoms;
+	}
+
+	/**
+	 * Returns an <code>Iterator</code> over the non-bound variables of in this
+	 * node. The non-bound variables of a node are precisely the union of the
+	 * non-bound variables in each of the node's formulae. Duplicates will not
+	 * be included.
+	 *
+	 * @return an <code>Iterator</code> over the non-bound variables in this
+	 *  node
+	 * @see Formula#getConstants()
+	 * @see java.util.Iterator
+	 */
+	public Iterator<String> getConstants() {
+		Vector<String> result = new Vector<String>();
+		for(Iterator<Formula> i = this.formulae.iterator(); i.hasNext();) {
+			for(Iterator<String> j = i.next().getConstants().iterator(); j.hasNext();) {
+				String current = j.next();
+				if(!result.contains(current)) {
+					result.add(current);
+				}
+			}
+		}
+		return(result.iterator());
+	}
+
+	/**
+	 * Returns an <code>Iterator</code> over the non-bound variables of in this
+	 * node and all nodes above it. The variables are kept in a set shared with
+	 * the rest of the branch, so no nodes above this one are visited.
+	 *
+	 * @return an <code>Iterator</code> over the non-bound variables in this
+	 *  node and all nodes above it
+	 * @see #getConstants()
+	 * @see java.util.Iterator
+	 */
+	public Iterator<String> getConstantsFrom() {
+		if(this.constantsFrom == null) {
+			this.computeFrom();
+		}
+		return(this.constantsFrom.iterator());
+	}
+
+	/**
+	 * Returns the number of non-bound variables of this node and all nodes
+	 * above it.
+	 *
+	 * @return the number of non-bound variables in this node and all nodes
+	 *  above it
+	 */
+	public int getConstantCountFrom() {
+		if(this.constantsFrom == null) {
+			this.computeFrom();
+		}
+		return(this.constantsFrom.size());
+	}
+
+	/**
+	 * Returns the non-bound variables of this node and all nodes above it,
+	 * numbered in the order in which they were introduced on the branch, from
+	 * the given number on. Only the nodes introducing those variables are
+	 * visited, so this takes time proportional to the number returned.
+	 *
+	 * @param start the number of the first variable to be returned
+	 * @return a <code>Vector</code> containing the non-bound variables from
+	 *  the given number on, in order
+	 * @see #getConstantCountFrom()
+	 */
+	public Vector<String> getConstantsFrom(int start) {
+		int count = this.getConstantCountFrom();
+		Vector<String[]> introduced = new Vector<String[]>();
+		for(ProofTreeNode node = this.constantNode; node != null && count > start; node = (node.parent == null) ? null : node.parent.constantNode) {
+			introduced.add(node.newConstants);
+			count -= node.newConstants.length;
+		}
+		Vector<String> result = new Vector<String>();
+		for(int i = introduced.size() - 1; i >= 0; i--) {
+			String[] constants = introduced.get(i);
+			for(int j = 0; j < constants.length; j++, count++) {
+				if(count >= start) {
+					result.add(constants[j]);
+				}
+			}
+		}
+		return(result);
+	}
+
+	/**
+	 * Returns the universally quantified formula whose instances this node
+	 * was added to hold, or <code>null</code> if it was added by some other
+	 * rule. Such a node records that, on its branch, the formula has been
+	 * instantiated for each of the non-bound variables above the node.
+	 *
+	 * @return the formula instantiated by this node, or <code>null</code>
+	 * @see #getConstantsFrom(int)
+	 */
+	public Formula getUniversal() {
+		return(this.universal);
+	}
+
+	/**
+	 * Sets the universally quantified formula whose instances this node was
+	 * added to hold.
+	 *
+	 * @param universal the formula instantiated by this node
+	 * @see #getUniversal()
+	 */
+	public void setUniversal(Formula universal) {
+		this.universal = universal;
+	}
+
+	/**
+	 * Answers whether or not the given name is a variable, bound or not, of
+	 * this node or any node above it.
+	 *
+	 * @param name the name to be tested for
+	 * @return <code>true</code> if the name occurs in this node or any node
+	 *  above it; <code>false</code> otherwise
+	 */
+	public boolean containsNameFrom(String name) {
+		if(this.namesFrom == null) {
+			this.computeFrom();
+		}
+		return(this.namesFrom.contains(name));
+	}
+
+	/**
+	 * Returns the index of the first constant in the sequence of fresh
+	 * constants which is not a name in this node or any node above it. The
+	 * index is kept with the rest of the branch, so this takes constant time.
+	 *
+	 * @return the index of the first fresh constant of this branch
+	 * @see Formula#getFreshConstant(int)
+	 */
+	public int getFreshFrom() {
+		if(this.constantsFrom == null) {
+			this.computeFrom();
+		}
+		return(this.freshFrom);
+	}
+
+	/**
+	 * Returns an <code>Iterator</code> over the formulae of this node and all
+	 * nodes above it. Each formula occurring more than once on the branch is
+	 * returned only once.
+	 *
+	 * @return an <code>Iterator</code> over the formulae in this node and all
+	 *  nodes above it
+	 * @see #containsFormulaFrom(Formula)
+	 */
+	public Iterator<Formula> getFormulaeFrom() {
+		if(this.formulaeFrom == null) {
+			this.computeFrom();
+		}
+		return(this.formulaeFrom.iterator());
+	}
+
+	/**
+	 * Answers whether or not this node contains the given formula.
+	 *
+	 * @param formula the formula to be tested for
+	 * @return <code>true</code> if this node contains the given formula; <code>
+	 *  false</code> otherwise
+	 */
+	public boolean containsFormula(Formula formula) {
+		return(this.formulae.contains(formula));
+	}
+
+	/**
+	 * Answers whether or not this node or any node above it contains the given
+	 * formula. The formulae are kept in a set shared with the rest of the
+	 * branch, so no nodes above this one are visited.
+	 *
+	 * @param formula the formula to be tested for
+	 * @return <code>true</code> if this node or any node above it contains the
+	 *  given formula; <code>false</code> otherwise
+	 */
+	public boolean containsFormulaFrom(Formula formula) {
+		if(this.formulaeFrom == null) {
+			this.computeFrom();
+		}
+		return(this.formulaeFrom.contains(formula));
+	}
+
+	/**
+	 * Closes this node. Nodes in a tree should be closed through the tree,
+	 * so that it can keep track of its open leaves.
+	 *
+	 * @see ProofTree#close(ProofTreeNode)
+	 */
+	public void close() {
+		this.closed = true;
+	}
+
+	/**
+	 * Ticks the given formula inside this node. If the formula occurs more
+	 * than once, the first occurrence is ticked.
+	 *
+	 * @param formula the formula to be ticked
+	 * @see #tickFormula(int)
+	 */
+	public void tickFormula(Formula formula) {
+		this.ticked.set(this.formulae.indexOf(formula));
+	}
+
+	/**
+	 * Ticks the formula at the given position inside this node.
+	 *
+	 * @param position the position of the formula to be ticked
+	 */
+	public void tickFormula(int position) {
+		this.ticked.set(position);
+	}
+
+	/**
+	 * Unticks the given formula inside this node. If the formula occurs more
+	 * than once, the first occurrence is unticked.
+	 *
+	 * @param formula the formula to be unticked
+	 * @see #untickFormula(int)
+	 */
+	public void untickFormula(Formula formula) {
+		this.ticked.clear(this.formulae.indexOf(formula));
+	}
+
+	/**
+	 * Unticks the formula at the given position inside this node.
+	 *
+	 * @param position the position of the formula to be unticked
+	 */
+	public void untickFormula(int position) {
+		this.ticked.clear(position);
+	}
+
+	/**
+	 * Answers whether or not this node is closed.
+	 *
+	 * @return <code>true</code> if this node is closed; <code>false</code>
+	 *  otherwise
+	 */
+	public boolean isClosed() {
+		return(this.closed);
+	}
+
+	/**
+	 * Answers whether or not the given formula is ticked in this node.
+	 *
+	 * @param formula the formula to be checked
+	 * @return <code>true</code> if the given formula is ticked in this node;
+	 *  <code>false</code> otherwise
+	 */
+	public boolean isTicked(Formula formula) {
+		return(this.ticked.get(this.formulae.indexOf(formula)));
+	}
+
+	/**
+	 * Answers whether or not the formula at the given position is ticked in
+	 * this node.
+	 *
+	 * @param position the position of the formula to be checked
+	 * @return <code>true</code> if the formula is ticked in this node; <code>
+	 *  false</code> otherwise
+	 */
+	public boolean isTicked(int position) {
+		return(this.ticked.get(position));
+	}
+
+	/**
+	 * Answers whether or not this <code>ProofTreeNode</code> is equal to
+	 * another object. A necessary condition for an object being equal to a
+	 * <code>ProofTreeNode</code> is that the object is an instance of <code>
+	 * ProofTreeNode</code>. Beyond this, two proof tree nodes are equal if and
+	 * only if they have the same <code>List</code> of formulae.
+	 *
+	 * @param obj the <code>Object</code> to be tested for equality
+	 * @return <code>true</code> if the specified object is equal to this
+	 *	<code>ProofTreeNode</code>; <code>false</code> otherwise
+	 * @see Formula#equals(Object)
+	 */
+	public boolean equals(Object obj) {
+		if(!(obj instanceof ProofTreeNode)) {
+			return(false);
+		} else {
+			ProofTreeNode n = (ProofTreeNode)obj;
+			return(this.formulae.equals(n.formulae));
+		}
+	}
+
+	/**
+	 * Returns a string representation of this node.
+	 *
+	 * @return a string representation of this node
+	 * @see Formula#toString()
+	 */
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		try {
+			this.appendTo(result);
+		} catch(IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return(result.toString());
+	}
+
+	/**
+	 * Appends a string representation of this node to the given <code>
+	 * Appendable</code>.
+	 *
+	 * @param out the <code>Appendable</code> to append to
+	 * @throws IOException if an I/O error occurs
+	 * @see Formula#appendTo(Appendable)
+	 */
+	public void appendTo(Appendable out) throws IOException {
+		for(Iterator<Formula> i = this.formulae.iterator(); i.hasNext();) {
+			i.next().appendTo(out);
+			if(i.hasNext()) {
+				out.append(", ");
+			}
+		}
+		if(this.isClosed()) {
+			out.append(" [X]");
+		}
+	}
+
+	/**
+	 * Returns a copy of this node containing all of the formulae of this node.
+	 * Note all formulae of the new node will be unticked and the node will be
+	 * unclosed. The new node's parent and children must be set by the caller.
+	 *
+	 * @return a copy of this node
+	 */
+	public Object clone() {
+		return(new ProofTreeNode(this.formulae));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,912 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * The <code>SatSolver</code> class decides whether or not a set of
+ * propositional formulae can all be true at once. It is used in place of a
+ * proof tree when only the validity of a propositional argument is needed: the
+ * argument is valid exactly when its premises and negated conclusion cannot
+ * all be true.
+ * <p>
+ * Formulae are first turned into clauses by the Tseitin encoding, which gives
+ * each distinct subformula a variable of its own, so the clauses grow only
+ * linearly with the formulae. Since formulae are hash-consed, a subformula
+ * occurring several times is encoded once. Atoms (including first-order atoms
+ * such as <code>Lab</code>, in formulae with no quantifiers) are simply
+ * variables.
+ * <p>
+ * The clauses are then solved by conflict-driven clause learning. Each clause
+ * watches two of its literals, so that only the clauses watching a literal
+ * are visited when it becomes false. Each conflict is analysed back to its
+ * first unique implication point, and the clause learnt is added so that the
+ * same conflict is never reached again. Variables involved in recent
+ * conflicts are decided first, the last value of each variable is tried
+ * first, and the search restarts after a growing number of conflicts.
+ * <p>
+ * Literals are given to the solver as non-zero integers: <code>v</code> for a
+ * variable and <code>-v</code> for its negation. A solver is meant to be used
+ * once: clauses are added, and <code>solve</code> is called.
+ * <p>
+ * Formulae are examined and encoded with explicit stacks rather than
+ * recursive calls, so that deeply nested formulae do not exhaust the call
+ * stack.
+ *
+ * @see ProofTreeGenerator#decide(java.util.Vector, Formula, Budget)
+ */
+class SatSolver {
+	/**
+	 * The result of solving clauses which can all be true at once.
+	 */
+	public static final int SATISFIABLE = 1;
+
+	/**
+	 * The result of solving clauses which cannot all be true at once.
+	 */
+	public static final int UNSATISFIABLE = 0;
+
+	/**
+	 * The result of solving clauses when the budget ran out first.
+	 */
+	public static final int UNKNOWN = -1;
+
+	/**
+	 * The reason recorded for a literal which was decided rather than implied
+	 * by a clause.
+	 */
+	private static final int NO_REASON = -1;
+
+	/**
+	 * The number of conflicts in the first run between restarts; later runs
+	 * are multiples of this.
+	 */
+	private static final int RESTART_BASE = 100;
+
+	/**
+	 * The factor by which the activity of variables decays at each conflict.
+	 */
+	private static final double DECAY = 0.95;
+
+	/**
+	 * The number of conflicts before learnt clauses are first reduced.
+	 */
+	private static final int REDUCE_BASE = 2000;
+
+	/**
+	 * The number by which the conflicts between reductions grow each time.
+	 */
+	private static final int REDUCE_STEP = 300;
+
+	/**
+	 * The variable standing for each formula encoded so far, negated for a
+	 * negated formula.
+	 */
+	private IdentityHashMap<Formula, Integer> encoded;
+
+	/**
+	 * The number of variables, which are numbered from one.
+	 */
+	private int variables;
+
+	/**
+	 * The clauses, both given and learnt. Literals are stored internally as
+	 * <code>2v</code> for a variable <code>v</code> and <code>2v + 1</code>
+	 * for its negation, and the first two literals of each clause are the
+	 * ones it watches.
+	 */
+	private ArrayList<int[]> clauses;
+
+	/**
+	 * The number of clauses given, which come before the clauses learnt.
+	 */
+	private int given;
+
+	/**
+	 * The number of distinct decision levels among the literals of each
+	 * clause learnt, when it was learnt. Clauses spanning fewer levels are
+	 * more likely to be useful again.
+	 */
+	private int[] glues;
+
+	/**
+	 * The clauses watching each literal, by index into <code>clauses</code>.
+	 */
+	private int[][] watches;
+
+	/**
+	 * The number of clauses watching each literal.
+	 */
+	private int[] watchCounts;
+
+	/**
+	 * The value of each variable: <code>1</code> if true, <code>-1</code> if
+	 * false and <code>0</code> if unassigned.
+	 */
+	private byte[] values;
+
+	/**
+	 * The decision level at which each variable was assigned.
+	 */
+	private int[] levels;
+
+	/**
+	 * The clause which implied the value of each variable, or <code>
+	 * NO_REASON</code> if it was decided.
+	 */
+	private int[] reasons;
+
+	/**
+	 * The literals made true so far, in order.
+	 */
+	private int[] trail;
+
+	/**
+	 * The number of literals on the trail.
+	 */
+	private int trailSize;
+
+	/**
+	 * The number of literals on the trail whose consequences have been
+	 * propagated.
+	 */
+	private int propagated;
+
+	/**
+	 * The size of the trail when each decision level began.
+	 */
+	private int[] levelStarts;
+
+	/**
+	 * The current decision level.
+	 */
+	private int level;
+
+	/**
+	 * The activity of each variable, raised whenever it takes part in a
+	 * conflict.
+	 */
+	private double[] activity;
+
+	/**
+	 * The amount by which activity is currently raised. This grows at every
+	 * conflict, which has the effect of decaying older activity.
+	 */
+	private double increment;
+
+	/**
+	 * The last value of each variable, tried first when it is decided.
+	 */
+	private boolean[] phases;
+
+	/**
+	 * The unassigned variables (and possibly some assigned ones), as a heap
+	 * ordered by activity.
+	 */
+	private int[] heap;
+
+	/**
+	 * The number of variables in the heap.
+	 */
+	private int heapSize;
+
+	/**
+	 * The position of each variable in the heap, or <code>-1</code> if it is
+	 * not in the heap.
+	 */
+	private int[] heapPositions;
+
+	/**
+	 * Marks for the variables seen while analysing a conflict.
+	 */
+	private boolean[] seen;
+
+	/**
+	 * Marks for the decision levels seen while finding the glue of a clause
+	 * learnt, holding the number of the conflict at which each was last seen.
+	 */
+	private long[] levelMarks;
+
+	/**
+	 * The number of conflicts so far.
+	 */
+	private long conflicts;
+
+	/**
+	 * Whether or not the clauses added so far are already known to be
+	 * contradictory.
+	 */
+	private boolean contradictory;
+
+	/**
+	 * Creates a new <code>SatSolver</code> with no variables and no clauses.
+	 */
+	public SatSolver() {
+		this.encoded = new IdentityHashMap<Formula, Integer>();
+		this.clauses = new ArrayList<int[]>();
+		this.glues = new int[16];
+		this.watches = new int[2][];
+		this.watchCounts = new int[2];
+		this.values = new byte[1];
+		this.levels = new int[1];
+		this.reasons = new int[1];
+		this.trail = new int[1];
+		this.levelStarts = new int[1];
+		this.activity = new double[1];
+		this.increment = 1;
+		this.phases = new boolean[1];
+		this.heap = new int[1];
+		this.heapPositions = new int[1];
+		this.seen = new boolean[1];
+		this.levelMarks = new long[1];
+	}
+
+	/**
+	 * Answers whether or not the given formula contains no quantifiers, so
+	 * that it can be given to a <code>SatSolver</code>.
+	 *
+	 * @param formula the formula to be tested
+	 * @return <code>true</code> if the formula contains no quantifiers; <code>
+	 *  false</code> otherwise
+	 */
+	public static boolean isPropositional(Formula formula) {
+		Vector<Formula> pending = new Vector<Formula>();
+		pending.add(formula);
+		while(pending.size() > 0) {
+			Formula f = pending.remove(pending.size() - 1);
+			String operator = f.getMajorOperator();
+			if(operator.startsWith(Formula.FORALL) || operator.startsWith(Formula.EXISTS)) {
+				return(false);
+			} else if(!operator.equals("")) {
+				pending.addAll(f.getMajorOperands());
+			}
+		}
+		return(true);
+	}
+
+	/**
+	 * Returns a new variable.
+	 *
+	 * @return the number of the new variable
+	 */
+	public int newVariable() {
+		int variable = ++this.variables;
+		if(variable >= this.values.length) {
+			int capacity = 2 * variable;
+			this.values = Arrays.copyOf(this.values, capacity);
+			this.levels = Arrays.copyOf(this.levels, capacity);
+			this.reasons = Arrays.copyOf(this.reasons, capacity);
+			this.trail = Arrays.copyOf(this.trail, capacity);
+			this.levelStarts = Arrays.copyOf(this.levelStarts, capacity);
+			this.activity = Arrays.copyOf(this.activity, capacity);
+			this.phases = Arrays.copyOf(this.phases, capacity);
+			this.heap = Arrays.copyOf(this.heap, capacity);
+			this.heapPositions = Arrays.copyOf(this.heapPositions, capacity);
+			this.seen = Arrays.copyOf(this.seen, capacity);
+			this.levelMarks = Arrays.copyOf(this.levelMarks, capacity);
+			this.watches = Arrays.copyOf(this.watches, 2 * capacity);
+			this.watchCounts = Arrays.copyOf(this.watchCounts, 2 * capacity);
+		}
+		this.heapPositions[variable] = -1;
+		this.insert(variable);
+		return(variable);
+	}
+
+	/**
+	 * Adds a clause requiring the given formula to be true, within the given
+	 * budget. The formula must contain no quantifiers. The budget is checked
+	 * (but not charged) as each subformula is encoded, so that a large
+	 * formula does not outlast the time allowed.
+	 *
+	 * @param formula the formula to be made true
+	 * @param budget the budget limiting the work done
+	 * @return <code>true</code> if the formula was added; <code>false</code>
+	 *  if the budget ran out first
+	 * @throws IllegalArgumentException if the formula contains a quantifier
+	 * @see #isPropositional(Formula)
+	 */
+	public boolean addFormula(Formula formula, Budget budget) {
+		int literal = this.encode(formula, budget);
+		if(literal == 0) {
+			return(false);
+		}
+		this.addClause(literal);
+		return(true);
+	}
+
+	/**
+	 * Returns the literal standing for the given formula, adding the clauses
+	 * which tie the literal of each subformula to the literals of its
+	 * operands. A subformula is encoded once the subformulae it is made of
+	 * have been; until then, it stays on the stack below them.
+	 *
+	 * @param formula the formula to be encoded
+	 * @param budget the budget limiting the work done
+	 * @return the literal which is true exactly when the formula is, or
+	 *  <code>0</code> if the budget ran out first
+	 * @throws IllegalArgumentException if the formula contains a quantifier
+	 */
+	private int encode(Formula formula, Budget budget) {
+		Vector<Formula> pending = new Vector<Formula>();
+		pending.add(formula);
+		while(pending.size() > 0) {
+			Formula f = pending.lastElement();
+			if(this.encoded.containsKey(f)) {
+				pending.remove(pending.size() - 1);
+				continue;
+			} else if(budget.isExhausted()) {
+				return(0);
+			}
+			String operator = f.getMajorOperator();
+			if(operator.startsWith(Formula.FORALL) || operator.startsWith(Formula.EXISTS)) {
+				throw new IllegalArgumentException(f + " is not propositional");
+			}
+			List<Formula> operands = operator.equals("") ? Collections.<Formula>emptyList() : f.getMajorOperands();
+			boolean ready = true;
+			for(int i = operands.size() - 1; i >= 0; i--) {
+				if(!this.encoded.containsKey(operands.get(i))) {
+					pending.add(operands.get(i));
+					ready = false;
+				}
+			}
+			if(ready) {
+				pending.remove(pending.size() - 1);
+				this.encode(f, operator, operands);
+			}
+		}
+		return(this.encoded.get(formula));
+	}
+
+	/**
+	 * Gives the given formula its literal, whose operands already have
+	 * theirs, and adds the clauses which tie them together.
+	 *
+	 * @param formula the formula to be encoded
+	 * @param operator the major operator of the formula
+	 * @param operands the major operands of the formula
+	 */
+	private void encode(Formula formula, String operator, List<Formula> operands) {
+		int result;
+		if(operator.equals("")) {
+			result = this.newVariable();
+		} else if(operator.equals(Formula.NEGATION)) {
+			result = -this.encoded.get(operands.get(0));
+		} else {
+			int a = this.encoded.get(operands.get(0));
+			int b = this.encoded.get(operands.get(1));
+			result = this.newVariable();
+			if(operator.equals(Formula.CONJUNCTION)) {
+				this.addClause(-result, a);
+				this.addClause(-result, b);
+				this.addClause(result, -a, -b);
+			} else if(operator.equals(Formula.DISJUNCTION)) {
+				this.addClause(-result, a, b);
+				this.addClause(result, -a);
+				this.addClause(result, -b);
+			} else if(operator.equals(Formula.IFTHEN)) {
+				this.addClause(-result, -a, b);
+				this.addClause(result, a);
+				this.addClause(result, -b);
+			} else {
+				this.addClause(-result, -a, b);
+				this.addClause(-result, a, -b);
+				this.addClause(result, a, b);
+				this.addClause(result, -a, -b);
+			}
+		}
+		this.encoded.put(formula, result);
+	}
+
+	/**
+	 * Adds a clause, i.e., requires at least one of the given literals to be
+	 * true. Clauses may only be added before solving.
+	 *
+	 * @param literals the literals of the clause
+	 */
+	public void addClause(int... literals) {
+		if(this.contradictory) {
+			return;
+		}
+		int[] clause = new int[literals.length];
+		int size = 0;
+		for(int i = 0; i < literals.length; i++) {
+			int literal = (literals[i] > 0) ? 2 * literals[i] : 2 * -literals[i] + 1;
+			int value = this.value(literal);
+			if(value > 0) {
+				return;
+			} else if(value < 0) {
+				continue;
+			}
+			boolean repeated = false;
+			for(int j = 0; j < size; j++) {
+				if(clause[j] == (literal ^ 1)) {
+					return;
+				}
+				repeated |= (clause[j] == literal);
+			}
+			if(!repeated) {
+				clause[size++] = literal;
+			}
+		}
+		if(size == 0) {
+			this.contradictory = true;
+		} else if(size == 1) {
+			this.assign(clause[0], NO_REASON);
+			this.contradictory = (this.propagate() != NO_REASON);
+		} else {
+			this.attach(Arrays.copyOf(clause, size));
+		}
+	}
+
+	/**
+	 * Decides whether or not the clauses added can all be true at once,
+	 * within the given budget. Each conflict is charged to the budget as a
+	 * single step. From time to time, the half of the clauses learnt which
+	 * span the most decision levels are discarded, so that propagation does
+	 * not slow down as clauses are learnt.
+	 *
+	 * @param budget the budget limiting the work done
+	 * @return <code>SATISFIABLE</code>, <code>UNSATISFIABLE</code>, or <code>
+	 *  UNKNOWN</code> if the budget ran out first
+	 */
+	public int solve(Budget budget) {
+		if(this.contradictory) {
+			return(UNSATISFIABLE);
+		}
+		this.given = this.clauses.size();
+		int restarts = 0;
+		long restart = RESTART_BASE * luby(restarts);
+		long reduction = REDUCE_BASE;
+		while(true) {
+			int conflict = this.propagate();
+			if(conflict != NO_REASON) {
+				if(this.level == 0) {
+					return(UNSATISFIABLE);
+				}
+				this.conflicts++;
+				this.learn(this.analyze(conflict));
+				this.increment /= DECAY;
+				budget.charge(0);
+				if(budget.isExhausted()) {
+					this.backtrack(0);
+					return(UNKNOWN);
+				}
+			} else if(this.conflicts >= restart) {
+				this.backtrack(0);
+				restart = this.conflicts + RESTART_BASE * luby(++restarts);
+				if(this.conflicts >= reduction) {
+					this.reduce();
+					reduction = this.conflicts + REDUCE_BASE + REDUCE_STEP * restarts;
+				}
+			} else {
+				int variable = this.removeMax();
+				while(variable != 0 && this.values[variable] != 0) {
+					variable = this.removeMax();
+				}
+				if(variable == 0) {
+					return(SATISFIABLE);
+				}
+				this.levelStarts[this.level++] = this.trailSize;
+				this.assign(this.phases[variable] ? 2 * variable : 2 * variable + 1, NO_REASON);
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of the given internal literal: <code>1</code> if true,
+	 * <code>-1</code> if false and <code>0</code> if unassigned.
+	 *
+	 * @param literal an internal literal
+	 * @return the value of the literal
+	 */
+	private int value(int literal) {
+		int value = this.values[literal >> 1];
+		return(((literal & 1) == 0) ? value : -value);
+	}
+
+	/**
+	 * Makes the given internal literal true at the current decision level.
+	 *
+	 * @param literal an internal literal
+	 * @param reason the clause implying the literal, or <code>NO_REASON
+	 *  </code>
+	 */
+	private void assign(int literal, int reason) {
+		int variable = literal >> 1;
+		this.values[variable] = (byte)(((literal & 1) == 0) ? 1 : -1);
+		this.levels[variable] = this.level;
+		this.reasons[variable] = reason;
+		this.trail[this.trailSize++] = literal;
+	}
+
+	/**
+	 * Adds the given clause of at least two literals, watching its first two.
+	 *
+	 * @param clause the clause to be added
+	 * @return the index of the clause
+	 */
+	private int attach(int[] clause) {
+		int index = this.clauses.size();
+		this.clauses.add(clause);
+		if(index == this.glues.length) {
+			this.glues = Arrays.copyOf(this.glues, 2 * index);
+		}
+		this.watch(clause[0], index);
+		this.watch(clause[1], index);
+		return(index);
+	}
+
+	/**
+	 * Makes the given clause watch the given internal literal.
+	 *
+	 * @param literal an internal literal
+	 * @param clause the index of the clause
+	 */
+	private void watch(int literal, int clause) {
+		int[] list = this.watches[literal];
+		if(list == null) {
+			list = new int[4];
+			this.watches[literal] = list;
+		} else if(this.watchCounts[literal] == list.length) {
+			list = Arrays.copyOf(list, 2 * list.length);
+			this.watches[literal] = list;
+		}
+		list[this.watchCounts[literal]++] = clause;
+	}
+
+	/**
+	 * Propagates the literals on the trail not yet propagated: every clause
+	 * in which all literals but one are false makes that one true.
+	 *
+	 * @return the index of a clause in which all literals are false, or <code>
+	 *  NO_REASON</code> if there is none
+	 */
+	private int propagate() {
+		while(this.propagated < this.trailSize) {
+			int falsified = this.trail[this.propagated++] ^ 1;
+			int[] list = this.watches[falsified];
+			int count = this.watchCounts[falsified];
+			int kept = 0;
+			for(int i = 0; i < count; i++) {
+				int index = list[i];
+				int[] clause = this.clauses.get(index);
+				if(clause == null) {
+					continue;
+				}
+				if(clause[0] == falsified) {
+					clause[0] = clause[1];
+					clause[1] = falsified;
+				}
+				if(this.value(clause[0]) > 0) {
+					list[kept++] = index;
+					continue;
+				}
+				boolean moved = false;
+				for(int j = 2; j < clause.length && !moved; j++) {
+					if(this.value(clause[j]) >= 0) {
+						clause[1] = clause[j];
+						clause[j] = falsified;
+						this.watch(clause[1], index);
+						moved = true;
+					}
+				}
+				if(moved) {
+					continue;
+				}
+				list[kept++] = index;
+				if(this.value(clause[0]) < 0) {
+					while(++i < count) {
+						list[kept++] = list[i];
+					}
+					this.watchCounts[falsified] = kept;
+					this.propagated = this.trailSize;
+					return(index);
+				}
+				this.assign(clause[0], index);
+			}
+			this.watchCounts[falsified] = kept;
+		}
+		return(NO_REASON);
+	}
+
+	/**
+	 * Analyses the given conflict, returning the clause learnt from it. The
+	 * clause contains one literal of the current decision level, the first
+	 * unique implication point, which comes first; the literal of the highest
+	 * remaining level comes second. Literals implied by the other literals of
+	 * the clause are left out.
+	 *
+	 * @param conflict the index of a clause in which all literals are false
+	 * @return the clause learnt
+	 */
+	private int[] analyze(int conflict) {
+		int[] learnt = new int[8];
+		int size = 1;
+		int pending = 0;
+		int literal = -1;
+		int position = this.trailSize - 1;
+		int index = conflict;
+		do {
+			int[] clause = this.clauses.get(index);
+			for(int j = (literal == -1) ? 0 : 1; j < clause.length; j++) {
+				int variable = clause[j] >> 1;
+				if(!this.seen[variable] && this.levels[variable] > 0) {
+					this.seen[variable] = true;
+					this.bump(variable);
+					if(this.levels[variable] >= this.level) {
+						pending++;
+					} else {
+						if(size == learnt.length) {
+							learnt = Arrays.copyOf(learnt, 2 * size);
+						}
+						learnt[size++] = clause[j];
+					}
+				}
+			}
+			while(!this.seen[this.trail[position] >> 1]) {
+				position--;
+			}
+			literal = this.trail[position--];
+			index = this.reasons[literal >> 1];
+			this.seen[literal >> 1] = false;
+			pending--;
+		} while(pending > 0);
+		learnt[0] = literal ^ 1;
+
+		int[] found = Arrays.copyOf(learnt, size);
+		int kept = 1;
+		for(int i = 1; i < size; i++) {
+			if(!this.isRedundant(learnt[i])) {
+				learnt[kept++] = learnt[i];
+			}
+		}
+		for(int i = 1; i < size; i++) {
+			this.seen[found[i] >> 1] = false;
+		}
+
+		int highest = 1;
+		for(int i = 1; i < kept; i++) {
+			if(this.levels[learnt[i] >> 1] > this.levels[learnt[highest] >> 1]) {
+				highest = i;
+			}
+		}
+		if(kept > 1) {
+			int swap = learnt[1];
+			learnt[1] = learnt[highest];
+			learnt[highest] = swap;
+		}
+		return(Arrays.copyOf(learnt, kept));
+	}
+
+	/**
+	 * Answers whether or not the given literal of a clause being learnt may be
+	 * left out, i.e., whether it was implied by a clause whose other literals
+	 * are all in the clause being learnt or false at level zero.
+	 *
+	 * @param literal a literal of the clause being learnt
+	 * @return <code>true</code> if the literal may be left out; <code>false
+	 *  </code> otherwise
+	 */
+	private boolean isRedundant(int literal) {
+		int reason = this.reasons[literal >> 1];
+		if(reason == NO_REASON) {
+			return(false);
+		}
+		int[] clause = this.clauses.get(reason);
+		for(int j = 1; j < clause.length; j++) {
+			int variable = clause[j] >> 1;
+			if(!this.seen[variable] && this.levels[variable] > 0) {
+				return(false);
+			}
+		}
+		return(true);
+	}
+
+	/**
+	 * Adds the given learnt clause, backtracks to the highest level of its
+	 * other literals, and makes its first literal true there.
+	 *
+	 * @param learnt the clause learnt from a conflict
+	 * @see #analyze(int)
+	 */
+	private void learn(int[] learnt) {
+		if(learnt.length == 1) {
+			this.backtrack(0);
+			this.assign(learnt[0], NO_REASON);
+		} else {
+			int glue = 0;
+			for(int i = 0; i < learnt.length; i++) {
+				int level = this.levels[learnt[i] >> 1];
+				if(this.levelMarks[level] != this.conflicts) {
+					this.levelMarks[level] = this.conflicts;
+					glue++;
+				}
+			}
+			this.backtrack(this.levels[learnt[1] >> 1]);
+			int index = this.attach(learnt);
+			this.glues[index] = glue;
+			this.assign(learnt[0], index);
+		}
+	}
+
+	/**
+	 * Discards half of the clauses learnt, keeping those which span the
+	 * fewest decision levels. Clauses spanning only two levels, and clauses
+	 * which are the reason for a literal still true, are always kept.
+	 * Discarded clauses are left as <code>null</code>, and are dropped from
+	 * the lists of watching clauses as those lists are next visited.
+	 */
+	private void reduce() {
+		ArrayList<Integer> candidates = new ArrayList<Integer>();
+		for(int i = this.given; i < this.clauses.size(); i++) {
+			int[] clause = this.clauses.get(i);
+			if(clause != null && this.glues[i] > 2 && !(this.reasons[clause[0] >> 1] == i && this.value(clause[0]) > 0)) {
+				candidates.add(i);
+			}
+		}
+		Collections.sort(candidates, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				if(glues[a] != glues[b]) {
+					return(glues[b] - glues[a]);
+				}
+				return(clauses.get(b).length - clauses.get(a).length);
+			}
+		});
+		for(int i = 0; i < candidates.size() / 2; i++) {
+			this.clauses.set(candidates.get(i), null);
+		}
+	}
+
+	/**
+	 * Undoes all assignments made above the given decision level.
+	 *
+	 * @param target the decision level to return to
+	 */
+	private void backtrack(int target) {
+		if(this.level <= target) {
+			return;
+		}
+		int start = this.levelStarts[target];
+		for(int i = this.trailSize - 1; i >= start; i--) {
+			int variable = this.trail[i] >> 1;
+			this.phases[variable] = (this.values[variable] > 0);
+			this.values[variable] = 0;
+			this.insert(variable);
+		}
+		this.trailSize = start;
+		this.propagated = start;
+		this.level = target;
+	}
+
+	/**
+	 * Raises the activity of the given variable.
+	 *
+	 * @param variable the variable involved in a conflict
+	 */
+	private void bump(int variable) {
+		this.activity[variable] += this.increment;
+		if(this.activity[variable] > 1e100) {
+			for(int i = 1; i <= this.variables; i++) {
+				this.activity[i] *= 1e-100;
+			}
+			this.increment *= 1e-100;
+		}
+		if(this.heapPositions[variable] >= 0) {
+			this.up(this.heapPositions[variable]);
+		}
+	}
+
+	/**
+	 * Adds the given variable to the heap, unless it is already there.
+	 *
+	 * @param variable the variable to be added
+	 */
+	private void insert(int variable) {
+		if(this.heapPositions[variable] < 0) {
+			this.heap[this.heapSize] = variable;
+			this.heapPositions[variable] = this.heapSize;
+			this.up(this.heapSize++);
+		}
+	}
+
+	/**
+	 * Removes and returns the most active variable in the heap.
+	 *
+	 * @return the most active variable, or <code>0</code> if the heap is
+	 *  empty
+	 */
+	private int removeMax() {
+		if(this.heapSize == 0) {
+			return(0);
+		}
+		int result = this.heap[0];
+		this.heapPositions[result] = -1;
+		if(--this.heapSize > 0) {
+			this.heap[0] = this.heap[this.heapSize];
+			this.heapPositions[this.heap[0]] = 0;
+			this.down(0);
+		}
+		return(result);
+	}
+
+	/**
+	 * Moves the variable at the given position of the heap up until its
+	 * parent is at least as active.
+	 *
+	 * @param position a position in the heap
+	 */
+	private void up(int position) {
+		int variable = this.heap[position];
+		while(position > 0) {
+			int parent = (position - 1) / 2;
+			if(this.activity[this.heap[parent]] >= this.activity[variable]) {
+				break;
+			}
+			this.heap[position] = this.heap[parent];
+			this.heapPositions[this.heap[position]] = position;
+			position = parent;
+		}
+		this.heap[position] = variable;
+		this.heapPositions[variable] = position;
+	}
+
+	/**
+	 * Moves the variable at the given position of the heap down until its
+	 * children are no more active.
+	 *
+	 * @param position a position in the heap
+	 */
+	private void down(int position) {
+		int variable = this.heap[position];
+		while(2 * position + 1 < this.heapSize) {
+			int child = 2 * position + 1;
+			if(child + 1 < this.heapSize && this.activity[this.heap[child + 1]] > this.activity[this.heap[child]]) {
+				child++;
+			}
+			if(this.activity[this.heap[child]] <= this.activity[variable]) {
+				break;
+			}
+			this.heap[position] = this.heap[child];
+			this.heapPositions[this.heap[position]] = position;
+			position = child;
+		}
+		this.heap[position] = variable;
+		this.heapPositions[variable] = position;
+	}
+
+	/**
+	 * Returns the given element of the Luby sequence (1, 1, 2, 1, 1, 2, 4,
+	 * ...), which gives the lengths of the runs between restarts.
+	 *
+	 * @param index the index of the element, starting at zero
+	 * @return the element of the sequence
+	 */
+	private static long luby(int index) {
+		long size = 1;
+		int sequence = 0;
+		while(size < index + 1) {
+			sequence++;
+			size = 2 * size + 1;
+		}
+		while(size - 1 != index) {
+			size = (size - 1) / 2;
+			sequence--;
+			index = index % (int)size;
+		}
+		return(1L << sequence);
+	}
+}
\ No newline at end of file
@@ -1,158 +1,411 @@
-/*
-** COMP 4905 - Honours Project
-** School of Computer Science, Carleton University
-** Fall 2006
-**
-** Proof Trees for Propositional Logic with Extensions to First Order Logic
-**
-** John Howat
-** jhowat@primus.ca
-*/
-
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.InputStreamReader;
-import java.io.IOException;
-import java.util.Vector;
-
-/**
- * The <code>prove</code> class functions as the entry point into the program.
- * The user must enter his or her argument in one of two ways.
- * <p>
- * The user may elect to supply a file containing the argument. To do this, the
- * user passes the filename on the command line. The file should list one
- * premise per line followed by the conclusion on the last line. Blank lines
- * are allowed. The conclusion of the argument should be the actual conclusion,
- * i.e., unnegated.
- * <p>
- * Alternatively, the user may wish to input the argument manually. To do this,
- * the user must pass no arguments on the command line. The user will be
- * prompted to enter premises, one per line, followed by <code>Enter</code>.
- * After all premises have been entered, a blank premise should be entered. The
- * conclusion will then be entered, again followed by <code>Enter</code>. As
- * before, the conclusion of the argument should be the actual conclusion, i.e.,
- * unnegated.
- * <p>
- * The program will proceed to build a proof tree. Once built (if the algorithm
- * terminates) the user will be presented with the building time, the size of
- * the tree, the validity of the argument and the tree itself.
- */
-public class prove {
-	/**
-	 * The source of the input for the program.
-	 */
-	private static BufferedReader input;
-
-	/**
-	 * Reads and returns a line from the input.
-	 * 
-	 * @return a string consisting of the next line of input
-	 * @throws IOException if an I/O error occurs
-	 */
-	private static String readLine() throws IOException {
-		return(input.readLine());
-	}
-
-	/**
-	 * Reads in an argument from input without prompts (i.e., from a file.) The
-	 * caller must split the returned formulae into premises and a conclusion.
-	 *
-	 * @return a list of formulae returned from the input
-	 * @throws IOException if an I/O error occurs
-	 */
-	private static Vector<Formula> getArgumentFromFile() throws IOException {
-		Vector<Formula> formulae = new Vector<Formula>();
-		String line;
-		while((line = readLine()) != null) {
-			if(!line.equals("")) {	
-				formulae.add(new Formula(line));
-			}
-		}
-		return(formulae);
-	}
-
-	/**
-	 * Reads in an argument from input with prompts (i.e., from the console.)
-	 * The caller must split the returned formulae into premises and a
-	 * conclusion.
-	 *
-	 * @return a list of formulae returned from the input
-	 * @throws IOException if an I/O error occurs
-	 */
-	private static Vector<Formula> getArgumentFromConsole() throws IOException {
-		Vector<Formula> formulae = new Vector<Formula>();
-		System.out.println("Please enter each premise followed by Enter.");
-		System.out.println("Enter a blank premise when done.");
-
-		while(true) {
-			System.out.print("Premise " + (formulae.size() + 1) + ": ");
-			String line = readLine();
-			if(line.equals("")) {
-				break;
-			} else {
-				Formula f;
-				try {
-					f = new Formula(line);
-				} catch(Exception e) {
-					System.out.println("Poorly formed premise! Please re-enter.");
-					continue;	
-				}
-				formulae.add(f);
-			}
-		}
-
-		while(true) {
-			System.out.print("Conclusion: ");
-			String line = readLine();
-			Formula f;
-			try {
-				f = new Formula(line);
-			} catch(Exception e) {
-				System.out.println("Poorly formed conclusion! Please re-enter.");
-				continue;	
-			}
-			formulae.add(f);
-			break;
-		}
-
-		return(formulae);
-	}
-
-	/**
-	 * Reads in an argument, builds a proof tree, and reports information about
-	 * the specified argument. This is the main entry point for the program.
-	 */
-	public static void main(String[] args) {
-		Vector<Formula> premises = null;
-		try {
-			if(args.length == 1) {
-				String filename = "";
-				for(int i = 0; i < args.length; i++) {
-					filename += args[i];
-					if(i < args.length - 1) {
-						filename += " ";
-					}
-				}
-				input = new BufferedReader(new FileReader(filename));
-				premises = getArgumentFromFile();
-			} else {
-				input = new BufferedReader(new InputStreamReader(System.in));
-				premises = getArgumentFromConsole();
-			}
-		} catch(Exception e) {
-			System.err.println("Error: " + e.getMessage());
-			System.exit(1);
-		}
-		Formula conclusion = premises.remove(premises.size() - 1);
-
-		long start = System.nanoTime();
-		ProofTree tree = ProofTreeGenerator.generateProofTree(premises, conclusion);
-		long stop = System.nanoTime();
-
-		System.out.println("Tree build time: " + ((double)(stop-start)/1000000000.0) + " seconds");
-		System.out.println("Tree size      : " + tree.size());
-		System.out.println("Argument type  : " + (tree.closes() ? "valid" : "invalid"));
-		System.out.println();
-		System.out.print(tree);
-	}
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The <code>prove</code> class functions as the entry point into the program.
+ * The user must enter his or her argument in one of two ways.
+ * <p>
+ * The user may elect to supply a file containing the argument. To do this, the
+ * user passes the filename on the command line. The file should list one
+ * premise per line followed by the conclusion on the last line. Blank lines
+ * are allowed. The conclusion of the argument should be the actual conclusion,
+ * i.e., unnegated.
+ * <p>
+ * Alternatively, the user may wish to input the argument manually. To do this,
+ * the user must pass no arguments on the command line. The user will be
+ * prompted to enter premises, one per line, followed by <code>Enter</code>.
+ * After all premises have been entered, a blank premise should be entered. The
+ * conclusion will then be entered, again followed by <code>Enter</code>. As
+ * before, the conclusion of the argument should be the actual conclusion, i.e.,
+ * unnegated.
+ * <p>
+ * The program will proceed to build a proof tree. Once built (if the algorithm
+ * terminates) the user will be presented with the building time, the size of
+ * the tree, the validity of the argument and the tree itself.
+ * <p>
+ * Finally, the user may prove many arguments at once by passing several files,
+ * or a directory of files, on the command line. The arguments are proved
+ * concurrently, and one summary line is printed per argument (in the order
+ * given) with its validity, tree size and building time. The trees themselves
+ * are not printed. The number of threads may be set by passing <code>-threads
+ * </code> followed by a number before the files; by default, one thread per
+ * processor is used.
+ * <p>
+ * The program may also be run as a service by passing <code>-serve</code>
+ * followed by a port number, in which case arguments are proved as they are
+ * sent to it by a <code>ProofServer</code>. The number of threads then limits
+ * the number of trees built at once, and up to four requests per thread may
+ * wait for their turn.
+ * <p>
+ * In both of these cases, results are remembered so that an argument given
+ * again is not proved again. Passing <code>-cache</code> followed by a file
+ * name before the files (or <code>-serve</code>) also keeps the results in
+ * that file, so that they are remembered the next time the program is run.
+ * <p>
+ * Passing <code>-block</code> before the files blocks branches which only
+ * repeat themselves with new constants, so that search stops on more invalid
+ * first-order arguments. Unless every predicate takes at most one term, an
+ * argument whose open branches were all blocked is reported as unknown. A
+ * service blocks only for requests asking for it.
+ * <p>
+ * Passing <code>-decide</code> before the files proves them without keeping
+ * their trees, printing only their validity and the time taken. Arguments with
+ * no quantifiers are then decided by a SAT solver rather than a tree. Results
+ * are not remembered in this case.
+ *
+ * @see ProofServer
+ * @see ProofCache
+ * @see ProofTreeGenerator#decide(Vector, Formula, Budget)
+ */
+public class prove {
+	/**
+	 * The longest time allowed for building a tree when running as a service,
+	 * in milliseconds.
+	 */
+	private static final long DEADLINE = 60000;
+
+	/**
+	 * The number of requests which may wait for their turn when running as a
+	 * service, for each tree which may be built at once.
+	 */
+	private static final int QUEUE_PER_THREAD = 4;
+
+	/**
+	 * The greatest number of results remembered when proving several
+	 * arguments or running as a service.
+	 */
+	private static final int CACHE_SIZE = 100000;
+
+	/**
+	 * The source of the input for the program.
+	 */
+	private static BufferedReader input;
+
+	/**
+	 * Reads and returns a line from the input.
+	 * 
+	 * @return a string consisting of the next line of input
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static String readLine() throws IOException {
+		return(input.readLine());
+	}
+
+	/**
+	 * Reads in an argument from input without prompts (i.e., from a file.) The
+	 * caller must split the returned formulae into premises and a conclusion.
+	 *
+	 * @return a list of formulae returned from the input
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static Vector<Formula> getArgumentFromFile() throws IOException {
+		return(getArgumentFrom(input));
+	}
+
+	/**
+	 * Reads in an argument from the given reader without prompts. The caller
+	 * must split the returned formulae into premises and a conclusion.
+	 *
+	 * @param reader the reader from which the argument is read
+	 * @return a list of formulae returned from the reader
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static Vector<Formula> getArgumentFrom(BufferedReader reader) throws IOException {
+		Vector<Formula> formulae = new Vector<Formula>();
+		String line;
+		while((line = reader.readLine()) != null) {
+			if(!line.equals("")) {	
+				formulae.add(Formula.parse(line));
+			}
+		}
+		return(formulae);
+	}
+
+	/**
+	 * Reads in an argument from input with prompts (i.e., from the console.)
+	 * The caller must split the returned formulae into premises and a
+	 * conclusion.
+	 *
+	 * @return a list of formulae returned from the input
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static Vector<Formula> getArgumentFromConsole() throws IOException {
+		Vector<Formula> formulae = new Vector<Formula>();
+		System.out.println("Please enter each premise followed by Enter.");
+		System.out.println("Enter a blank premise when done.");
+
+		while(true) {
+			System.out.print("Premise " + (formulae.size() + 1) + ": ");
+			String line = readLine();
+			if(line.equals("")) {
+				break;
+			} else {
+				Formula f;
+				try {
+					f = Formula.parse(line);
+				} catch(Exception e) {
+					System.out.println("Poorly formed premise! Please re-enter.");
+					continue;	
+				}
+				formulae.add(f);
+			}
+		}
+
+		while(true) {
+			System.out.print("Conclusion: ");
+			String line = readLine();
+			Formula f;
+			try {
+				f = Formula.parse(line);
+			} catch(Exception e) {
+				System.out.println("Poorly formed conclusion! Please re-enter.");
+				continue;	
+			}
+			formulae.add(f);
+			break;
+		}
+
+		return(formulae);
+	}
+
+	/**
+	 * Reads in the argument in the given file, builds a proof tree, and
+	 * returns a one line summary of the validity of the argument, the size of
+	 * the tree and the building time. If only deciding, no tree is kept, the
+	 * cache is not used, and the summary leaves out the size.
+	 *
+	 * @param file the file containing the argument
+	 * @param cache the results already known
+	 * @param blocking whether or not branches which repeat themselves are
+	 *  blocked
+	 * @param deciding whether or not only the validity is needed
+	 * @return a one line summary of the argument
+	 * @throws IOException if an I/O error occurs
+	 * @see ProofTreeGenerator#generateProofTree(Vector, Formula, Budget, boolean)
+	 */
+	private static String summarize(File file, ProofCache cache, boolean blocking, boolean deciding) throws IOException {
+		Vector<Formula> premises;
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			premises = getArgumentFrom(reader);
+		} finally {
+			reader.close();
+		}
+		if(premises.size() == 0) {
+			throw new IOException("no conclusion");
+		}
+		Formula conclusion = premises.remove(premises.size() - 1);
+
+		Budget budget = new Budget();
+		long start = System.nanoTime();
+		if(deciding) {
+			String outcome = ProofTreeGenerator.decide(premises, conclusion, budget, blocking);
+			long stop = System.nanoTime();
+			return(file.getPath() + ": " + outcome + ", " + ((double)(stop-start)/1000000000.0) + " seconds");
+		}
+		ProofCache.Result result = cache.prove(premises, conclusion, budget, blocking);
+		long stop = System.nanoTime();
+
+		return(file.getPath() + ": " + result.getOutcome() + ", size " + result.getSize() + ", " + ((double)(stop-start)/1000000000.0) + " seconds");
+	}
+
+	/**
+	 * Proves the arguments in the given files concurrently and prints a one
+	 * line summary of each, in the order given, as soon as it is available.
+	 * Directories are replaced by the files they contain, in order of name.
+	 *
+	 * @param files the files (or directories) containing the arguments
+	 * @param threads the number of arguments to prove at once
+	 * @param cache the results already known
+	 * @param blocking whether or not branches which repeat themselves are
+	 *  blocked
+	 * @param deciding whether or not only the validity is needed
+	 * @see #summarize(File, ProofCache, boolean, boolean)
+	 */
+	private static void batch(Vector<File> files, int threads, final ProofCache cache, final boolean blocking, final boolean deciding) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		Vector<File> arguments = new Vector<File>();
+		for(int i = 0; i < files.size(); i++) {
+			File[] contents = files.get(i).listFiles();
+			if(contents == null) {
+				arguments.add(files.get(i));
+			} else {
+				Arrays.sort(contents);
+				for(int j = 0; j < contents.length; j++) {
+					if(contents[j].isFile()) {
+						arguments.add(contents[j]);
+					}
+				}
+			}
+		}
+
+		Vector<Future<String>> summaries = new Vector<Future<String>>();
+		for(int i = 0; i < arguments.size(); i++) {
+			final File file = arguments.get(i);
+			summaries.add(pool.submit(new Callable<String>() {
+				public String call() throws IOException {
+					return(summarize(file, cache, blocking, deciding));
+				}
+			}));
+		}
+		pool.shutdown();
+
+		for(int i = 0; i < summaries.size(); i++) {
+			try {
+				System.out.println(summaries.get(i).get());
+			} catch(ExecutionException e) {
+				Throwable cause = e.getCause();
+				System.out.println(arguments.get(i).getPath() + ": error: " + ((cause.getMessage() != null) ? cause.getMessage() : cause.toString()));
+			} catch(InterruptedException e) {
+				pool.shutdownNow();
+				return;
+			}
+			summaries.set(i, null);
+		}
+	}
+
+	/**
+	 * Runs a <code>ProofServer</code> on the given port until the program is
+	 * stopped.
+	 *
+	 * @param port the port to listen on
+	 * @param threads the number of trees which may be built at once
+	 * @param cache the results already known
+	 * @see ProofServer
+	 */
+	private static void serve(String port, int threads, ProofCache cache) {
+		try {
+			ProofServer server = new ProofServer(Integer.parseInt(port), threads, threads * QUEUE_PER_THREAD, DEADLINE, cache);
+			server.start();
+			System.out.println("Listening on port " + port);
+		} catch(NumberFormatException e) {
+			System.err.println("Error: invalid port " + port);
+			System.exit(1);
+		} catch(IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Reads in an argument, builds a proof tree, and reports information about
+	 * the specified argument. This is the main entry point for the program.
+	 */
+	public static void main(String[] args) {
+		int threads = Runtime.getRuntime().availableProcessors();
+		String cacheFile = null;
+		boolean blocking = false;
+		boolean deciding = false;
+		boolean options = false;
+		int first = 0;
+		while((args.length - first >= 1 && (args[first].equals("-block") || args[first].equals("-decide")))
+			|| (args.length - first >= 2 && (args[first].equals("-threads") || args[first].equals("-cache")))) {
+			if(args[first].equals("-block")) {
+				blocking = true;
+				first++;
+				continue;
+			} else if(args[first].equals("-decide")) {
+				deciding = true;
+				options = true;
+				first++;
+				continue;
+			} else if(args[first].equals("-cache")) {
+				cacheFile = args[first + 1];
+			} else {
+				try {
+					threads = Integer.parseInt(args[first + 1]);
+				} catch(NumberFormatException e) {
+					threads = 0;
+				}
+				if(threads < 1) {
+					System.err.println("Error: invalid number of threads " + args[first + 1]);
+					System.exit(1);
+				}
+			}
+			options = true;
+			first += 2;
+		}
+		boolean serving = (args.length - first == 2 && args[first].equals("-serve"));
+		if(serving || args.length - first > 1 || (args.length - first == 1 && (options || new File(args[first]).isDirectory()))) {
+			ProofCache cache = null;
+			try {
+				cache = (cacheFile == null) ? new ProofCache(CACHE_SIZE) : new ProofCache(CACHE_SIZE, new File(cacheFile));
+			} catch(IOException e) {
+				System.err.println("Error: " + e.getMessage());
+				System.exit(1);
+			}
+			if(serving) {
+				serve(args[first + 1], threads, cache);
+				return;
+			}
+			Vector<File> files = new Vector<File>();
+			for(int i = first; i < args.length; i++) {
+				files.add(new File(args[i]));
+			}
+			batch(files, threads, cache, blocking, deciding);
+			try {
+				cache.close();
+			} catch(IOException e) {
+				System.err.println("Error: " + e.getMessage());
+			}
+			return;
+		}
+
+		Vector<Formula> premises = null;
+		try {
+			if(args.length - first == 1) {
+				input = new BufferedReader(new FileReader(args[first]));
+				premises = getArgumentFromFile();
+			} else {
+				input = new BufferedReader(new InputStreamReader(System.in));
+				premises = getArgumentFromConsole();
+			}
+		} catch(Exception e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+		Formula conclusion = premises.remove(premises.size() - 1);
+
+		Budget budget = new Budget();
+		long start = System.nanoTime();
+		ProofTree tree = ProofTreeGenerator.generateProofTree(premises, conclusion, budget, blocking);
+		long stop = System.nanoTime();
+
+		System.out.println("Tree build time: " + ((double)(stop-start)/1000000000.0) + " seconds");
+		System.out.println("Tree size      : " + tree.size());
+		System.out.println("Argument type  : " + tree.getOutcome());
+		System.out.println();
+		try {
+			Writer output = new BufferedWriter(new OutputStreamWriter(System.out));
+			tree.write(output);
+			output.flush();
+		} catch(IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
 }
\ No newline at end of file
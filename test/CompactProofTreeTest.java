@@ -0,0 +1,216 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Vector;
+
+/**
+ * The <code>CompactProofTreeTest</code> class checks that a compact proof
+ * tree, read either by index or through its view, holds the same tree as the
+ * proof tree it was made from. It is run as a program, and exits with a
+ * non-zero status if any check fails.
+ */
+public class CompactProofTreeTest {
+	/**
+	 * The number of checks which have failed.
+	 */
+	private static int failures = 0;
+
+	/**
+	 * Runs the checks.
+	 *
+	 * @param args the command line arguments (unused)
+	 * @throws IOException if a sample argument cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		testSamples();
+		testTicked();
+		testUnchangeable();
+		if(failures > 0) {
+			System.out.println(failures + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("All checks passed");
+	}
+
+	/**
+	 * Checks the compact trees of the trees for the sample arguments in the
+	 * <code>test</code> directory. The checks are run from the top of the
+	 * source tree.
+	 *
+	 * @throws IOException if a sample argument cannot be read
+	 */
+	private static void testSamples() throws IOException {
+		for(int i = 1; i <= 12; i++) {
+			String name = "test/arg" + ((i < 10) ? "0" : "") + i + ".txt";
+			Vector<Formula> premises = new Vector<Formula>();
+			BufferedReader reader = new BufferedReader(new FileReader(name));
+			String line;
+			while((line = reader.readLine()) != null) {
+				if(!line.equals("")) {
+					premises.add(Formula.parse(line));
+				}
+			}
+			reader.close();
+			Formula conclusion = premises.remove(premises.size() - 1);
+			check(name, ProofTreeGenerator.generateProofTree(premises, conclusion, new Budget(5000, 100000, Long.MAX_VALUE)));
+		}
+	}
+
+	/**
+	 * Checks the compact tree of a tree built by hand, in which some formulae
+	 * are ticked, some nodes are closed, and one node has only a right child
+	 * left after its left child was removed.
+	 */
+	private static void testTicked() {
+		ProofTree tree = new ProofTree(formulae("(P & Q)", "(R + S)", "~P"));
+		ProofTreeNode root = tree.getRoot();
+		root.tickFormula(0);
+		ProofTreeNode middle = new ProofTreeNode(formulae("P", "Q"));
+		tree.addChild(root, middle);
+		ProofTreeNode left = new ProofTreeNode(formulae("R"));
+		ProofTreeNode right = new ProofTreeNode(formulae("S"));
+		tree.addChild(middle, left);
+		tree.addChild(middle, right);
+		middle.tickFormula(1);
+		ProofTreeNode lower = new ProofTreeNode(formulae("T"));
+		ProofTreeNode other = new ProofTreeNode(formulae("U"));
+		tree.addChild(right, lower);
+		tree.addChild(right, other);
+		tree.removeChild(right, lower);
+		tree.close(left);
+		check("hand-built tree", tree);
+	}
+
+	/**
+	 * Checks that changing the view of a compact tree is refused.
+	 */
+	private static void testUnchangeable() {
+		ProofTree tree = new ProofTree(formulae("P", "Q"));
+		tree.addChild(tree.getRoot(), new ProofTreeNode(formulae("R")));
+		ProofTree view = new CompactProofTree(tree).getView();
+		ProofTreeNode leaf = view.getRoot().getLeftChild();
+
+		try {
+			view.close(leaf);
+			expect(false, "closing a node of the view is refused");
+		} catch(UnsupportedOperationException e) {
+		}
+		try {
+			view.addChild(leaf, new ProofTreeNode(formulae("S")));
+			expect(false, "adding a node to the view is refused");
+		} catch(UnsupportedOperationException e) {
+		}
+		try {
+			leaf.tickFormula(0);
+			expect(false, "ticking a formula of the view is refused");
+		} catch(UnsupportedOperationException e) {
+		}
+		expect(!leaf.isClosed() && !leaf.isTicked(0) && leaf.getLeftChild() == null, "the view is unchanged by refused changes");
+		expect(view.getLeavesBelow(view.getRoot()).size() == 1, "the view still has one open leaf");
+	}
+
+	/**
+	 * Checks that the compact tree of the given tree holds the same tree,
+	 * walking the tree, the compact tree by index and the view of the compact
+	 * tree together in pre-order.
+	 *
+	 * @param name a name for the tree, used in descriptions of failures
+	 * @param tree the tree to be compacted
+	 */
+	private static void check(String name, ProofTree tree) {
+		CompactProofTree compact = new CompactProofTree(tree);
+		ProofTree view = compact.getView();
+		expect(compact.size() == tree.size() && view.size() == tree.size(), name + ": sizes match");
+		expect(compact.closes() == tree.closes() && view.getOutcome().equals(tree.getOutcome()), name + ": outcomes match");
+		expect(compact.toString().equals(tree.toString()), name + ": compact tree is written as the tree is");
+		expect(view.toString().equals(tree.toString()), name + ": view is written as the tree is");
+
+		IdentityHashMap<ProofTreeNode, ProofTreeNode> views = new IdentityHashMap<ProofTreeNode, ProofTreeNode>();
+		Vector<ProofTreeNode> nodes = new Vector<ProofTreeNode>();
+		Vector<ProofTreeNode> viewNodes = new Vector<ProofTreeNode>();
+		nodes.add(tree.getRoot());
+		viewNodes.add(view.getRoot());
+		for(int index = 0; nodes.size() > 0; index++) {
+			ProofTreeNode node = nodes.remove(nodes.size() - 1);
+			ProofTreeNode viewNode = viewNodes.remove(viewNodes.size() - 1);
+			views.put(node, viewNode);
+			String where = name + ": node " + index + " (" + node + ")";
+
+			boolean same = (compact.getFormulaCount(index) == node.getFormulaCount()) && (viewNode.getFormulaCount() == node.getFormulaCount());
+			for(int i = 0; same && i < node.getFormulaCount(); i++) {
+				same = compact.getFormula(index, i).equals(node.getFormula(i)) && viewNode.getFormula(i).equals(node.getFormula(i));
+				same &= (compact.isTicked(index, i) == node.isTicked(i)) && (viewNode.isTicked(i) == node.isTicked(i));
+			}
+			expect(same, where + ": formulae and ticks match");
+			expect(viewNode.equals(node), where + ": view node equals node");
+			expect(compact.isClosed(index) == node.isClosed() && viewNode.isClosed() == node.isClosed(), where + ": closure matches");
+			expect(view.closesFrom(viewNode) == tree.closesFrom(node), where + ": closure below matches");
+			expect(view.getLeavesBelow(viewNode).size() == tree.getLeavesBelow(node).size(), where + ": open leaves below match");
+
+			ProofTreeNode parent = node.getParent();
+			expect((parent == null) ? (viewNode.getParent() == null && compact.getParent(index) == CompactProofTree.NONE) : (viewNode.getParent() == views.get(parent)), where + ": parent matches");
+			expect((node.getLeftChild() == null) == (compact.getLeftChild(index) == CompactProofTree.NONE) && (node.getLeftChild() == null) == (viewNode.getLeftChild() == null), where + ": left child matches");
+			expect((node.getRightChild() == null) == (compact.getRightChild(index) == CompactProofTree.NONE) && (node.getRightChild() == null) == (viewNode.getRightChild() == null), where + ": right child matches");
+			expect(node.getLeftChild() == null || compact.getLeftChild(index) == index + 1, where + ": left child follows in pre-order");
+			expect(viewNode.getLeftChild() == viewNode.getLeftChild(), where + ": view nodes are made once");
+
+			if(node.getRightChild() != null && viewNode.getRightChild() != null) {
+				nodes.add(node.getRightChild());
+				viewNodes.add(viewNode.getRightChild());
+			}
+			if(node.getLeftChild() != null && viewNode.getLeftChild() != null) {
+				nodes.add(node.getLeftChild());
+				viewNodes.add(viewNode.getLeftChild());
+			}
+		}
+
+		Vector<ProofTreeNode> leaves = tree.getLeavesBelow(tree.getRoot());
+		Vector<ProofTreeNode> viewLeaves = view.getLeavesBelow(view.getRoot());
+		boolean same = (leaves.size() == viewLeaves.size());
+		for(Iterator<ProofTreeNode> i = leaves.iterator(), j = viewLeaves.iterator(); same && i.hasNext();) {
+			same = (views.get(i.next()) == j.next());
+		}
+		expect(same, name + ": open leaves match, in order");
+	}
+
+	/**
+	 * Returns a list of the given formulae.
+	 *
+	 * @param formulae the string representations of the formulae
+	 * @return a list of the parsed formulae
+	 */
+	private static Vector<Formula> formulae(String... formulae) {
+		Vector<Formula> result = new Vector<Formula>();
+		for(int i = 0; i < formulae.length; i++) {
+			result.add(Formula.parse(formulae[i]));
+		}
+		return(result);
+	}
+
+	/**
+	 * Records the result of a check, printing a description of it if it
+	 * failed.
+	 *
+	 * @param condition whether or not the check succeeded
+	 * @param description a description of what was checked
+	 */
+	private static void expect(boolean condition, String description) {
+		if(!condition) {
+			failures++;
+			System.out.println("FAILED: " + description);
+		}
+	}
+}
\ No newline at end of file
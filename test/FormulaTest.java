@@ -0,0 +1,191 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+/**
+ * The <code>FormulaTest</code> class checks the parsing and printing of
+ * formulae. It is run as a program, and exits with a non-zero status if any
+ * check fails.
+ */
+public class FormulaTest {
+	/**
+	 * The number of checks which have failed.
+	 */
+	private static int failures = 0;
+
+	/**
+	 * Runs the checks.
+	 *
+	 * @param args the command line arguments (unused)
+	 */
+	public static void main(String[] args) {
+		testParse();
+		testDeepNesting();
+		testLongChain();
+		if(failures > 0) {
+			System.out.println(failures + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("All checks passed");
+	}
+
+	/**
+	 * Checks that infix and prefix formulae are parsed with the usual
+	 * priorities and grouping, and that malformed formulae are rejected.
+	 */
+	private static void testParse() {
+		check("A&B+C", "+&ABC");
+		check("A>B>C", ">>ABC");
+		check("&A+BC", "&A+BC");
+		check("@x(Fx>Gx)", "@x>FxGx");
+		check("#y~Fy&A", "&#y~FyA");
+		check("~((A:B))", "~:AB");
+		checkRejected("(A");
+		checkRejected("A)");
+		checkRejected("&A");
+		checkRejected("A&&B");
+	}
+
+	/**
+	 * Checks that deeply nested formulae are parsed without exhausting the
+	 * call stack.
+	 */
+	private static void testDeepNesting() {
+		int depth = 5000;
+		StringBuilder negations = new StringBuilder();
+		StringBuilder brackets = new StringBuilder();
+		StringBuilder prefix = new StringBuilder();
+		for(int i = 0; i < depth; i++) {
+			negations.append("~");
+			brackets.append("(A&");
+			prefix.append("&A");
+		}
+		String bracketed = brackets.toString() + "A";
+		for(int i = 0; i < depth; i++) {
+			bracketed = bracketed + ")";
+		}
+
+		Formula formula = parse(negations.toString() + "A");
+		int count = 0;
+		while(formula != null && formula.getMajorOperator().equals(Formula.NEGATION)) {
+			formula = formula.getMajorOperands().get(0);
+			count++;
+		}
+		expect(count == depth && formula != null && formula.equals(Formula.atom("A")), depth + " nested negations");
+		expect(parse(bracketed) != null, depth + " nested brackets");
+		expect(parse(prefix.toString() + "A") != null, depth + " nested prefix operators");
+		expect(parse("@x" + negations.toString() + "Fx") != null, depth + " negations under a quantifier");
+	}
+
+	/**
+	 * Checks that a long chain of conjunctions, which nests as deeply as it
+	 * is long, is printed and examined without exhausting the call stack, and
+	 * that a quantified chain is instantiated without exhausting it.
+	 */
+	private static void testLongChain() {
+		int length = 20000;
+		StringBuilder infix = new StringBuilder("A");
+		StringBuilder expected = new StringBuilder();
+		for(int i = 1; i < length; i++) {
+			infix.append('&').append((char)('A' + (i % 26)));
+			expected.append('&');
+		}
+		for(int i = 0; i < length; i++) {
+			expected.append((char)('A' + (i % 26)));
+		}
+		StringBuilder body = new StringBuilder("Fx");
+		StringBuilder instance = new StringBuilder("Fa");
+		for(int i = 1; i < length; i++) {
+			body.append("&Fx");
+			instance.append("&Fa");
+		}
+
+		Formula chain = parse(infix.toString());
+		if(chain == null) {
+			return;
+		}
+		try {
+			String text = chain.toString();
+			expect(text.equals(expected.toString()), length + "-term chain prints in prefix notation");
+			expect(chain.equals(parse(text)), length + "-term chain parses back from its prefix notation");
+			expect(chain.getCanonicalForm().equals(text), length + "-term chain has its prefix notation as canonical form");
+			expect(chain.getConstants().size() == 0 && chain.getVariables().size() == 0, length + "-term chain has no terms");
+		} catch(StackOverflowError e) {
+			expect(false, length + "-term chain overflowed the stack");
+		}
+
+		Formula quantified = parse("@x(" + body.toString() + ")");
+		Formula expectedInstance = parse(instance.toString());
+		if(quantified == null || expectedInstance == null) {
+			return;
+		}
+		try {
+			expect(quantified.instantiate("a").equals(expectedInstance), "quantified " + length + "-term chain instantiates for a");
+			expect(quantified.getMajorOperands().get(0).substitute("x", "a").equals(expectedInstance), length + "-term chain substitutes a for x");
+		} catch(StackOverflowError e) {
+			expect(false, "quantified " + length + "-term chain overflowed the stack");
+		}
+	}
+
+	/**
+	 * Checks that a formula is parsed to the given prefix notation.
+	 *
+	 * @param text the formula to be parsed
+	 * @param expected the expected prefix notation of the formula
+	 */
+	private static void check(String text, String expected) {
+		Formula formula = parse(text);
+		expect(formula != null && formula.toString().equals(expected), text + " parses to " + expected + " (got " + formula + ")");
+	}
+
+	/**
+	 * Checks that a malformed formula is rejected.
+	 *
+	 * @param text the malformed formula
+	 */
+	private static void checkRejected(String text) {
+		try {
+			Formula.parse(text);
+			expect(false, text + " is rejected");
+		} catch(IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Parses a formula, recording a failure if it cannot be parsed.
+	 *
+	 * @param text the formula to be parsed
+	 * @return the formula parsed, or <code>null</code> if it could not be
+	 *  parsed
+	 */
+	private static Formula parse(String text) {
+		try {
+			return(Formula.parse(text));
+		} catch(RuntimeException e) {
+			expect(false, "parsing failed: " + e);
+		} catch(StackOverflowError e) {
+			expect(false, "parsing overflowed the stack");
+		}
+		return(null);
+	}
+
+	/**
+	 * Records the result of a check, printing a message if it failed.
+	 *
+	 * @param condition whether or not the check passed
+	 * @param description a description of the check
+	 */
+	private static void expect(boolean condition, String description) {
+		if(!condition) {
+			failures++;
+			System.out.println("FAILED: " + description);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,342 @@
+/*
+** COMP 4905 - Honours Project
+** School of Computer Science, Carleton University
+** Fall 2006
+**
+** Proof Trees for Propositional Logic with Extensions to First Order Logic
+**
+** John Howat
+** jhowat@primus.ca
+*/
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * The <code>ProofTreeGeneratorTest</code> class checks the generation of proof
+ * trees. It is run as a program, and exits with a non-zero status if any check
+ * fails.
+ */
+public class ProofTreeGeneratorTest {
+	/**
+	 * The number of checks which have failed.
+	 */
+	private static int failures = 0;
+
+	/**
+	 * Runs the checks.
+	 *
+	 * @param args the command line arguments (unused)
+	 * @throws IOException if a sample argument or tree cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		testSamples();
+		testDecideAgrees();
+		testDecideDeep();
+		testDecideBranches();
+		testBlocking();
+		if(failures > 0) {
+			System.out.println(failures + " check(s) failed");
+			System.exit(1);
+		}
+		System.out.println("All checks passed");
+	}
+
+	/**
+	 * Checks that the trees generated for the sample arguments in the <code>
+	 * test</code> directory are the same, line for line, as those kept in the
+	 * <code>test/trees</code> directory, which were generated by scanning the
+	 * whole tree for the most preferred rule application at each stage. The
+	 * checks are run from the top of the source tree.
+	 * <p>
+	 * The scan dropped an alternative of a branching rule whose formulae were
+	 * all on the branch already, and kept the others, which could close a
+	 * branch that should stay open. It did so in the tree for <code>
+	 * arg03.txt</code>, which wrongly closed; the tree kept for it is the one
+	 * which adds no alternatives there instead. The trees for <code>
+	 * arg10.txt</code> and <code>arg11.txt</code> are not checked: the scan
+	 * also instantiated universally quantified formulae again for constants
+	 * they had already been instantiated for on the branch, which the ledger
+	 * of instantiations now prevents.
+	 *
+	 * @throws IOException if a sample argument or tree cannot be read
+	 */
+	private static void testSamples() throws IOException {
+		String[] samples = {"arg01", "arg02", "arg03", "arg04", "arg05", "arg06", "arg07", "arg08", "arg09", "arg12"};
+		for(int i = 0; i < samples.length; i++) {
+			Vector<Formula> premises = readArgument("test/" + samples[i] + ".txt");
+			Formula conclusion = premises.remove(premises.size() - 1);
+
+			StringBuilder expected = new StringBuilder();
+			BufferedReader reader = new BufferedReader(new FileReader("test/trees/" + samples[i] + ".txt"));
+			String line;
+			while((line = reader.readLine()) != null) {
+				expected.append(line).append("\n");
+			}
+			reader.close();
+			String actual = ProofTreeGenerator.generateProofTree(premises, conclusion, budget()).toString();
+			expect(actual.equals(expected.toString()), "tree for " + samples[i] + " matches test/trees/" + samples[i] + ".txt");
+		}
+	}
+
+	/**
+	 * Checks that the outcome of the tree for each propositional sample
+	 * argument, and for random propositional arguments, is the validity
+	 * found by the SAT solver when the argument is only decided.
+	 *
+	 * @throws IOException if a sample argument cannot be read
+	 */
+	private static void testDecideAgrees() throws IOException {
+		for(int i = 1; i <= 9; i++) {
+			Vector<Formula> premises = readArgument("test/arg0" + i + ".txt");
+			checkDecideAgrees(premises, premises.remove(premises.size() - 1));
+		}
+
+		Random random = new Random(4905);
+		for(int i = 0; i < 500; i++) {
+			Vector<Formula> premises = new Vector<Formula>();
+			int count = 1 + random.nextInt(4);
+			for(int j = 0; j < count; j++) {
+				premises.add(Formula.parse(randomFormula(random, 1 + random.nextInt(4))));
+			}
+			checkDecideAgrees(premises, premises.remove(premises.size() - 1));
+		}
+	}
+
+	/**
+	 * Checks that the outcome of the tree for the given argument is its
+	 * validity as decided.
+	 *
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument
+	 */
+	private static void checkDecideAgrees(Vector<Formula> premises, Formula conclusion) {
+		String tree = ProofTreeGenerator.generateProofTree(premises, conclusion, budget()).getOutcome();
+		String decided = ProofTreeGenerator.decide(premises, conclusion, budget());
+		expect(tree.equals(decided), "tree for " + premises + " |- " + conclusion + " is " + decided + " (got " + tree + ")");
+	}
+
+	/**
+	 * Checks that deciding arguments with a 20000-term chain of conjunctions
+	 * or 20000 nested negations, which nest as deeply as they are long, does
+	 * not exhaust the call stack, and that a budget which has already run out
+	 * stops the SAT solver while the argument is being encoded.
+	 */
+	private static void testDecideDeep() {
+		int length = 20000;
+		StringBuilder chain = new StringBuilder("A");
+		StringBuilder negations = new StringBuilder();
+		for(int i = 1; i < length; i++) {
+			chain.append('&').append((char)('A' + (i % 26)));
+		}
+		for(int i = 0; i < length; i++) {
+			negations.append('~');
+		}
+
+		Vector<Formula> premises = new Vector<Formula>();
+		premises.add(Formula.parse(chain.toString()));
+		checkDecided(ProofTree.VALID, premises, Formula.parse("Z"), budget());
+		checkDecided(ProofTree.INVALID, premises, Formula.parse("~Z"), budget());
+		checkDecided(ProofTree.UNKNOWN, premises, Formula.parse("Z"), new Budget(Long.MAX_VALUE, Long.MAX_VALUE, 0));
+
+		premises.clear();
+		premises.add(Formula.parse(negations.toString() + "A"));
+		checkDecided(ProofTree.VALID, premises, Formula.parse("A"), budget());
+		checkDecided(ProofTree.INVALID, premises, Formula.parse("~A"), budget());
+	}
+
+	/**
+	 * Checks that deciding first-order arguments, whose branches are expanded
+	 * one at a time and share an agenda, gives the outcome of the tree for
+	 * each first-order sample argument, and for random first-order arguments
+	 * whose trees and decisions both finish within 500 rule applications,
+	 * which is enough for most of them. An argument
+	 * with 300 disjunctions as premises, which leaves a branch waiting to be
+	 * expanded at each of them, is decided as well.
+	 *
+	 * @throws IOException if a sample argument cannot be read
+	 */
+	private static void testDecideBranches() throws IOException {
+		for(int i = 10; i <= 12; i++) {
+			Vector<Formula> premises = readArgument("test/arg" + i + ".txt");
+			checkDecideAgrees(premises, premises.remove(premises.size() - 1));
+		}
+
+		Random random = new Random(4905);
+		for(int i = 0; i < 300; i++) {
+			Vector<Formula> premises = new Vector<Formula>();
+			int count = 1 + random.nextInt(4);
+			for(int j = 0; j < count; j++) {
+				premises.add(Formula.parse(randomFormula(random, 1 + random.nextInt(4), "")));
+			}
+			Formula conclusion = premises.remove(premises.size() - 1);
+			String tree = ProofTreeGenerator.generateProofTree(premises, conclusion, new Budget(500, 100000, Long.MAX_VALUE)).getOutcome();
+			String decided = ProofTreeGenerator.decide(premises, conclusion, new Budget(500, 100000, Long.MAX_VALUE));
+			if(!tree.equals(ProofTree.UNKNOWN) && !decided.equals(ProofTree.UNKNOWN)) {
+				expect(tree.equals(decided), "tree for " + premises + " |- " + conclusion + " is " + decided + " (got " + tree + ")");
+			}
+		}
+
+		Vector<Formula> premises = new Vector<Formula>();
+		for(int i = 0; i < 300; i++) {
+			char constant = (char)('a' + (i / 12));
+			premises.add(Formula.parse("(" + (char)('A' + (i % 12)) + constant + " + " + (char)('M' + (i % 12)) + constant + ")"));
+		}
+		checkDecided(ProofTree.INVALID, premises, Formula.parse("@xZx"), budget());
+	}
+
+	/**
+	 * Checks that the given argument is decided to have the expected outcome
+	 * within the given budget.
+	 *
+	 * @param expected the expected outcome
+	 * @param premises a list of the premises of the argument
+	 * @param conclusion the (unnegated) conclusion of the argument
+	 * @param budget the budget limiting the work done
+	 */
+	private static void checkDecided(String expected, Vector<Formula> premises, Formula conclusion, Budget budget) {
+		String description = "decision for " + premises.get(0).toString().length() + "-character premise |- " + conclusion;
+		try {
+			String outcome = ProofTreeGenerator.decide(premises, conclusion, budget);
+			expect(outcome.equals(expected), description + " is " + expected + " (got " + outcome + ")");
+		} catch(StackOverflowError e) {
+			expect(false, description + " overflowed the stack");
+		}
+	}
+
+	/**
+	 * Checks that open branches stopped by blocking show an argument to be
+	 * invalid in the monadic fragment, and leave its outcome unknown outside
+	 * it, both when the tree is kept and when the argument is only decided.
+	 * Without blocking, none of the first four trees would terminate. An
+	 * argument outside the fragment with a fully expanded open branch is
+	 * still invalid.
+	 */
+	private static void testBlocking() {
+		checkBlocking(ProofTree.INVALID, "@x#y(Px>Py)", "Pa", "Qa");
+		checkBlocking(ProofTree.INVALID, "@x#y(Px&Py)", "Qa");
+		checkBlocking(ProofTree.UNKNOWN, "@x#yRxy", "Raa");
+		checkBlocking(ProofTree.UNKNOWN, "@x#y(Rxy&Ryx)", "#xRxx");
+		checkBlocking(ProofTree.INVALID, "Rab", "Rba");
+	}
+
+	/**
+	 * Checks that the given argument has the expected outcome when branches
+	 * which repeat themselves are blocked, and that search stopped before the
+	 * budget ran out.
+	 *
+	 * @param expected the expected outcome
+	 * @param argument the premises of the argument followed by its
+	 *  (unnegated) conclusion
+	 */
+	private static void checkBlocking(String expected, String... argument) {
+		Vector<Formula> premises = new Vector<Formula>();
+		for(int i = 0; i < argument.length; i++) {
+			premises.add(Formula.parse(argument[i]));
+		}
+		Formula conclusion = premises.remove(premises.size() - 1);
+
+		Budget budget = budget();
+		String outcome = ProofTreeGenerator.generateProofTree(premises, conclusion, budget, true).getOutcome();
+		expect(outcome.equals(expected) && !budget.isExhausted(), "tree for " + premises + " |- " + conclusion + " is " + expected + " (got " + outcome + ")");
+
+		budget = budget();
+		outcome = ProofTreeGenerator.decide(premises, conclusion, budget, true);
+		expect(outcome.equals(expected) && !budget.isExhausted(), "decision for " + premises + " |- " + conclusion + " is " + expected + " (got " + outcome + ")");
+	}
+
+	/**
+	 * Returns the budget used for each tree, which stops arguments whose
+	 * trees do not terminate.
+	 *
+	 * @return a new budget
+	 */
+	private static Budget budget() {
+		return(new Budget(5000, 100000, Long.MAX_VALUE));
+	}
+
+	/**
+	 * Reads the argument in the given file, one formula per line, ignoring
+	 * blank lines. The conclusion is the last formula.
+	 *
+	 * @param path the path of the file
+	 * @return the premises of the argument followed by its conclusion
+	 * @throws IOException if the file cannot be read
+	 */
+	private static Vector<Formula> readArgument(String path) throws IOException {
+		Vector<Formula> formulae = new Vector<Formula>();
+		BufferedReader reader = new BufferedReader(new FileReader(path));
+		String line;
+		while((line = reader.readLine()) != null) {
+			if(!line.equals("")) {
+				formulae.add(Formula.parse(line));
+			}
+		}
+		reader.close();
+		return(formulae);
+	}
+
+	/**
+	 * Returns the string representation of a random propositional formula.
+	 *
+	 * @param random the source of randomness
+	 * @param depth the greatest depth of the formula
+	 * @return the string representation of a random formula
+	 */
+	private static String randomFormula(Random random, int depth) {
+		if(depth == 0 || random.nextInt(4) == 0) {
+			String atom = "PQRS".substring(random.nextInt(4)).substring(0, 1);
+			return((random.nextInt(3) == 0) ? "~" + atom : atom);
+		}
+		int choice = random.nextInt(5);
+		if(choice == 0) {
+			return("~(" + randomFormula(random, depth - 1) + ")");
+		}
+		return("(" + randomFormula(random, depth - 1) + " " + "&+>:".charAt(choice - 1) + " " + randomFormula(random, depth - 1) + ")");
+	}
+
+	/**
+	 * Returns the string representation of a random first-order formula
+	 * whose atoms may name the given bound variables and the constants
+	 * <code>a</code> and <code>b</code>.
+	 *
+	 * @param random the source of randomness
+	 * @param depth the greatest depth of the formula
+	 * @param bound the variables bound where the formula occurs
+	 * @return the string representation of a random formula
+	 */
+	private static String randomFormula(Random random, int depth, String bound) {
+		String terms = bound + "ab";
+		if(depth == 0 || random.nextInt(5) == 0) {
+			String atom = "FGH".substring(random.nextInt(3)).substring(0, 1) + terms.charAt(random.nextInt(terms.length()));
+			if(atom.startsWith("H")) {
+				atom += terms.charAt(random.nextInt(terms.length()));
+			}
+			return((random.nextInt(3) == 0) ? "~" + atom : atom);
+		}
+		int choice = random.nextInt(7);
+		if(choice == 0) {
+			return("~(" + randomFormula(random, depth - 1, bound) + ")");
+		} else if(choice >= 5) {
+			String variable = "xyz".substring(random.nextInt(3)).substring(0, 1);
+			return("@#".charAt(choice - 5) + variable + "(" + randomFormula(random, depth - 1, bound + variable) + ")");
+		}
+		return("(" + randomFormula(random, depth - 1, bound) + " " + "&+>:".charAt(choice - 1) + " " + randomFormula(random, depth - 1, bound) + ")");
+	}
+
+	/**
+	 * Records the result of a check, printing a message if it failed.
+	 *
+	 * @param condition whether or not the check passed
+	 * @param description a description of the check
+	 */
+	private static void expect(boolean condition, String description) {
+		if(!condition) {
+			failures++;
+			System.out.println("FAILED: " + description);
+		}
+	}
+}
\ No newline at end of file